@@ -0,0 +1,46 @@
+package ru.korshunov.kanban.benchmark;
+
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+final class BoardFixture {
+    static final LocalDateTime START_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final Duration DURATION = Duration.ofMinutes(5);
+    static final int SUBTASKS_PER_EPIC = 10;
+
+    private BoardFixture() {
+    }
+
+    static LocalDateTime slot(int index) {
+        return START_TIME.plusMinutes(index * 10L);
+    }
+
+    // Половина доски - задачи, половина - подзадачи эпиков по SUBTASKS_PER_EPIC в каждом.
+    static void fill(TaskManager taskManager, int boardSize) {
+        Epic epic = null;
+        int numberOfSubtasks = 0;
+
+        for (int i = 0; i < boardSize; i++) {
+            if (i % 2 == 0) {
+                taskManager.addTask(new Task("Задача " + i, "Описание " + i, TaskStatus.NEW, slot(i), DURATION));
+                continue;
+            }
+
+            if (epic == null || numberOfSubtasks == SUBTASKS_PER_EPIC) {
+                epic = new Epic("Эпик " + i, "Описание " + i);
+                taskManager.addEpic(epic);
+                numberOfSubtasks = 0;
+            }
+
+            TaskStatus taskStatus = TaskStatus.values()[i % TaskStatus.values().length];
+            taskManager.addSubtask(new Subtask("Подзадача " + i, "Описание " + i, taskStatus, epic.getId(), slot(i), DURATION));
+            numberOfSubtasks++;
+        }
+    }
+}
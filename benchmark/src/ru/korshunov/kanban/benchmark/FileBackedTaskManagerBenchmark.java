@@ -0,0 +1,72 @@
+package ru.korshunov.kanban.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.korshunov.kanban.manager.BinarySnapshot;
+import ru.korshunov.kanban.manager.FileBackedTaskManager;
+import ru.korshunov.kanban.manager.SnapshotFile;
+import ru.korshunov.kanban.manager.InMemoryTaskManager;
+import ru.korshunov.kanban.manager.SnapshotFormat;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FileBackedTaskManagerBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int boardSize;
+
+    @Param({"CSV", "BINARY"})
+    private SnapshotFormat snapshotFormat;
+
+    private Path path;
+    private FileBackedTaskManager taskManager;
+    private Epic epic;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = Files.createTempFile("kanban-benchmark", ".snapshot");
+
+        InMemoryTaskManager board = new InMemoryTaskManager();
+        BoardFixture.fill(board, boardSize);
+        List<Task> tasks = board.getListOfTask();
+        List<Epic> epics = board.getListOfEpics();
+        List<Subtask> subtasks = board.getListOfSubtasks();
+        BinarySnapshot.write(path, tasks.size() + epics.size() + subtasks.size(), tasks, epics, subtasks);
+
+        // Снимок перезаписывается в формате, выбранном для замера.
+        taskManager = FileBackedTaskManager.loadFromFile(path);
+        taskManager.setSnapshotFormat(snapshotFormat);
+        epic = taskManager.getListOfEpics().get(0);
+        taskManager.updateEpic(epic);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(SnapshotFile.previousPath(path));
+    }
+
+    // Изменение одного эпика сохраняет всю доску целиком.
+    @Benchmark
+    public FileBackedTaskManager save() {
+        taskManager.updateEpic(epic);
+        return taskManager;
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(path);
+    }
+}
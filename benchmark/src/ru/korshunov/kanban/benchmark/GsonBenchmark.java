@@ -0,0 +1,64 @@
+package ru.korshunov.kanban.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import ru.korshunov.kanban.adapter.DurationTypeAdapter;
+import ru.korshunov.kanban.adapter.LocalDateTimeTypeAdapter;
+import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.manager.InMemoryTaskManager;
+import ru.korshunov.kanban.task.Task;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GsonBenchmark {
+    private static final Type TASK_LIST_TYPE = new TypeToken<List<Task>>() {
+    }.getType();
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int boardSize;
+
+    // REFLECTIVE - прежний Gson с адаптерами только для времени, STREAMING - общий Gson сервера.
+    @Param({"REFLECTIVE", "STREAMING"})
+    private String codec;
+
+    private Gson gson;
+    private List<Task> tasks;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        BoardFixture.fill(taskManager, boardSize);
+
+        gson = codec.equals("STREAMING") ? HttpKanbanServer.getGson() : new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+                .create();
+        tasks = new ArrayList<>(taskManager.getListOfTask());
+        tasks.addAll(taskManager.getListOfSubtasks());
+        json = gson.toJson(tasks);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(tasks);
+    }
+
+    @Benchmark
+    public List<Task> fromJson() {
+        return gson.fromJson(json, TASK_LIST_TYPE);
+    }
+}
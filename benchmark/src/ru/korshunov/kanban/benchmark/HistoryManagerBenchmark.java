@@ -0,0 +1,44 @@
+package ru.korshunov.kanban.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.korshunov.kanban.manager.history.HistoryManager;
+import ru.korshunov.kanban.manager.history.InMemoryHistoryManager;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryManagerBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int boardSize;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        historyManager = new InMemoryHistoryManager();
+        tasks = new Task[boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            tasks[i] = Task.getInstance(i + 1, "Задача " + i, TaskStatus.NEW, "", BoardFixture.slot(i), BoardFixture.DURATION);
+            historyManager.add(tasks[i]);
+        }
+    }
+
+    // Каждый просмотр переносит уже существующую запись в конец истории.
+    @Benchmark
+    public Task addExisting() {
+        Task task = tasks[next];
+        next = (next + 7919) % boardSize;
+        historyManager.add(task);
+        return task;
+    }
+}
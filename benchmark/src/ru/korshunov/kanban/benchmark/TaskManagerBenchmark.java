@@ -0,0 +1,103 @@
+package ru.korshunov.kanban.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.korshunov.kanban.manager.InMemoryTaskManager;
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int boardSize;
+
+    private TaskManager taskManager;
+    private Epic epic;
+    private LocalDateTime freeSlot;
+    private LocalDateTime busySlot;
+    private int maxId;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskManager = new InMemoryTaskManager();
+        BoardFixture.fill(taskManager, boardSize);
+
+        epic = new Epic("Эпик для замеров", "");
+        taskManager.addEpic(epic);
+        freeSlot = BoardFixture.slot(boardSize + 1);
+        busySlot = BoardFixture.slot(boardSize / 2);
+        maxId = epic.getId();
+
+        for (Task task : taskManager.getListOfTask()) {
+            taskManager.getTaskOnId(task.getId());
+        }
+    }
+
+    @Benchmark
+    public int addAndRemoveTask() {
+        Task task = new Task("Задача", "", TaskStatus.NEW, freeSlot, BoardFixture.DURATION);
+        taskManager.addTask(task);
+        taskManager.removeTask(task.getId());
+        return task.getId();
+    }
+
+    @Benchmark
+    public int addAndRemoveSubtask() {
+        Subtask subtask = new Subtask("Подзадача", "", TaskStatus.NEW, epic.getId(), freeSlot, BoardFixture.DURATION);
+        taskManager.addSubtask(subtask);
+        taskManager.removeSubtask(subtask.getId());
+        return subtask.getId();
+    }
+
+    @Benchmark
+    public boolean rejectIntersectingTask() {
+        try {
+            taskManager.addTask(new Task("Задача", "", TaskStatus.NEW, busySlot, BoardFixture.DURATION));
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    // Каждый id принадлежит ровно одной коллекции, поэтому промахи поиска входят в замер.
+    @Benchmark
+    public Task getOnId() {
+        nextId = nextId % maxId + 1;
+        Task task = taskManager.getTaskOnId(nextId);
+        if (task == null) {
+            task = taskManager.getSubtaskOnId(nextId);
+        }
+        if (task == null) {
+            task = taskManager.getEpicOnId(nextId);
+        }
+        return task;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void getPrioritizedTasks(Blackhole blackhole) {
+        for (Task task : taskManager.getPrioritizedTasks()) {
+            blackhole.consume(task);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Task> getHistory() {
+        return taskManager.getHistory();
+    }
+}
@@ -0,0 +1,200 @@
+package ru.korshunov.kanban;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+// Хранилище по id без упаковки ключей: значение лежит в ячейке массива с индексом id, удалённое - null.
+// Рассчитано на плотные неотрицательные id из общего счётчика менеджера. Массив растёт, только пока он
+// не больше SPARSE_FACTOR ячеек на значение; id за его пределами, например загруженные из файла
+// разреженные id, хранятся в упорядоченной карте sparse, поэтому память не зависит от величины id.
+public class DenseIdMap<V> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_DENSE_CAPACITY = 1 << 16;
+    private static final int SPARSE_FACTOR = 8;
+
+    private Object[] values;
+    // Только id не меньше values.length, чтобы обход шёл сначала по массиву, а затем по карте.
+    private NavigableMap<Integer, V> sparse;
+    private int size = 0;
+    private int modCount = 0;
+
+    public DenseIdMap() {
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int id) {
+        if (id >= 0 && id < values.length) {
+            return (V) values[id];
+        }
+        return sparse == null || id < 0 ? null : sparse.get(id);
+    }
+
+    public boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    public V put(int id, V value) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Идентификатор не может быть отрицательным: " + id);
+        }
+        if (value == null) {
+            return remove(id);
+        }
+
+        V previous;
+        if (id < values.length || ensureCapacity(id + 1)) {
+            previous = get(id);
+            values[id] = value;
+        } else {
+            if (sparse == null) {
+                sparse = new TreeMap<>();
+            }
+            previous = sparse.put(id, value);
+        }
+        if (previous == null) {
+            size++;
+            modCount++;
+        }
+
+        return previous;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int id) {
+        V previous;
+        if (id >= 0 && id < values.length) {
+            previous = (V) values[id];
+            values[id] = null;
+        } else {
+            previous = sparse == null || id < 0 ? null : sparse.remove(id);
+        }
+        if (previous != null) {
+            size--;
+            modCount++;
+        }
+
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        values = new Object[INITIAL_CAPACITY];
+        sparse = null;
+        size = 0;
+        modCount++;
+    }
+
+    public Collection<V> values() {
+        return valuesAfter(-1);
+    }
+
+    // Значения с id больше заданного в порядке возрастания id.
+    public Collection<V> valuesAfter(int id) {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator(Math.max(id + 1, 0));
+            }
+
+            @Override
+            public int size() {
+                if (id < 0) {
+                    return size;
+                }
+
+                int count = 0;
+                for (int i = id + 1; i < values.length; i++) {
+                    if (values[i] != null) {
+                        count++;
+                    }
+                }
+                if (sparse != null) {
+                    count += sparse.tailMap(id, false).size();
+                }
+                return count;
+            }
+        };
+    }
+
+    // Возвращает false, если массив пришлось бы сделать слишком разреженным. Значения из sparse,
+    // попавшие в новый массив, переносятся в него.
+    private boolean ensureCapacity(int capacity) {
+        if (capacity <= values.length) {
+            return true;
+        }
+
+        long limit = Math.max(MIN_DENSE_CAPACITY, (long) SPARSE_FACTOR * (size + 1));
+        if (capacity > limit) {
+            return false;
+        }
+
+        int newCapacity = (int) Math.min(Math.max(capacity, values.length + (values.length >> 1)), limit);
+        values = Arrays.copyOf(values, newCapacity);
+        if (sparse != null) {
+            NavigableMap<Integer, V> moved = sparse.headMap(newCapacity, false);
+            for (Map.Entry<Integer, V> entry : moved.entrySet()) {
+                values[entry.getKey()] = entry.getValue();
+            }
+            moved.clear();
+        }
+        return true;
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int next;
+        private Iterator<V> sparseValues;
+
+        private ValueIterator(int from) {
+            next = advance(from);
+            if (sparse != null) {
+                sparseValues = sparse.tailMap(from, true).values().iterator();
+            }
+        }
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length || (sparseValues != null && sparseValues.hasNext());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (next >= values.length) {
+                return sparseValues.next();
+            }
+            V value = (V) values[next];
+            next = advance(next + 1);
+            return value;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ru.korshunov.kanban.adapter;
 
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
@@ -10,11 +11,19 @@ import java.time.Duration;
 public class DurationTypeAdapter extends TypeAdapter<Duration> {
     @Override
     public void write(JsonWriter out, Duration value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
         out.value(value.getSeconds());
     }
 
     @Override
     public Duration read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
         return Duration.ofSeconds(in.nextLong());
     }
 }
@@ -0,0 +1,88 @@
+package ru.korshunov.kanban.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EpicTypeAdapter extends TypeAdapter<Epic> {
+    private final SubtaskTypeAdapter subtaskAdapter = new SubtaskTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Epic epic) throws IOException {
+        if (epic == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("subtasks").beginArray();
+        for (Subtask subtask : epic.getListOfSubtasks()) {
+            subtaskAdapter.write(out, subtask);
+        }
+        out.endArray();
+        if (epic.getEndTime() != null) {
+            out.name("endTime");
+            TaskFields.writeDateTime(out, epic.getEndTime());
+        }
+        TaskFields.write(out, epic);
+        out.endObject();
+    }
+
+    // Статус и время эпика вычисляются по подзадачам, но переданные явно значения, как и раньше, сохраняются.
+    @Override
+    public Epic read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        TaskFields fields = new TaskFields();
+        List<Subtask> subtasks = new ArrayList<>();
+        LocalDateTime endTime = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (field.equals("subtasks") && in.peek() != JsonToken.NULL) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    Subtask subtask = subtaskAdapter.read(in);
+                    if (subtask != null) {
+                        subtasks.add(subtask);
+                    }
+                }
+                in.endArray();
+            } else if (field.equals("endTime")) {
+                endTime = TaskFields.readDateTime(in);
+            } else if (!fields.read(field, in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Epic epic = Epic.getInstance(fields.id, fields.name, fields.taskStatus, fields.description);
+        for (Subtask subtask : subtasks) {
+            epic.addSubtask(subtask);
+        }
+        if (fields.taskStatus != null) {
+            epic.setTaskStatus(fields.taskStatus);
+        }
+        if (fields.startTime != null) {
+            epic.setStartTime(fields.startTime);
+        }
+        if (fields.duration != null) {
+            epic.setDuration(fields.duration);
+        }
+        if (endTime != null) {
+            epic.setEndTime(endTime);
+        }
+        return epic;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.korshunov.kanban.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.korshunov.kanban.task.Subtask;
+
+import java.io.IOException;
+
+public class SubtaskTypeAdapter extends TypeAdapter<Subtask> {
+
+    @Override
+    public void write(JsonWriter out, Subtask subtask) throws IOException {
+        if (subtask == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("epicId").value(subtask.getEpicId());
+        TaskFields.write(out, subtask);
+        out.endObject();
+    }
+
+    @Override
+    public Subtask read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        TaskFields fields = new TaskFields();
+        int epicId = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (field.equals("epicId")) {
+                epicId = in.nextInt();
+            } else if (!fields.read(field, in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return Subtask.getInstance(fields.id, fields.name, fields.taskStatus, fields.description, epicId,
+                fields.startTime, fields.duration);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.korshunov.kanban.adapter;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Поля, общие для задач, эпиков и подзадач. Пустые поля не пишутся, как и при сериализации Gson по умолчанию.
+class TaskFields {
+    private static final LocalDateTimeTypeAdapter LOCAL_DATE_TIME_ADAPTER = new LocalDateTimeTypeAdapter();
+    private static final DurationTypeAdapter DURATION_ADAPTER = new DurationTypeAdapter();
+
+    String name;
+    String description;
+    int id;
+    TaskStatus taskStatus;
+    LocalDateTime startTime;
+    Duration duration;
+
+    static void write(JsonWriter out, Task task) throws IOException {
+        if (task.getName() != null) {
+            out.name("name").value(task.getName());
+        }
+        if (task.getDescription() != null) {
+            out.name("description").value(task.getDescription());
+        }
+        out.name("id").value(task.getId());
+        if (task.getTaskStatus() != null) {
+            out.name("taskStatus").value(task.getTaskStatus().name());
+        }
+        if (task.getStartTime() != null) {
+            out.name("startTime");
+            LOCAL_DATE_TIME_ADAPTER.write(out, task.getStartTime());
+        }
+        if (task.getDuration() != null) {
+            out.name("duration");
+            DURATION_ADAPTER.write(out, task.getDuration());
+        }
+    }
+
+    static void writeDateTime(JsonWriter out, LocalDateTime value) throws IOException {
+        LOCAL_DATE_TIME_ADAPTER.write(out, value);
+    }
+
+    static LocalDateTime readDateTime(JsonReader in) throws IOException {
+        return LOCAL_DATE_TIME_ADAPTER.read(in);
+    }
+
+    // Возвращает false, если поле не общее: его разбирает адаптер наследника или пропускает.
+    boolean read(String field, JsonReader in) throws IOException {
+        switch (field) {
+            case "name":
+                name = readString(in);
+                return true;
+            case "description":
+                description = readString(in);
+                return true;
+            case "id":
+                id = in.nextInt();
+                return true;
+            case "taskStatus":
+                taskStatus = readStatus(in);
+                return true;
+            case "startTime":
+                startTime = LOCAL_DATE_TIME_ADAPTER.read(in);
+                return true;
+            case "duration":
+                duration = DURATION_ADAPTER.read(in);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    // Неизвестное значение статуса, как и в Gson, читается как null.
+    private static TaskStatus readStatus(JsonReader in) throws IOException {
+        String value = readString(in);
+        if (value == null) {
+            return null;
+        }
+
+        for (TaskStatus taskStatus : TaskStatus.values()) {
+            if (taskStatus.name().equals(value)) {
+                return taskStatus;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.korshunov.kanban.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.korshunov.kanban.task.Task;
+
+import java.io.IOException;
+
+public class TaskTypeAdapter extends TypeAdapter<Task> {
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        TaskFields.write(out, task);
+        out.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        TaskFields fields = new TaskFields();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!fields.read(in.nextName(), in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return Task.getInstance(fields.id, fields.name, fields.taskStatus, fields.description, fields.startTime, fields.duration);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.korshunov.kanban.httpserver;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import ru.korshunov.kanban.httpserver.handler.*;
+import ru.korshunov.kanban.manager.TaskManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+// Доска в памяти: свой менеджер с историей и свой набор обработчиков. Загрузка, выгрузка и учёт запросов
+// синхронизированы на самой доске, поэтому запросы к разным доскам не ждут друг друга.
+public class Board {
+    // Кеш ответов доски: досок в памяти может быть много, поэтому бюджет меньше, чем у обработчиков сервера.
+    public static final int RESPONSE_CACHE_BYTES = 256 << 10;
+
+    private final String id;
+    private final ExecutorService eventStreams;
+    private TaskManager taskManager;
+    private Map<String, HttpHandler> handlers;
+    private EventsHandler eventsHandler;
+    private int activeRequests = 0;
+    private long lastAccessNanos;
+    // Выгруженная доска удалена из реестра и больше не загружается: следующий запрос создаст новую.
+    private boolean retired = false;
+
+    // Пул потоков событий общий для досок реестра.
+    Board(String id, ExecutorService eventStreams) {
+        this.id = id;
+        this.eventStreams = eventStreams;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Возвращает false для выгруженной доски, иначе загружает её при необходимости и учитывает запрос.
+    // Доска, которую не удалось загрузить, тоже считается выгруженной.
+    synchronized boolean acquire(Function<String, TaskManager> loader) {
+        if (retired) {
+            return false;
+        }
+
+        if (taskManager == null) {
+            try {
+                load(loader.apply(id));
+            } catch (RuntimeException e) {
+                retired = true;
+                throw e;
+            }
+        }
+        activeRequests++;
+        lastAccessNanos = System.nanoTime();
+        return true;
+    }
+
+    synchronized void release() {
+        activeRequests--;
+        lastAccessNanos = System.nanoTime();
+    }
+
+    private void load(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        eventsHandler = new EventsHandler(taskManager, eventStreams);
+        ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_BYTES);
+        handlers = new HashMap<>();
+        handlers.put("tasks", new TasksHandler(taskManager, responseCache));
+        handlers.put("epics", new EpicsHandler(taskManager, responseCache));
+        handlers.put("subtasks", new SubtasksHandler(taskManager, responseCache));
+        handlers.put("history", new HistoryHandler(taskManager, responseCache));
+        handlers.put("prioritized", new PrioritizedHandler(taskManager));
+        handlers.put("batch", new BatchHandler(taskManager));
+        handlers.put("events", eventsHandler);
+    }
+
+    // Обработчик ресурса доски; вызывается только между acquire и release.
+    public synchronized HttpHandler getHandler(String resource) {
+        return handlers.get(resource);
+    }
+
+    public synchronized TaskManager getTaskManager() {
+        return taskManager;
+    }
+
+    synchronized long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    // Выгружает доску, если в ней нет запросов и к ней не обращались с момента idleSinceNanos. Доска
+    // с открытыми потоками событий выгружается, только если closeStreams. Менеджер закрывается,
+    // чтобы все изменения оказались на диске.
+    synchronized boolean retireIfIdle(long idleSinceNanos, boolean closeStreams) throws IOException {
+        if (retired || taskManager == null || activeRequests > 0 || lastAccessNanos - idleSinceNanos > 0
+                || (!closeStreams && eventsHandler.getActiveStreams() > 0)) {
+            return false;
+        }
+
+        retired = true;
+        eventsHandler.close();
+        if (taskManager instanceof Closeable) {
+            ((Closeable) taskManager).close();
+        }
+        taskManager = null;
+        handlers = null;
+        eventsHandler = null;
+        return true;
+    }
+}
@@ -0,0 +1,252 @@
+package ru.korshunov.kanban.httpserver;
+
+import ru.korshunov.kanban.exception.ManagerSaveException;
+import ru.korshunov.kanban.httpserver.handler.EventsHandler;
+import ru.korshunov.kanban.manager.Managers;
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Доски по идентификатору. Доска загружается при первом запросе к ней и выгружается на диск, когда к ней
+// не обращались дольше idleTimeout или когда загруженных досок стало больше maxResidentBoards.
+// Реестр не держит общих блокировок: доска загружается и выгружается под своей, а карта досок конкурентная.
+// Общая блокировка берётся только при закрытии реестра, чтобы дождаться окончания запросов.
+public class BoardRegistry implements Closeable {
+    public static final int DEFAULT_MAX_RESIDENT_BOARDS = 64;
+    public static final long DEFAULT_IDLE_TIMEOUT_MINUTES = 10;
+
+    private static final Pattern BOARD_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final long MIN_SWEEP_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final ConcurrentMap<String, Board> boards = new ConcurrentHashMap<>();
+    private final Function<String, TaskManager> loader;
+    private final int maxResidentBoards;
+    private final long idleTimeoutNanos;
+    private final ScheduledExecutorService sweeper;
+    // Потоки событий всех досок выполняются в одном пуле с общим ограничением.
+    private final ExecutorService eventStreams = EventsHandler.newStreamPool("kanban-board-sse-");
+    private final LongAdder loads;
+    private final LongAdder evictions;
+    private final LongAdder loadFailures;
+    private final LongAdder saveFailures;
+    // close ждёт на условии окончания запросов; release сигналит о нём, только пока реестр закрывается.
+    private final Lock closeLock = new ReentrantLock();
+    private final Condition released = closeLock.newCondition();
+    private volatile boolean closing = false;
+
+    public BoardRegistry(Function<String, TaskManager> loader, int maxResidentBoards, long idleTimeout, TimeUnit unit) {
+        if (maxResidentBoards < 1) {
+            throw new IllegalArgumentException("Количество загруженных досок должно быть больше нуля.");
+        }
+        if (idleTimeout < 1) {
+            throw new IllegalArgumentException("Время простоя доски должно быть больше нуля.");
+        }
+
+        this.loader = loader;
+        this.maxResidentBoards = maxResidentBoards;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        loads = registry.counter("kanban_board_loads_total", "Загрузки досок с диска.");
+        evictions = registry.counter("kanban_board_evictions_total", "Выгрузки досок на диск.");
+        loadFailures = registry.counter("kanban_board_load_failures_total", "Ошибки загрузки досок.");
+        saveFailures = registry.counter("kanban_board_save_failures_total", "Ошибки выгрузки досок на диск.");
+        registry.gauge("kanban_boards_resident", "Доски, загруженные в память.", boards::size);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kanban-board-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleTimeoutNanos / 2, MIN_SWEEP_PERIOD_NANOS);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    // Каждая доска хранится в своём подкаталоге root.
+    public static BoardRegistry inDirectory(Path root, int maxResidentBoards, long idleTimeout, TimeUnit unit) {
+        return new BoardRegistry(boardId -> Managers.getBoardTaskManager(root.resolve(boardId)), maxResidentBoards, idleTimeout, unit);
+    }
+
+    public static boolean isValidBoardId(CharSequence boardId) {
+        return BOARD_ID.matcher(boardId).matches();
+    }
+
+    // Загруженная доска с учтённым запросом; после обработки запроса её нужно вернуть через release.
+    // Закрывающийся реестр досок не выдаёт и бросает RejectedExecutionException.
+    public Board acquire(String boardId) {
+        if (!isValidBoardId(boardId)) {
+            throw new IllegalArgumentException("Некорректный идентификатор доски: " + boardId);
+        }
+        checkNotClosing();
+
+        Board board;
+        while (true) {
+            board = boards.get(boardId);
+            if (board == null) {
+                Board created = new Board(boardId, eventStreams);
+                board = boards.putIfAbsent(boardId, created);
+                if (board == null) {
+                    board = created;
+                    loads.increment();
+                }
+            }
+
+            try {
+                if (board.acquire(loader)) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                boards.remove(boardId, board);
+                loadFailures.increment();
+                throw e;
+            }
+            // Доску выгрузили между поиском и захватом: её место в карте уже свободно или занято новой.
+            boards.remove(boardId, board);
+        }
+
+        // Если close начался после первой проверки, он мог уже не увидеть эту доску: запрос отменяется,
+        // а доску выгрузит close. Иначе close увидит учтённый запрос и дождётся его окончания.
+        if (closing) {
+            release(board);
+            checkNotClosing();
+        }
+
+        // Лишние доски выгружает поток очистки, чтобы запрос не ждал записи чужих досок на диск.
+        if (boards.size() > maxResidentBoards) {
+            try {
+                sweeper.execute(this::evictLeastRecentlyUsed);
+            } catch (RejectedExecutionException e) {
+                // Реестр закрывается, и доски выгрузит close.
+            }
+        }
+        return board;
+    }
+
+    private void checkNotClosing() {
+        if (closing) {
+            throw new RejectedExecutionException("Реестр досок закрывается.");
+        }
+    }
+
+    public void release(Board board) {
+        board.release();
+        if (closing) {
+            closeLock.lock();
+            try {
+                released.signalAll();
+            } finally {
+                closeLock.unlock();
+            }
+        }
+    }
+
+    public int getResidentBoards() {
+        return boards.size();
+    }
+
+    // Выгружает доски без запросов, начиная с давно не использованных, пока их не станет не больше лимита.
+    private void evictLeastRecentlyUsed() {
+        // Время обращения снимается заранее: во время сортировки оно может измениться.
+        Map<Board, Long> lastAccessNanos = new HashMap<>();
+        for (Board board : boards.values()) {
+            lastAccessNanos.put(board, board.getLastAccessNanos());
+        }
+        List<Board> candidates = new ArrayList<>(lastAccessNanos.keySet());
+        candidates.sort(Comparator.comparingLong(lastAccessNanos::get));
+        long now = System.nanoTime();
+        for (Board board : candidates) {
+            if (boards.size() <= maxResidentBoards) {
+                return;
+            }
+            retire(board, now, false);
+        }
+    }
+
+    void evictIdle() {
+        long idleSince = System.nanoTime() - idleTimeoutNanos;
+        for (Board board : boards.values()) {
+            retire(board, idleSince, false);
+        }
+    }
+
+    // Ошибка записи доски считается в kanban_board_save_failures_total и возвращается, но не останавливает
+    // выгрузку остальных досок. Сама доска уже помечена выгруженной.
+    private Exception retire(Board board, long idleSinceNanos, boolean closeStreams) {
+        try {
+            if (board.retireIfIdle(idleSinceNanos, closeStreams)) {
+                boards.remove(board.getId(), board);
+                evictions.increment();
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            boards.remove(board.getId(), board);
+            saveFailures.increment();
+            return e;
+        }
+    }
+
+    // Выгружает все доски, дожидаясь окончания их запросов не дольше CLOSE_TIMEOUT_NANOS. Потоки событий
+    // закрываются. Если доску не удалось записать или её запросы за это время не завершились,
+    // бросается ManagerSaveException; ошибки записи приложены к нему.
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        closing = true;
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT_NANOS;
+        List<Exception> failures = new ArrayList<>();
+        closeLock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                for (Board board : boards.values()) {
+                    Exception failure = retire(board, now, true);
+                    if (failure != null) {
+                        failures.add(failure);
+                    }
+                }
+                if (boards.isEmpty() || deadline - now <= 0) {
+                    break;
+                }
+                released.awaitNanos(deadline - now);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeLock.unlock();
+        }
+        eventStreams.shutdownNow();
+
+        if (!boards.isEmpty() || !failures.isEmpty()) {
+            ManagerSaveException exception = new ManagerSaveException(boards.isEmpty()
+                    ? "Не удалось выгрузить доски на диск."
+                    : "Не выгружены доски с незавершёнными запросами: " + boards.keySet(),
+                    failures.isEmpty() ? null : failures.get(0));
+            for (int i = 1; i < failures.size(); i++) {
+                exception.addSuppressed(failures.get(i));
+            }
+            throw exception;
+        }
+    }
+}
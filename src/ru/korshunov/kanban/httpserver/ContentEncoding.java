@@ -0,0 +1,147 @@
+package ru.korshunov.kanban.httpserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Сжатие тела ответа по Accept-Encoding. Gzip собирается вручную поверх Deflater без обёртки zlib,
+// потому что GZIPOutputStream не принимает чужой Deflater и не позволяет брать его из пула.
+public enum ContentEncoding {
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    IDENTITY("identity");
+
+    private static final int POOL_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final DeflaterPool GZIP_DEFLATERS = new DeflaterPool(Deflater.BEST_SPEED, true, POOL_CAPACITY);
+    private static final DeflaterPool DEFLATE_DEFLATERS = new DeflaterPool(Deflater.BEST_SPEED, false, POOL_CAPACITY);
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    // Выбирает кодирование с наибольшим q, при равенстве - gzip. Кодирования с q=0 клиент не принимает.
+    public static ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return IDENTITY;
+        }
+
+        // -1 - кодирование не упомянуто, тогда для него действует q из "*".
+        double gzipQuality = -1;
+        double deflateQuality = -1;
+        double anyQuality = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] parameters = part.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("deflate")) {
+                deflateQuality = quality;
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+
+        if (gzipQuality < 0) {
+            gzipQuality = anyQuality;
+        }
+        if (deflateQuality < 0) {
+            deflateQuality = anyQuality;
+        }
+        if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+            return GZIP;
+        }
+        return deflateQuality > 0 ? DEFLATE : IDENTITY;
+    }
+
+    // Закрытие возвращённого потока дописывает сжатые данные, закрывает out и возвращает компрессор в пул.
+    public OutputStream wrap(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GzipStream(out, GZIP_DEFLATERS);
+            case DEFLATE:
+                return new PooledDeflaterStream(out, DEFLATE_DEFLATERS);
+            default:
+                return out;
+        }
+    }
+
+    private static class PooledDeflaterStream extends DeflaterOutputStream {
+        private final DeflaterPool pool;
+        private boolean closed = false;
+
+        private PooledDeflaterStream(OutputStream out, DeflaterPool pool) {
+            super(out, pool.acquire(), BUFFER_SIZE);
+            this.pool = pool;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                pool.release(def);
+            }
+        }
+    }
+
+    private static class GzipStream extends PooledDeflaterStream {
+        private final CRC32 crc = new CRC32();
+
+        private GzipStream(OutputStream out, DeflaterPool pool) throws IOException {
+            super(out, pool);
+            out.write(GZIP_HEADER);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (def.finished()) {
+                return;
+            }
+
+            super.finish();
+            writeIntLittleEndian((int) crc.getValue());
+            writeIntLittleEndian((int) def.getBytesRead());
+        }
+
+        private void writeIntLittleEndian(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >>> 8) & 0xff);
+            out.write((value >>> 16) & 0xff);
+            out.write((value >>> 24) & 0xff);
+        }
+    }
+}
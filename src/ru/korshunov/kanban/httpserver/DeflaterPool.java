@@ -0,0 +1,39 @@
+package ru.korshunov.kanban.httpserver;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+// Пул компрессоров: нативная память Deflater выделяется один раз и переиспользуется между ответами.
+// Если все компрессоры заняты, создаётся новый, а лишний при возврате освобождается.
+public class DeflaterPool {
+    private final int level;
+    private final boolean nowrap;
+    private final BlockingQueue<Deflater> idle;
+
+    public DeflaterPool(int level, boolean nowrap, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер пула компрессоров должен быть больше нуля.");
+        }
+
+        this.level = level;
+        this.nowrap = nowrap;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public Deflater acquire() {
+        Deflater deflater = idle.poll();
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!idle.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
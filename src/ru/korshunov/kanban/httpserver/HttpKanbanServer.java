@@ -1,67 +1,185 @@
 package ru.korshunov.kanban.httpserver;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import ru.korshunov.kanban.adapter.DurationTypeAdapter;
+import ru.korshunov.kanban.adapter.EpicTypeAdapter;
 import ru.korshunov.kanban.adapter.LocalDateTimeTypeAdapter;
+import ru.korshunov.kanban.adapter.SubtaskTypeAdapter;
+import ru.korshunov.kanban.adapter.TaskTypeAdapter;
 import ru.korshunov.kanban.httpserver.handler.*;
 import ru.korshunov.kanban.manager.Managers;
 import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.metrics.MetricsJmx;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 public class HttpKanbanServer {
 
     private static final int PORT = 8080;
-    private static Gson gson = new Gson();
+    // Gson потокобезопасен, поэтому один экземпляр с заранее созданными адаптерами общий для всех обработчиков.
+    // Задачи читаются и пишутся адаптерами напрямую из потока JSON, без отражения и дерева JsonElement.
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+            .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+            .registerTypeAdapter(Task.class, new TaskTypeAdapter())
+            .registerTypeAdapter(Epic.class, new EpicTypeAdapter())
+            .registerTypeAdapter(Subtask.class, new SubtaskTypeAdapter())
+            .create();
+
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_BACKLOG = 128;
+    private static final String BOARDS_DIRECTORY = "boards";
 
     private final HttpServer httpServer;
     private final TaskManager taskManager;
+    private final BoardRegistry boardRegistry;
+    private final RequestExecutor requestExecutor;
+    private final MetricsRegistry metricsRegistry = MetricsRegistry.getDefault();
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+    private EventsHandler eventsHandler;
 
     public HttpKanbanServer(TaskManager taskManager) throws IOException {
+        this(taskManager, null, null, 0);
+    }
+
+    // Кроме доски taskManager по корневым путям сервер обслуживает доски реестра по путям /boards/{boardId}/...
+    // и выгружает их на диск при остановке.
+    public HttpKanbanServer(TaskManager taskManager, BoardRegistry boardRegistry) throws IOException {
+        this(taskManager, boardRegistry, null, 0);
+    }
+
+    private HttpKanbanServer(TaskManager taskManager, BoardRegistry boardRegistry, RequestExecutor requestExecutor, int backlog) throws IOException {
         this.taskManager = taskManager;
+        this.boardRegistry = boardRegistry;
+        this.requestExecutor = requestExecutor;
 
-        httpServer = HttpServer.create(new InetSocketAddress(PORT), 0);
+        httpServer = HttpServer.create(new InetSocketAddress(PORT), backlog);
+        if (requestExecutor != null) {
+            httpServer.setExecutor(requestExecutor);
+        }
         registerContext();
+        registerGauges();
+    }
+
+    public static HttpKanbanServer withThreadPool(TaskManager taskManager, int threads, int queueCapacity, int backlog) throws IOException {
+        return withThreadPool(taskManager, null, threads, queueCapacity, backlog);
+    }
+
+    public static HttpKanbanServer withThreadPool(TaskManager taskManager, BoardRegistry boardRegistry,
+                                                  int threads, int queueCapacity, int backlog) throws IOException {
+        return new HttpKanbanServer(taskManager, boardRegistry, RequestExecutor.threadPool(threads, queueCapacity), backlog);
+    }
+
+    public static HttpKanbanServer withVirtualThreads(TaskManager taskManager, int backlog) throws IOException {
+        return new HttpKanbanServer(taskManager, null, RequestExecutor.virtualThreads(), backlog);
     }
 
     private void registerContext() {
-        httpServer.createContext("/tasks", new TasksHandler(taskManager));
-        httpServer.createContext("/epics", new EpicsHandler(taskManager));
-        httpServer.createContext("/subtasks", new SubtasksHandler(taskManager));
-        httpServer.createContext("/history", new HistoryHandler(taskManager));
-        httpServer.createContext("/prioritized", new PrioritizedHandler(taskManager));
+        createContext("tasks", new TasksHandler(taskManager));
+        createContext("epics", new EpicsHandler(taskManager));
+        createContext("subtasks", new SubtasksHandler(taskManager));
+        createContext("history", new HistoryHandler(taskManager));
+        createContext("prioritized", new PrioritizedHandler(taskManager));
+        createContext("batch", new BatchHandler(taskManager));
+        createContext("metrics", new MetricsHandler(metricsRegistry));
+        if (boardRegistry != null) {
+            createContext("boards", new BoardsHandler(boardRegistry));
+        }
+
+        eventsHandler = new EventsHandler(taskManager);
+        createContext("events", eventsHandler);
+    }
+
+    private void createContext(String name, HttpHandler handler) {
+        httpServer.createContext("/" + name, new InstrumentedHandler(name, handler, metricsRegistry));
+    }
+
+    // Показатели последнего созданного сервера: в процессе обычно работает один. Остановленный сервер
+    // снимает свои показатели, чтобы реестр не удерживал его.
+    private void registerGauges() {
+        registerGauge("kanban_http_queue_depth", "Запросы, ожидающие свободного потока.", this::getQueueDepth);
+        registerGauge("kanban_http_active_requests", "Запросы, обрабатываемые в данный момент.", this::getActiveRequests);
+        registerGauge("kanban_http_rejected_requests", "Запросы, отклонённые ответом 503 из-за переполнения очереди.", this::getRejectedRequests);
+        registerGauge("kanban_events_active_streams", "Открытые потоки событий.", () -> eventsHandler.getActiveStreams());
+    }
+
+    private void registerGauge(String name, String help, LongSupplier value) {
+        gauges.put(name, value);
+        metricsRegistry.gauge(name, help, value);
+    }
+
+    private void unregisterGauges() {
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            metricsRegistry.removeGauge(gauge.getKey(), gauge.getValue());
+        }
+        gauges.clear();
     }
 
     public static Gson getGson() {
-        return gson.newBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
-                .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
-                .create();
+        return GSON;
     }
 
     public void start() {
+        MetricsJmx.register(metricsRegistry);
         httpServer.start();
         System.out.println("Сервер Kanban запущен.");
         System.out.println("Адресс сервера: 127.0.0.1");
         System.out.println("Порт сервера: " + httpServer.getAddress().getPort());
+        if (requestExecutor != null) {
+            System.out.println("Запросы выполняются: " + requestExecutor.getDescription() + ".");
+        }
     }
 
 
     public void stop() {
         if (httpServer != null) {
+            eventsHandler.close();
             httpServer.stop(0);
+            unregisterGauges();
+            if (requestExecutor != null) {
+                requestExecutor.shutdown();
+            }
+            if (boardRegistry != null) {
+                boardRegistry.close();
+            }
             System.out.println("Сервер Kanban остановлен.");
         }
     }
 
+    public int getQueueDepth() {
+        return requestExecutor == null ? 0 : requestExecutor.getQueueDepth();
+    }
+
+    public int getActiveRequests() {
+        return requestExecutor == null ? 0 : requestExecutor.getActiveRequests();
+    }
+
+    public long getRejectedRequests() {
+        return requestExecutor == null ? 0 : requestExecutor.getRejectedRequests();
+    }
+
     public static void main(String[] args) {
         try {
-            new HttpKanbanServer(Managers.getDefaultTaskManager()).start();
+            BoardRegistry boardRegistry = BoardRegistry.inDirectory(Path.of(BOARDS_DIRECTORY), BoardRegistry.DEFAULT_MAX_RESIDENT_BOARDS,
+                    BoardRegistry.DEFAULT_IDLE_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            withThreadPool(Managers.getInstrumentedTaskManager(), boardRegistry, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_BACKLOG).start();
         } catch (IOException e) {
             e.printStackTrace();
         }
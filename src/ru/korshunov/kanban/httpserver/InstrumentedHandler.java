@@ -0,0 +1,95 @@
+package ru.korshunov.kanban.httpserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import ru.korshunov.kanban.metrics.LatencyHistogram;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+// Считает запросы обработчика по методу и классу кода ответа и замеряет время обработки.
+// Все счётчики создаются заранее, поэтому запрос не создаёт ни строк меток, ни записей в реестре.
+public class InstrumentedHandler implements HttpHandler {
+    private static final String LATENCY_NAME = "kanban_http_request_seconds";
+    private static final String LATENCY_HELP = "Время обработки HTTP-запросов.";
+    private static final String[] METHODS = {"GET", "POST", "DELETE", "OTHER"};
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+    // Отметка обработчика, передавшего обмен другому потоку. Атрибуты обмена для этого не подходят:
+    // HttpServer хранит их в общем для всех запросов контексте.
+    private static final ThreadLocal<boolean[]> HANDED_OFF = ThreadLocal.withInitial(() -> new boolean[1]);
+    private static final byte[] SERVICE_UNAVAILABLE = "{\"status\":503,\"error\":\"Сервер перегружен\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpHandler handler;
+    private final LatencyHistogram[] latencyByMethod = new LatencyHistogram[METHODS.length];
+    private final LongAdder[] responsesByStatus = new LongAdder[STATUS_CLASSES.length];
+    private final LongAdder handedOff;
+
+    public InstrumentedHandler(String name, HttpHandler handler, MetricsRegistry registry) {
+        this.handler = handler;
+        for (int i = 0; i < METHODS.length; i++) {
+            latencyByMethod[i] = registry.histogram(LATENCY_NAME, LATENCY_HELP, "handler", name, "method", METHODS[i]);
+        }
+        for (int i = 0; i < STATUS_CLASSES.length; i++) {
+            responsesByStatus[i] = registry.counter("kanban_http_responses_total", "Количество HTTP-ответов по классу кода.",
+                    "handler", name, "code", STATUS_CLASSES[i]);
+        }
+        handedOff = registry.counter("kanban_http_handed_off_total", "HTTP-запросы, ответ на которые передан другому потоку.",
+                "handler", name);
+    }
+
+    // Вызывается обработчиком, который отвечает из другого потока, например потоком событий: к концу handle
+    // ответ ещё не отправлен, поэтому такой запрос считается отдельно, без кода ответа и времени обработки.
+    public static void markHandedOff() {
+        HANDED_OFF.get()[0] = true;
+    }
+
+    // Запрос, на который из-за исключения ответ так и не был отправлен, считается ошибкой сервера.
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        boolean[] handedOffMark = HANDED_OFF.get();
+        handedOffMark[0] = false;
+        long startNanos = System.nanoTime();
+        try {
+            if (RequestExecutor.isRejected()) {
+                responseServiceUnavailable(exchange);
+            } else {
+                handler.handle(exchange);
+            }
+        } finally {
+            if (handedOffMark[0]) {
+                handedOffMark[0] = false;
+                handedOff.increment();
+            } else {
+                latencyByMethod[methodIndex(exchange.getRequestMethod())].record(System.nanoTime() - startNanos);
+                int code = exchange.getResponseCode();
+                responsesByStatus[code >= 100 && code < 600 ? code / 100 - 1 : STATUS_CLASSES.length - 1].increment();
+            }
+        }
+    }
+
+    private static void responseServiceUnavailable(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(503, SERVICE_UNAVAILABLE.length);
+            exchange.getResponseBody().write(SERVICE_UNAVAILABLE);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static int methodIndex(String method) {
+        switch (method) {
+            case "GET":
+                return 0;
+            case "POST":
+                return 1;
+            case "DELETE":
+                return 2;
+            default:
+                return 3;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ru.korshunov.kanban.httpserver;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RequestExecutor implements Executor {
+    // Отметка потока, который разбирает отклонённый запрос: обработчик отвечает на него 503.
+    private static final ThreadLocal<boolean[]> REJECTED = ThreadLocal.withInitial(() -> new boolean[1]);
+    private static final int REJECTION_THREADS = 2;
+    private static final int REJECTION_QUEUE_CAPACITY = 64;
+
+    private final ExecutorService executorService;
+    private final ThreadPoolExecutor threadPool;
+    private final int queueCapacity;
+    private final String description;
+    private final ThreadPoolExecutor rejections;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicLong completedRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    private RequestExecutor(ExecutorService executorService, ThreadPoolExecutor threadPool, ThreadPoolExecutor rejections,
+                            int queueCapacity, String description) {
+        this.executorService = executorService;
+        this.threadPool = threadPool;
+        this.rejections = rejections;
+        this.queueCapacity = queueCapacity;
+        this.description = description;
+    }
+
+    public static RequestExecutor threadPool(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Количество потоков и размер очереди должны быть больше нуля.");
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "kanban-http-" + threadNumber.incrementAndGet()));
+        AtomicInteger rejectionThreadNumber = new AtomicInteger();
+        ThreadPoolExecutor rejections = new ThreadPoolExecutor(REJECTION_THREADS, REJECTION_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REJECTION_QUEUE_CAPACITY),
+                runnable -> new Thread(runnable, "kanban-http-rejected-" + rejectionThreadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        rejections.allowCoreThreadTimeOut(true);
+        RequestExecutor requestExecutor = new RequestExecutor(threadPool, threadPool, rejections, queueCapacity,
+                "пул из " + threads + " потоков, очередь " + queueCapacity);
+        threadPool.setRejectedExecutionHandler(requestExecutor.new RejectWithServiceUnavailable());
+
+        return requestExecutor;
+    }
+
+    // Виртуальные потоки доступны начиная с Java 21, а проект собирается под Java 17, поэтому фабрика
+    // ищется отражением. На более старой JVM режим не создаётся, а не подменяется незаметно пулом без ограничения.
+    public static RequestExecutor virtualThreads() {
+        Method factory;
+        try {
+            factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("Виртуальные потоки недоступны: требуется Java 21 или новее.", e);
+        }
+
+        try {
+            return new RequestExecutor((ExecutorService) factory.invoke(null), null, null, 0, "виртуальные потоки");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Ошибка создания исполнителя на виртуальных потоках.", e);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executorService.execute(() -> {
+            activeRequests.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                activeRequests.decrementAndGet();
+                completedRequests.incrementAndGet();
+            }
+        });
+    }
+
+    // Вызывается обработчиком: true, если запрос не поместился в очередь и на него нужно ответить 503.
+    public static boolean isRejected() {
+        return REJECTED.get()[0];
+    }
+
+    // Модель выполнения запросов для сообщения при запуске сервера.
+    public String getDescription() {
+        return description;
+    }
+
+    public int getQueueDepth() {
+        return threadPool == null ? 0 : threadPool.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    public long getCompletedRequests() {
+        return completedRequests.get();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    public void shutdown() {
+        if (rejections != null) {
+            rejections.shutdown();
+        }
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Поток-диспетчер HttpServer не выполняет запросы сам. Запрос, не поместившийся в очередь, разбирается
+    // небольшим пулом отказов с отметкой REJECTED, и обработчик сразу отвечает 503, не трогая менеджер.
+    // Очередь отказов ограничена: когда и она заполнена, 503 отправляет сам диспетчер. Так медленный клиент
+    // задерживает лишь свой отказ, а отброшенный запрос не оставляет клиента ждать ответа без конца.
+    private class RejectWithServiceUnavailable implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            rejectedRequests.incrementAndGet();
+            if (!executor.isShutdown()) {
+                rejections.execute(() -> {
+                    boolean[] rejected = REJECTED.get();
+                    rejected[0] = true;
+                    try {
+                        runnable.run();
+                    } finally {
+                        rejected[0] = false;
+                    }
+                });
+            }
+        }
+    }
+}
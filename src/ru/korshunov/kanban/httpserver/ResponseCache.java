@@ -0,0 +1,69 @@
+package ru.korshunov.kanban.httpserver;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Последние сериализованные ответы по URI запроса. Ответ годен, пока совпадает его ETag. Суммарный размер
+// тел ограничен, при переполнении вытесняются давно не запрошенные ответы, а слишком большие не кешируются.
+public class ResponseCache {
+    public static final int DEFAULT_MAX_BYTES = 4 << 20;
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final LinkedHashMap<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    public ResponseCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public ResponseCache(int maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Размер кеша ответов должен быть больше нуля.");
+        }
+
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.max(1, maxBytes / 4);
+    }
+
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public synchronized byte[] get(String uri, String etag) {
+        CachedResponse response = responses.get(uri);
+        return response != null && response.etag.equals(etag) ? response.body : null;
+    }
+
+    public synchronized void put(String uri, String etag, byte[] body) {
+        if (body.length > maxEntryBytes) {
+            return;
+        }
+
+        CachedResponse previous = responses.put(uri, new CachedResponse(etag, body));
+        if (previous != null) {
+            size -= previous.body.length;
+        }
+        size += body.length;
+
+        Iterator<CachedResponse> eldest = responses.values().iterator();
+        while (size > maxBytes) {
+            size -= eldest.next().body.length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    private static class CachedResponse {
+        private final String etag;
+        private final byte[] body;
+
+        private CachedResponse(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+}
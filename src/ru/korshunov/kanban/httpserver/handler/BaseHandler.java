@@ -1,29 +1,302 @@
 package ru.korshunov.kanban.httpserver.handler;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import ru.korshunov.kanban.httpserver.ContentEncoding;
+import ru.korshunov.kanban.httpserver.ResponseCache;
+import ru.korshunov.kanban.manager.TaskQuery;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.net.URI;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class BaseHandler {
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int STREAM_BUFFER_SIZE = 1 << 13;
+    private static final int COMPRESSION_THRESHOLD = 1 << 10;
+    private static final char TIME_CURSOR_SEPARATOR = '_';
+    // Версии начинаются заново при каждом запуске и при каждой загрузке доски, а обработчики доски создаются
+    // при её загрузке. Поэтому ETag включает метку запуска и номер обработчика.
+    private static final String ETAG_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    private static final AtomicLong HANDLER_GENERATIONS = new AtomicLong();
 
-    protected String[] getPathParts(HttpExchange exchange) {
-        URI uri = exchange.getRequestURI();
-        String path = uri.getPath();
-        return path.split("/");
+    private final ResponseCache responseCache;
+    private final String etagPrefix = "W/\"" + ETAG_EPOCH + '.' + Long.toString(HANDLER_GENERATIONS.incrementAndGet(), 36);
+
+    public BaseHandler() {
+        this(new ResponseCache());
+    }
+
+    // Обработчики одной доски делят кеш ответов: их адреса не пересекаются.
+    public BaseHandler(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    // Слабый ETag: тело одной версии может отличаться кодированием, но не содержанием.
+    protected String etag(long... versions) {
+        StringBuilder etag = new StringBuilder(etagPrefix);
+        for (long version : versions) {
+            etag.append('-').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    // Ставит заголовок ETag и, если клиент прислал его же в If-None-Match, отвечает 304 без тела.
+    protected boolean responseNotModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String opaqueTag = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaqueTag)) {
+                responseWithoutBody(exchange, 304);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // Передаёт запрос маршруту, а если его нет, отвечает 400 на нечисловой идентификатор в пути,
+    // 405 на известный путь с другим методом и 404 на остальное.
+    // Исключение маршрута не уходит в поток сервера: клиент получает 400 на некорректный JSON
+    // и 500 на остальное, а обмен закрывается в любом случае.
+    protected void route(HttpExchange exchange, Router router) throws IOException {
+        try {
+            switch (router.dispatch(exchange)) {
+                case Router.HANDLED:
+                    return;
+                case Router.BAD_REQUEST:
+                    responseBadRequest(exchange, "Некорректный идентификатор в пути: " + exchange.getRequestURI().getPath());
+                    return;
+                case Router.METHOD_NOT_ALLOWED:
+                    responseMethodNotAllowed(exchange, router.getAllowedMethods(exchange.getRequestURI().getRawPath()));
+                    return;
+                default:
+                    responseNotFound(exchange);
+            }
+        } catch (JsonParseException e) {
+            responseBadRequest(exchange, "Некорректный JSON: " + e.getMessage());
+        } catch (RuntimeException e) {
+            responseError(exchange, 500, "Внутренняя ошибка сервера");
+        } catch (IOException e) {
+            exchange.close();
+            throw e;
+        }
+    }
+
+    // Тело запроса как объект type. Пустое тело и значение поля, которое не разбирается адаптером
+    // (например, дата или число в неверном формате), - такая же ошибка клиента, как некорректный JSON.
+    protected <T> T readJson(HttpExchange exchange, Gson gson, Class<T> type) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        T value;
+        try {
+            value = gson.fromJson(body, type);
+        } catch (JsonParseException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+        if (value == null) {
+            throw new JsonParseException("пустое тело запроса");
+        }
+        return value;
+    }
+
+    protected Map<String, String> getQueryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            String name = index < 0 ? pair : pair.substring(0, index);
+            String value = index < 0 ? "" : pair.substring(index + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+
+        return parameters;
+    }
+
+    // Параметры страницы: limit, cursor (из заголовка X-Next-Cursor предыдущего ответа), status, from, to.
+    // Без них возвращается null, и обработчик отдаёт весь список.
+    protected TaskQuery getTaskQuery(HttpExchange exchange, boolean byStartTime) {
+        Map<String, String> parameters = getQueryParameters(exchange);
+        String limit = parameters.get("limit");
+        String cursor = parameters.get("cursor");
+        String status = parameters.get("status");
+        String from = parameters.get("from");
+        String to = parameters.get("to");
+        if (limit == null && cursor == null && status == null && from == null && to == null) {
+            return null;
+        }
+
+        try {
+            Integer afterId = null;
+            LocalDateTime afterStartTime = null;
+            if (cursor != null && byStartTime) {
+                int separator = cursor.lastIndexOf(TIME_CURSOR_SEPARATOR);
+                afterStartTime = LocalDateTime.parse(cursor.substring(0, separator));
+                afterId = Integer.parseInt(cursor.substring(separator + 1));
+            } else if (cursor != null) {
+                afterId = Integer.parseInt(cursor);
+            }
+
+            return new TaskQuery(limit == null ? TaskQuery.DEFAULT_LIMIT : Integer.parseInt(limit), afterId, afterStartTime,
+                    status == null ? null : TaskStatus.valueOf(status),
+                    from == null ? null : LocalDateTime.parse(from),
+                    to == null ? null : LocalDateTime.parse(to));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Некорректные параметры запроса: " + e.getMessage(), e);
+        }
+    }
+
+    // Отвечает страницей списка, если в запросе есть параметры страницы, иначе возвращает false.
+    protected boolean responsePage(HttpExchange exchange, Gson gson, boolean byStartTime,
+                                   Function<TaskQuery, List<? extends Task>> selection) throws IOException {
+        TaskQuery query;
+        try {
+            query = getTaskQuery(exchange, byStartTime);
+        } catch (IllegalArgumentException e) {
+            responseBadRequest(exchange, e.getMessage());
+            return true;
+        }
+        if (query == null) {
+            return false;
+        }
+
+        List<? extends Task> page;
+        try {
+            page = selection.apply(query);
+        } catch (IllegalArgumentException e) {
+            // Фильтр, для которого у списка нет индекса.
+            responseBadRequest(exchange, e.getMessage());
+            return true;
+        }
+        if (page.size() == query.getLimit()) {
+            Task last = page.get(page.size() - 1);
+            String nextCursor = byStartTime ? last.getStartTime().toString() + TIME_CURSOR_SEPARATOR + last.getId()
+                    : String.valueOf(last.getId());
+            exchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        responseOk(exchange, gson, page);
+        return true;
     }
 
     protected void responseOk(HttpExchange exchange, String text) throws IOException {
-        byte[] response = text.getBytes(StandardCharsets.UTF_8);
+        responseOk(exchange, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Список с известной версией: тело берётся из кеша ответов, а при промахе сериализуется потоком
+    // и, если уместилось в ограничение кеша, сохраняется для следующих запросов с тем же ETag.
+    protected void responseOk(HttpExchange exchange, Gson gson, String etag, Supplier<? extends Iterable<?>> items) throws IOException {
+        String uri = exchange.getRequestURI().toString();
+        byte[] cached = responseCache.get(uri, etag);
+        if (cached != null) {
+            responseOk(exchange, cached);
+            return;
+        }
+
         exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(200, response.length);
-        exchange.getResponseBody().write(response);
-        exchange.close();
+        CapturingOutputStream body = new CapturingOutputStream(openOkBody(exchange, negotiateEncoding(exchange)), responseCache.getMaxEntryBytes());
+        try {
+            writeJsonArray(gson, body, items.get());
+        } finally {
+            exchange.close();
+        }
+
+        byte[] captured = body.getCaptured();
+        if (captured != null) {
+            responseCache.put(uri, etag, captured);
+        }
+    }
+
+    protected void responseOk(HttpExchange exchange, byte[] response) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        ContentEncoding encoding = negotiateEncoding(exchange);
+        if (encoding == ContentEncoding.IDENTITY || response.length < COMPRESSION_THRESHOLD) {
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+            return;
+        }
+
+        try (OutputStream body = openOkBody(exchange, encoding)) {
+            body.write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Список пишется в тело ответа по мере сериализации (chunked), без промежуточной строки и массива байт.
+    protected void responseOk(HttpExchange exchange, Gson gson, Iterable<?> items) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        try {
+            writeJsonArray(gson, openOkBody(exchange, negotiateEncoding(exchange)), items);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    protected ContentEncoding negotiateEncoding(HttpExchange exchange) {
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        return ContentEncoding.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    // Тело ответа 200. Заголовки отправляются при первой записи сверх порога или при закрытии потока,
+    // поэтому короткий ответ уходит несжатым и с известной длиной.
+    protected OutputStream openOkBody(HttpExchange exchange, ContentEncoding encoding) {
+        return new NegotiatedBodyStream(exchange, encoding, COMPRESSION_THRESHOLD);
+    }
+
+    private void writeJsonArray(Gson gson, OutputStream out, Iterable<?> items) throws IOException {
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE))) {
+            writer.beginArray();
+            for (Object item : items) {
+                gson.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+        }
     }
 
     protected void responseCode201(HttpExchange exchange) throws IOException {
-        exchange.sendResponseHeaders(201, 0);
+        responseWithoutBody(exchange, 201);
+    }
+
+    // Длина -1 означает ответ без тела: с длиной 0 HttpServer отправил бы пустое тело в chunked-кодировке.
+    // Ответ без тела не дочитывает запрос при закрытии, а с недочитанным запросом HttpServer закрывает
+    // соединение, поэтому тело запроса дочитывается заранее.
+    private static void responseWithoutBody(HttpExchange exchange, int code) throws IOException {
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(code, -1);
         exchange.close();
     }
 
@@ -35,20 +308,141 @@ public class BaseHandler {
         exchange.close();
     }
 
+    protected void responseBadRequest(HttpExchange exchange, String message) throws IOException {
+        responseError(exchange, 400, message);
+    }
+
+    protected void responseMethodNotAllowed(HttpExchange exchange, String allowedMethods) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowedMethods);
+        responseError(exchange, 405, "Метод не поддерживается");
+    }
+
     protected void responseNotFound(HttpExchange exchange) throws IOException {
-        byte[] response = "Ресурс не найден".getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(404, response.length);
-        exchange.getResponseBody().write(response);
-        exchange.close();
+        responseError(exchange, 404, "Ресурс не найден");
     }
 
     protected void responseHasAnIntersection(HttpExchange exchange, String nameTask) throws IOException {
-        byte[] response = ("Задача '" + nameTask + "' пересекается с существующими задачами").getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(406, response.length);
-        exchange.getResponseBody().write(response);
-        exchange.close();
+        responseError(exchange, 406, "Задача '" + nameTask + "' пересекается с существующими задачами");
     }
 
+    // Ошибка отправляется телом {"status": код, "error": сообщение} известной длины, чтобы соединение
+    // можно было использовать для следующих запросов. Если заголовки уже отправлены, обмен только закрывается.
+    protected void responseError(HttpExchange exchange, int code, String message) throws IOException {
+        try {
+            if (exchange.getResponseCode() != -1) {
+                return;
+            }
+
+            JsonObject error = new JsonObject();
+            error.addProperty("status", code);
+            error.addProperty("error", message);
+            byte[] response = error.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+            exchange.sendResponseHeaders(code, response.length);
+            exchange.getResponseBody().write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Пишет тело ответа и копирует его, пока копия не превысила limit.
+    private static class CapturingOutputStream extends FilterOutputStream {
+        private final int limit;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        private CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (captured != null && captured.size() + len <= limit) {
+                captured.write(b, off, len);
+            } else {
+                captured = null;
+            }
+        }
+
+        private byte[] getCaptured() {
+            return captured == null ? null : captured.toByteArray();
+        }
+    }
+
+    // Копит первые threshold байт. Если тело в них уместилось, оно отправляется как есть с Content-Length,
+    // иначе отправляются заголовки chunked-ответа и всё тело проходит через компрессор.
+    private static class NegotiatedBodyStream extends OutputStream {
+        private final HttpExchange exchange;
+        private final ContentEncoding encoding;
+        private final byte[] head;
+        private int count = 0;
+        private OutputStream body;
+        private boolean closed = false;
+
+        private NegotiatedBodyStream(HttpExchange exchange, ContentEncoding encoding, int threshold) {
+            this.exchange = exchange;
+            this.encoding = encoding;
+            this.head = new byte[threshold];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (body == null && count + len <= head.length) {
+                System.arraycopy(b, off, head, count, len);
+                count += len;
+                return;
+            }
+
+            if (body == null) {
+                if (encoding != ContentEncoding.IDENTITY) {
+                    exchange.getResponseHeaders().set("Content-Encoding", encoding.getToken());
+                }
+                exchange.sendResponseHeaders(200, 0);
+                body = encoding.wrap(exchange.getResponseBody());
+                body.write(head, 0, count);
+            }
+            body.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (body != null) {
+                body.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            if (body == null) {
+                if (count == 0) {
+                    exchange.getRequestBody().close();
+                }
+                exchange.sendResponseHeaders(200, count == 0 ? -1 : count);
+                body = exchange.getResponseBody();
+                body.write(head, 0, count);
+            }
+            body.close();
+        }
+    }
 }
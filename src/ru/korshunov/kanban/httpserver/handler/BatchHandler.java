@@ -0,0 +1,104 @@
+package ru.korshunov.kanban.httpserver.handler;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.manager.BatchResult;
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.manager.TaskType;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// POST /batch с телом {"add": [...], "update": [...], "remove": [id, ...]}. Элементы add и update - задачи
+// с полем "type" (TASK, EPIC или SUBTASK, по умолчанию TASK). Ответ содержит результат для каждого элемента
+// в порядке запроса.
+public class BatchHandler extends BaseHandler implements HttpHandler {
+
+    private final TaskManager taskManager;
+    private Gson gson = HttpKanbanServer.getGson();
+    private final Router router = new Router().post("/batch", this::postBatch);
+
+    public BatchHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        route(exchange, router);
+    }
+
+    private void postBatch(HttpExchange exchange) throws IOException {
+        List<Task> add;
+        List<Task> update;
+        List<Integer> remove;
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            JsonObject request = JsonParser.parseString(body).getAsJsonObject();
+            add = readTasks(request.getAsJsonArray("add"));
+            update = readTasks(request.getAsJsonArray("update"));
+            remove = readIds(request.getAsJsonArray("remove"));
+        } catch (JsonParseException | IllegalStateException | ClassCastException | IllegalArgumentException e) {
+            responseBadRequest(exchange, "Некорректный пакет: " + e.getMessage());
+            return;
+        }
+
+        Map<String, List<BatchResult>> results = new LinkedHashMap<>();
+        if (!add.isEmpty()) {
+            results.put("add", taskManager.addAll(add));
+        }
+        if (!update.isEmpty()) {
+            results.put("update", taskManager.updateAll(update));
+        }
+        if (!remove.isEmpty()) {
+            results.put("remove", taskManager.removeAll(remove));
+        }
+        responseOk(exchange, gson.toJson(results));
+    }
+
+    private List<Task> readTasks(JsonArray items) {
+        List<Task> tasks = new ArrayList<>();
+        if (items == null) {
+            return tasks;
+        }
+
+        for (JsonElement item : items) {
+            JsonElement type = item.getAsJsonObject().get("type");
+            switch (type == null ? TaskType.TASK : TaskType.valueOf(type.getAsString())) {
+                case EPIC:
+                    tasks.add(gson.fromJson(item, Epic.class));
+                    break;
+                case SUBTASK:
+                    tasks.add(gson.fromJson(item, Subtask.class));
+                    break;
+                default:
+                    tasks.add(gson.fromJson(item, Task.class));
+            }
+        }
+        return tasks;
+    }
+
+    private List<Integer> readIds(JsonArray items) {
+        List<Integer> ids = new ArrayList<>();
+        if (items != null) {
+            for (JsonElement item : items) {
+                ids.add(item.getAsInt());
+            }
+        }
+        return ids;
+    }
+}
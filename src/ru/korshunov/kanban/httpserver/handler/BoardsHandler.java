@@ -0,0 +1,69 @@
+package ru.korshunov.kanban.httpserver.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import ru.korshunov.kanban.httpserver.Board;
+import ru.korshunov.kanban.httpserver.BoardRegistry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+// /boards/{boardId}/... - ресурсы отдельной доски: tasks, epics, subtasks, history, prioritized, batch и events.
+// Запрос передаётся обработчику доски с путём без префикса, поэтому маршруты и ответы у всех досок
+// те же, что и у единственной доски сервера. Доска загружается при первом запросе к ней.
+public class BoardsHandler extends BaseHandler implements HttpHandler {
+    private static final String PREFIX = "/boards/";
+
+    private final BoardRegistry registry;
+
+    public BoardsHandler(BoardRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        URI uri = exchange.getRequestURI();
+        String path = uri.getRawPath();
+        int boardEnd = path.indexOf('/', PREFIX.length());
+        if (!path.startsWith(PREFIX) || boardEnd < 0) {
+            responseNotFound(exchange);
+            return;
+        }
+
+        String boardId = path.substring(PREFIX.length(), boardEnd);
+        if (!BoardRegistry.isValidBoardId(boardId)) {
+            responseBadRequest(exchange, "Некорректный идентификатор доски: " + boardId);
+            return;
+        }
+
+        String resourcePath = path.substring(boardEnd);
+        int resourceEnd = resourcePath.indexOf('/', 1);
+        String resource = resourcePath.substring(1, resourceEnd < 0 ? resourcePath.length() : resourceEnd);
+
+        Board board;
+        try {
+            board = registry.acquire(boardId);
+        } catch (RejectedExecutionException e) {
+            responseError(exchange, 503, "Сервер останавливается");
+            return;
+        } catch (RuntimeException e) {
+            responseError(exchange, 500, "Не удалось загрузить доску " + boardId);
+            return;
+        }
+
+        try {
+            HttpHandler handler = board.getHandler(resource);
+            if (handler == null) {
+                responseNotFound(exchange);
+                return;
+            }
+
+            String query = uri.getRawQuery();
+            handler.handle(new BoardExchange(exchange, URI.create(query == null ? resourcePath : resourcePath + '?' + query)));
+        } finally {
+            registry.release(board);
+        }
+    }
+}
@@ -5,82 +5,94 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.httpserver.ResponseCache;
 import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.manager.TaskType;
 import ru.korshunov.kanban.task.Epic;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
 import java.util.Map;
 
 public class EpicsHandler extends BaseHandler implements HttpHandler {
 
     private final TaskManager taskManager;
     private Gson gson = HttpKanbanServer.getGson();
+    private final Router router = new Router()
+            .get("/epics", this::getEpics)
+            .get("/epics/{id}", this::getEpic)
+            .get("/epics/{id}/subtask", this::getEpicSubtasks)
+            .post("/epics", this::postEpic)
+            .delete("/epics/{id}", this::deleteEpic);
 
     public EpicsHandler(TaskManager taskManager) {
         this.taskManager = taskManager;
     }
 
+    public EpicsHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(responseCache);
+        this.taskManager = taskManager;
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        String requestMethod = exchange.getRequestMethod();
-        String[] pathParts = getPathParts(exchange);
-        int lengthPathParts = pathParts.length;
+        route(exchange, router);
+    }
 
-        switch (requestMethod) {
-            case "GET":
-                if (lengthPathParts == 2) {
-                    List<Epic> epics = taskManager.getListOfEpics();
-                    if (epics == null) {
-                        responseNotFound(exchange);
-                        return;
-                    }
-                    responseOk(exchange, gson.toJson(epics));
+    private void getEpics(HttpExchange exchange) throws IOException {
+        String etag = etag(taskManager.getEventLog().getVersion(TaskType.EPIC));
+        if (responseNotModified(exchange, etag)
+                || responsePage(exchange, gson, false, taskManager::getListOfEpics)) {
+            return;
+        }
 
-                } else if (lengthPathParts == 3) {
-                    int id = Integer.parseInt(pathParts[2]);
-                    Epic epic = taskManager.getEpicOnId(id);
-                    if (epic == null) {
-                        responseNotFound(exchange);
-                        return;
-                    }
-                    responseOk(exchange, gson.toJson(epic));
-                } else if (lengthPathParts == 4 && pathParts[3].equals("subtask")) {
-                    int id = Integer.parseInt(pathParts[2]);
-                    Epic epic = taskManager.getEpicOnId(id);
-                    if (epic == null) {
-                        responseNotFound(exchange);
-                        return;
-                    }
-                    responseOk(exchange, gson.toJson(epic.getListOfSubtasks()));
-                }
-                break;
-            case "POST":
-                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                Epic epic = gson.fromJson(body, Epic.class);
+        responseOk(exchange, gson, etag, taskManager::getListOfEpics);
+    }
 
-                if (epic.getId() == 0) {
-                    taskManager.addEpic(epic);
-                    responseCode201(exchange, gson.toJson(Map.of("id", epic.getId())));
-                } else {
-                    try {
-                        taskManager.updateEpic(epic);
-                        responseCode201(exchange);
-                    } catch (IllegalArgumentException e) {
-                        responseHasAnIntersection(exchange, epic.getName());
-                    }
-                }
-                break;
-            case "DELETE":
-                if (lengthPathParts == 3) {
-                    int id = Integer.parseInt(pathParts[2]);
-                    taskManager.removeEpic(id);
-                    responseCode201(exchange);
-                }
-                break;
-            default:
-                responseNotFound(exchange);
+    private void getEpic(HttpExchange exchange, int id) throws IOException {
+        String etag = etag(taskManager.getEventLog().getVersion(id));
+        Epic epic = taskManager.getEpicOnId(id);
+        if (epic == null) {
+            responseNotFound(exchange);
+            return;
+        }
+        if (responseNotModified(exchange, etag)) {
+            return;
         }
+        responseOk(exchange, gson.toJson(epic));
+    }
+
+    private void getEpicSubtasks(HttpExchange exchange, int id) throws IOException {
+        String etag = etag(taskManager.getEventLog().getVersion(id),
+                taskManager.getEventLog().getVersion(TaskType.SUBTASK));
+        Epic epic = taskManager.getEpicOnId(id);
+        if (epic == null) {
+            responseNotFound(exchange);
+            return;
+        }
+        if (responseNotModified(exchange, etag)) {
+            return;
+        }
+        responseOk(exchange, gson, etag, () -> taskManager.getSubtaskOnEpic(id));
+    }
+
+    private void postEpic(HttpExchange exchange) throws IOException {
+        Epic epic = readJson(exchange, gson, Epic.class);
+
+        if (epic.getId() == 0) {
+            taskManager.addEpic(epic);
+            responseCode201(exchange, gson.toJson(Map.of("id", epic.getId())));
+        } else {
+            try {
+                taskManager.updateEpic(epic);
+                responseCode201(exchange);
+            } catch (IllegalArgumentException e) {
+                responseHasAnIntersection(exchange, epic.getName());
+            }
+        }
+    }
+
+    private void deleteEpic(HttpExchange exchange, int id) throws IOException {
+        taskManager.removeEpic(id);
+        responseCode201(exchange);
     }
 }
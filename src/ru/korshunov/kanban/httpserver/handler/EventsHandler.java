@@ -0,0 +1,170 @@
+package ru.korshunov.kanban.httpserver.handler;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.httpserver.InstrumentedHandler;
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.manager.event.TaskEvent;
+import ru.korshunov.kanban.manager.event.TaskEventLog;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// GET /events - поток изменений в формате text/event-stream. Продолжить с нужного места можно
+// заголовком Last-Event-ID или параметром after. Если события уже вытеснены из буфера,
+// клиент получает событие reset и должен перечитать списки целиком.
+public class EventsHandler extends BaseHandler implements HttpHandler, Closeable {
+    private static final int MAX_STREAMS = 64;
+    private static final int BATCH_SIZE = 256;
+    private static final long KEEP_ALIVE_SECONDS = 15;
+
+    private final TaskEventLog eventLog;
+    private final ExecutorService streams;
+    private final boolean ownsStreams;
+    // Потоки, занятые подписками этого обработчика: пул может быть общим, поэтому close прерывает только их.
+    private final Set<Thread> streamThreads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private volatile boolean closed = false;
+    private Gson gson = HttpKanbanServer.getGson();
+    private final Router router = new Router().get("/events", this::getEvents);
+
+    public EventsHandler(TaskManager taskManager) {
+        this(taskManager, newStreamPool("kanban-sse-"), true);
+    }
+
+    // Подписки выполняются в пуле streams, общем с другими обработчиками; пул закрывает его владелец.
+    public EventsHandler(TaskManager taskManager, ExecutorService streams) {
+        this(taskManager, streams, false);
+    }
+
+    private EventsHandler(TaskManager taskManager, ExecutorService streams, boolean ownsStreams) {
+        this.eventLog = taskManager.getEventLog();
+        this.streams = streams;
+        this.ownsStreams = ownsStreams;
+    }
+
+    // Каждый поток событий занимает свой поток, чтобы не держать потоки обработки запросов.
+    // Подписки сверх MAX_STREAMS пул отклоняет, и клиент получает 503.
+    public static ExecutorService newStreamPool(String threadNamePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(0, MAX_STREAMS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        route(exchange, router);
+    }
+
+    private void getEvents(HttpExchange exchange) throws IOException {
+        long after;
+        try {
+            after = getStartSequence(exchange);
+        } catch (NumberFormatException e) {
+            responseBadRequest(exchange, "Некорректный номер события: " + e.getMessage());
+            return;
+        }
+
+        activeStreams.incrementAndGet();
+        try {
+            streams.execute(() -> {
+                try {
+                    stream(exchange, after);
+                } finally {
+                    activeStreams.decrementAndGet();
+                }
+            });
+            InstrumentedHandler.markHandedOff();
+        } catch (RejectedExecutionException e) {
+            activeStreams.decrementAndGet();
+            responseError(exchange, 503, "Слишком много подписок на события");
+        }
+    }
+
+    private long getStartSequence(HttpExchange exchange) {
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (lastEventId != null) {
+            return Long.parseLong(lastEventId.trim());
+        }
+
+        String after = getQueryParameters(exchange).get("after");
+        return after == null ? eventLog.getLastSequence() : Long.parseLong(after);
+    }
+
+    private void stream(HttpExchange exchange, long after) {
+        Thread thread = Thread.currentThread();
+        streamThreads.add(thread);
+        try {
+            // Обработчик закрыли, пока подписка передавалась пулу: close уже не увидит этот поток.
+            if (closed) {
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream;charset=utf-8");
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                long sequence = after;
+                while (!Thread.currentThread().isInterrupted()) {
+                    List<TaskEvent> events = eventLog.awaitAfter(sequence, BATCH_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                    if (events == null) {
+                        sequence = eventLog.getLastSequence();
+                        writer.write("id: " + sequence + "\nevent: reset\ndata: " + gson.toJson(Map.of("lastSequence", sequence)) + "\n\n");
+                    } else if (events.isEmpty()) {
+                        // Комментарий не виден клиенту, но позволяет заметить закрытое соединение.
+                        writer.write(": keep-alive\n\n");
+                    } else {
+                        for (TaskEvent event : events) {
+                            writer.write("id: " + event.getSequence() + "\nevent: " + event.getType() + "\ndata: " + gson.toJson(event) + "\n\n");
+                        }
+                        sequence = events.get(events.size() - 1).getSequence();
+                    }
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Клиент закрыл соединение.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            streamThreads.remove(thread);
+            exchange.close();
+        }
+    }
+
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (ownsStreams) {
+            streams.shutdownNow();
+            return;
+        }
+        for (Thread thread : streamThreads) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.korshunov.kanban.httpserver.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class MetricsHandler extends BaseHandler implements HttpHandler {
+
+    private final MetricsRegistry registry;
+    private final Router router = new Router().get("/metrics", this::getMetrics);
+
+    public MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        route(exchange, router);
+    }
+
+    private void getMetrics(HttpExchange exchange) throws IOException {
+        byte[] response = registry.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+}
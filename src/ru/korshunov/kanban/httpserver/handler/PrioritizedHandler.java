@@ -5,16 +5,19 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.manager.PrioritizedView;
 import ru.korshunov.kanban.manager.TaskManager;
-import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.manager.TaskType;
 
 import java.io.IOException;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
 
 public class PrioritizedHandler extends BaseHandler implements HttpHandler {
 
     private final TaskManager taskManager;
     private Gson gson = HttpKanbanServer.getGson();
+    private volatile PrioritizedJson prioritizedJson;
+    private final Router router = new Router().get("/prioritized", this::getPrioritized);
 
     public PrioritizedHandler(TaskManager taskManager) {
         this.taskManager = taskManager;
@@ -22,23 +25,38 @@ public class PrioritizedHandler extends BaseHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        String requestMethod = exchange.getRequestMethod();
-        String[] pathParts = getPathParts(exchange);
-        int lengthPathParts = pathParts.length;
-
-        switch (requestMethod) {
-            case "GET":
-                if (lengthPathParts == 2) {
-                    Set<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-                    if (prioritizedTasks == null) {
-                        responseNotFound(exchange);
-                        return;
-                    }
-                    responseOk(exchange, gson.toJson(prioritizedTasks));
-                }
-                break;
-            default:
-                responseNotFound(exchange);
+        route(exchange, router);
+    }
+
+    private void getPrioritized(HttpExchange exchange) throws IOException {
+        // Расписание меняют только задачи и подзадачи.
+        String etag = etag(taskManager.getEventLog().getVersion(TaskType.TASK),
+                taskManager.getEventLog().getVersion(TaskType.SUBTASK));
+        if (responseNotModified(exchange, etag)
+                || responsePage(exchange, gson, true, taskManager::getPrioritizedTasks)) {
+            return;
+        }
+
+        responseOk(exchange, getJson(taskManager.getPrioritizedTasks()));
+    }
+
+    // Пока расписание не меняется, менеджер отдаёт тот же снимок, и ответ берётся готовым.
+    private byte[] getJson(PrioritizedView prioritizedTasks) {
+        PrioritizedJson cached = prioritizedJson;
+        if (cached == null || cached.view != prioritizedTasks) {
+            cached = new PrioritizedJson(prioritizedTasks, gson.toJson(prioritizedTasks).getBytes(StandardCharsets.UTF_8));
+            prioritizedJson = cached;
+        }
+        return cached.json;
+    }
+
+    private static class PrioritizedJson {
+        private final PrioritizedView view;
+        private final byte[] json;
+
+        private PrioritizedJson(PrioritizedView view, byte[] json) {
+            this.view = view;
+            this.json = json;
         }
     }
 }
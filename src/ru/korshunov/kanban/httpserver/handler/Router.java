@@ -0,0 +1,226 @@
+package ru.korshunov.kanban.httpserver.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+// Сопоставляет метод и путь запроса с шаблонами вида /epics/{id}/subtask. Шаблоны разбираются на сегменты
+// при построении, а путь сравнивается с ними посимвольно: без регулярных выражений, split и подстрок.
+// Шаблон может содержать один параметр {id}, который разбирается как неотрицательное int прямо из пути.
+public class Router {
+    public static final int HANDLED = 0;
+    public static final int BAD_REQUEST = 400;
+    public static final int NOT_FOUND = 404;
+    public static final int METHOD_NOT_ALLOWED = 405;
+
+    private static final String ID_PARAMETER = "{id}";
+    private static final int NO_MATCH = -1;
+    private static final int BAD_ID = -2;
+
+    private final List<PathTemplate> templates = new ArrayList<>();
+
+    @FunctionalInterface
+    public interface Route {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface IdRoute {
+        void handle(HttpExchange exchange, int id) throws IOException;
+    }
+
+    public Router get(String template, Route route) {
+        return add("GET", template, (exchange, id) -> route.handle(exchange));
+    }
+
+    public Router get(String template, IdRoute route) {
+        return add("GET", template, route);
+    }
+
+    public Router post(String template, Route route) {
+        return add("POST", template, (exchange, id) -> route.handle(exchange));
+    }
+
+    public Router delete(String template, IdRoute route) {
+        return add("DELETE", template, route);
+    }
+
+    private Router add(String method, String template, IdRoute route) {
+        PathTemplate pathTemplate = null;
+        for (PathTemplate existing : templates) {
+            if (existing.template.equals(template)) {
+                pathTemplate = existing;
+                break;
+            }
+        }
+        if (pathTemplate == null) {
+            pathTemplate = new PathTemplate(template);
+            templates.add(pathTemplate);
+        }
+
+        pathTemplate.add(method, route);
+        return this;
+    }
+
+    // Вызывает подходящий маршрут и возвращает HANDLED либо код ответа, который должен отправить обработчик.
+    public int dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        String method = exchange.getRequestMethod();
+        int result = NOT_FOUND;
+        for (PathTemplate template : templates) {
+            int id = template.match(path);
+            if (id == NO_MATCH) {
+                continue;
+            }
+            if (id == BAD_ID) {
+                result = BAD_REQUEST;
+                continue;
+            }
+
+            IdRoute route = template.getRoute(method);
+            if (route == null) {
+                result = METHOD_NOT_ALLOWED;
+                continue;
+            }
+            route.handle(exchange, id);
+            return HANDLED;
+        }
+        return result;
+    }
+
+    // Значение заголовка Allow для ответа 405.
+    public String getAllowedMethods(String path) {
+        StringJoiner allowed = new StringJoiner(", ");
+        for (PathTemplate template : templates) {
+            if (template.match(path) >= 0) {
+                for (String method : template.methods) {
+                    allowed.add(method);
+                }
+            }
+        }
+        return allowed.toString();
+    }
+
+    private static class PathTemplate {
+        private final String template;
+        // Литеральные сегменты шаблона; null на месте параметра.
+        private final String[] segments;
+        private final List<String> methods = new ArrayList<>();
+        private final List<IdRoute> routes = new ArrayList<>();
+
+        private PathTemplate(String template) {
+            if (!template.startsWith("/")) {
+                throw new IllegalArgumentException("Шаблон пути должен начинаться с '/': " + template);
+            }
+
+            this.template = template;
+            segments = template.substring(1).split("/");
+            int parameters = 0;
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals(ID_PARAMETER)) {
+                    segments[i] = null;
+                    parameters++;
+                } else if (segments[i].isEmpty() || segments[i].indexOf('{') >= 0) {
+                    throw new IllegalArgumentException("Некорректный сегмент шаблона пути: " + template);
+                }
+            }
+            if (parameters > 1) {
+                throw new IllegalArgumentException("Шаблон пути может содержать только один параметр: " + template);
+            }
+        }
+
+        private void add(String method, IdRoute route) {
+            if (methods.contains(method)) {
+                throw new IllegalArgumentException("Маршрут " + method + " " + template + " уже зарегистрирован.");
+            }
+            methods.add(method);
+            routes.add(route);
+        }
+
+        private IdRoute getRoute(String method) {
+            for (int i = 0; i < methods.size(); i++) {
+                if (methods.get(i).equals(method)) {
+                    return routes.get(i);
+                }
+            }
+            return null;
+        }
+
+        // Возвращает идентификатор из пути (0, если параметра нет), NO_MATCH или BAD_ID, если путь совпал
+        // с шаблоном, но на месте параметра не число. Один завершающий '/' допускается, как и раньше.
+        private int match(CharSequence path) {
+            int length = path.length();
+            if (length > 1 && path.charAt(length - 1) == '/') {
+                length--;
+            }
+            if (length == 0 || path.charAt(0) != '/') {
+                return NO_MATCH;
+            }
+
+            int position = 1;
+            int id = 0;
+            boolean badId = false;
+            for (int i = 0; i < segments.length; i++) {
+                if (position > length) {
+                    return NO_MATCH;
+                }
+                int end = position;
+                while (end < length && path.charAt(end) != '/') {
+                    end++;
+                }
+
+                String literal = segments[i];
+                if (literal != null) {
+                    if (end - position != literal.length() || !regionMatches(path, position, literal)) {
+                        return NO_MATCH;
+                    }
+                } else {
+                    long value = parseId(path, position, end);
+                    if (value < 0) {
+                        badId = true;
+                    } else {
+                        id = (int) value;
+                    }
+                }
+                position = end + 1;
+            }
+
+            if (position <= length) {
+                return NO_MATCH;
+            }
+            return badId ? BAD_ID : id;
+        }
+
+        private static boolean regionMatches(CharSequence path, int offset, String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (path.charAt(offset + i) != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // -1, если сегмент пуст, содержит не только цифры или не помещается в int.
+        private static long parseId(CharSequence path, int start, int end) {
+            if (start == end) {
+                return -1;
+            }
+
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                char c = path.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return -1;
+                }
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.korshunov.kanban.manager;
+
+public class BatchResult {
+    private final int id;
+    private final boolean success;
+    private final String error;
+
+    private BatchResult(int id, boolean success, String error) {
+        this.id = id;
+        this.success = success;
+        this.error = error;
+    }
+
+    public static BatchResult success(int id) {
+        return new BatchResult(id, true, null);
+    }
+
+    public static BatchResult failure(int id, String error) {
+        return new BatchResult(id, false, error);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,278 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+// Формат файла (big-endian): int MAGIC, int VERSION, int последний выданный id, int количество записей,
+// далее записи: byte тип, int id, byte статус, строка имя, строка описание, byte флаги,
+// [long секунды эпохи UTC, int наносекунды] начала, [long секунды, int наносекунды] длительности,
+// [int id эпика] для подзадач. Строка - int длина в байтах UTF-8 (-1 для null) и сами байты.
+public class BinarySnapshot {
+    public static final int MAGIC = 0x4B4E424E;
+    public static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int RECORD_BUFFER_SIZE = 256;
+    private static final byte NULL_STATUS = -1;
+    private static final int NULL_STRING = -1;
+    private static final byte HAS_START_TIME = 1;
+    private static final byte HAS_DURATION = 2;
+
+    private final ReadableByteChannel input;
+    private final WritableByteChannel output;
+    private final ByteBuffer buffer;
+
+    private BinarySnapshot(ReadableByteChannel input, WritableByteChannel output) {
+        this(input, output, ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+
+    private BinarySnapshot(ReadableByteChannel input, WritableByteChannel output, ByteBuffer buffer) {
+        this.input = input;
+        this.output = output;
+        this.buffer = buffer;
+    }
+
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return false;
+                }
+            }
+            return header.getInt(0) == MAGIC;
+        }
+    }
+
+    public static void write(Path path, int lastTaskId, Collection<Task> tasks, Collection<Epic> epics,
+                             Collection<Subtask> subtasks) throws IOException {
+        SnapshotFile.write(path, channel -> write(channel, lastTaskId, tasks, epics, subtasks));
+    }
+
+    // Записи читаются до заявленного в заголовке количества, поэтому байты после них (строка
+    // контрольной суммы SnapshotFile) чтению не мешают.
+    public static void write(WritableByteChannel channel, int lastTaskId, Collection<Task> tasks, Collection<Epic> epics,
+                             Collection<Subtask> subtasks) throws IOException {
+        BinarySnapshot snapshot = new BinarySnapshot(null, channel);
+        snapshot.ensureWritable(4 * Integer.BYTES);
+        snapshot.buffer.putInt(MAGIC);
+        snapshot.buffer.putInt(VERSION);
+        snapshot.buffer.putInt(lastTaskId);
+        snapshot.buffer.putInt(tasks.size() + epics.size() + subtasks.size());
+
+        for (Task task : tasks) {
+            snapshot.writeTask(TaskType.TASK, task);
+        }
+        for (Epic epic : epics) {
+            snapshot.writeTask(TaskType.EPIC, epic);
+        }
+        for (Subtask subtask : subtasks) {
+            snapshot.writeTask(TaskType.SUBTASK, subtask);
+        }
+
+        snapshot.flush();
+    }
+
+    public static int read(Path path, Consumer<Task> consumer, LoadProgressListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BinarySnapshot snapshot = new BinarySnapshot(channel, null);
+            snapshot.buffer.limit(0);
+
+            snapshot.ensureReadable(4 * Integer.BYTES);
+            if (snapshot.buffer.getInt() != MAGIC) {
+                throw new IOException("Файл не является бинарным снимком задач.");
+            }
+            int version = snapshot.buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия бинарного снимка: " + version);
+            }
+            int lastTaskId = snapshot.buffer.getInt();
+            int numberOfRecords = snapshot.buffer.getInt();
+
+            long totalBytes = channel.size();
+            for (int i = 1; i <= numberOfRecords; i++) {
+                consumer.accept(snapshot.readTask());
+                if (i % LoadProgressListener.REPORT_INTERVAL == 0) {
+                    listener.onProgress(i, channel.position() - snapshot.buffer.remaining(), totalBytes);
+                }
+            }
+
+            return lastTaskId;
+        }
+    }
+
+    // Одна запись в кодировании снимка, без заголовка: строки хранятся с длиной, поэтому запятые
+    // и переводы строк в имени и описании не нарушают границ полей.
+    public static byte[] encode(TaskType typeTask, Task task) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_BUFFER_SIZE);
+        BinarySnapshot record = new BinarySnapshot(null, Channels.newChannel(bytes), ByteBuffer.allocate(RECORD_BUFFER_SIZE));
+        try {
+            record.writeTask(typeTask, task);
+            record.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Ошибка записи в память.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Task decode(byte[] bytes) throws IOException {
+        BinarySnapshot record = new BinarySnapshot(Channels.newChannel(new ByteArrayInputStream(bytes)), null,
+                ByteBuffer.allocate(RECORD_BUFFER_SIZE));
+        record.buffer.limit(0);
+        return record.readTask();
+    }
+
+    private void writeTask(TaskType typeTask, Task task) throws IOException {
+        ensureWritable(2 + Integer.BYTES);
+        buffer.put((byte) typeTask.ordinal());
+        buffer.putInt(task.getId());
+        buffer.put(task.getTaskStatus() == null ? NULL_STATUS : (byte) task.getTaskStatus().ordinal());
+        writeString(task.getName());
+        writeString(task.getDescription());
+
+        LocalDateTime startTime = task.getStartTime();
+        Duration duration = task.getDuration();
+        byte flags = 0;
+        if (startTime != null) {
+            flags |= HAS_START_TIME;
+        }
+        if (duration != null) {
+            flags |= HAS_DURATION;
+        }
+
+        ensureWritable(1 + 2 * (Long.BYTES + Integer.BYTES) + Integer.BYTES);
+        buffer.put(flags);
+        if (startTime != null) {
+            buffer.putLong(startTime.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(startTime.getNano());
+        }
+        if (duration != null) {
+            buffer.putLong(duration.getSeconds());
+            buffer.putInt(duration.getNano());
+        }
+        if (typeTask == TaskType.SUBTASK) {
+            buffer.putInt(((Subtask) task).getEpicId());
+        }
+    }
+
+    private Task readTask() throws IOException {
+        ensureReadable(2 + Integer.BYTES);
+        TaskType typeTask = TaskType.values()[buffer.get()];
+        int id = buffer.getInt();
+        byte status = buffer.get();
+        TaskStatus taskStatus = status == NULL_STATUS ? null : TaskStatus.values()[status];
+        String name = readString();
+        String description = readString();
+
+        ensureReadable(1);
+        byte flags = buffer.get();
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        if ((flags & HAS_START_TIME) != 0) {
+            ensureReadable(Long.BYTES + Integer.BYTES);
+            startTime = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            ensureReadable(Long.BYTES + Integer.BYTES);
+            duration = Duration.ofSeconds(buffer.getLong(), buffer.getInt());
+        }
+
+        switch (typeTask) {
+            case EPIC:
+                return Epic.getInstance(id, name, taskStatus, description);
+            case SUBTASK:
+                ensureReadable(Integer.BYTES);
+                return Subtask.getInstance(id, name, taskStatus, description, buffer.getInt(), startTime, duration);
+            default:
+                return Task.getInstance(id, name, taskStatus, description, startTime, duration);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        ensureWritable(Integer.BYTES);
+        if (value == null) {
+            buffer.putInt(NULL_STRING);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private String readString() throws IOException {
+        ensureReadable(Integer.BYTES);
+        int length = buffer.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                ensureReadable(1);
+            }
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensureWritable(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensureReadable(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (input.read(buffer) < 0) {
+                throw new IOException("Неожиданный конец бинарного снимка.");
+            }
+        }
+        buffer.flip();
+    }
+}
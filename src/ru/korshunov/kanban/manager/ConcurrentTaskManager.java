@@ -0,0 +1,555 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.manager.event.TaskEventLog;
+import ru.korshunov.kanban.manager.event.TaskEventType;
+import ru.korshunov.kanban.manager.history.HistoryManager;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ConcurrentTaskManager implements TaskManager {
+    public static final int DEFAULT_LOCK_STRIPES = 64;
+
+    private final NavigableMap<Integer, Task> tasks;
+    private final NavigableMap<Integer, Epic> epics;
+    private final NavigableMap<Integer, Subtask> subtasks;
+    // Статус задачи индексируется под той же блокировкой, что и её запись; статусы эпиков не индексируются.
+    private final StatusIndex taskStatuses = new StatusIndex();
+    private final StatusIndex subtaskStatuses = new StatusIndex();
+    private final NavigableSet<Task> prioritizedTasks;
+    private final TimeIntervalIndex timeIntervalIndex;
+    private final Lock scheduleLock;
+    private final Lock[] locks;
+    private final HistoryManager historyManager;
+    private final TaskEventLog eventLog;
+    private final AtomicInteger taskId;
+    private volatile long scheduleVersion = 0;
+    private volatile PrioritizedView prioritizedView = PrioritizedView.EMPTY;
+
+    public ConcurrentTaskManager() {
+        this(DEFAULT_LOCK_STRIPES);
+    }
+
+    public ConcurrentTaskManager(int lockStripes) {
+        this(lockStripes, Managers.getConcurrentHistory());
+    }
+
+    // История передаётся снаружи, например обёрнутая для сбора метрик.
+    public ConcurrentTaskManager(int lockStripes, HistoryManager historyManager) {
+        if (lockStripes < 1) {
+            throw new IllegalArgumentException("Количество блокировок должно быть больше нуля.");
+        }
+
+        tasks = new ConcurrentSkipListMap<>();
+        epics = new ConcurrentSkipListMap<>();
+        subtasks = new ConcurrentSkipListMap<>();
+        prioritizedTasks = new ConcurrentSkipListSet<>(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+        timeIntervalIndex = new TimeIntervalIndex();
+        scheduleLock = new ReentrantLock();
+        locks = new Lock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.historyManager = historyManager;
+        eventLog = new TaskEventLog();
+        taskId = new AtomicInteger();
+    }
+
+    @Override
+    public TaskEventLog getEventLog() {
+        return eventLog;
+    }
+
+    // Задачи блокируются по своему id, эпики и их подзадачи - по id эпика.
+    private Lock lockFor(int id) {
+        return locks[Math.floorMod(id, locks.length)];
+    }
+
+    private boolean isScheduled(Task task) {
+        return task != null && task.getStartTime() != null;
+    }
+
+    // Проверка пересечения и изменение индекса выполняются атомарно под общей блокировкой расписания,
+    // остальные изменения идут под блокировкой задачи или эпика.
+    private void reschedule(Task previous, Task task, Runnable change) {
+        if (!isScheduled(previous) && !isScheduled(task)) {
+            change.run();
+            return;
+        }
+
+        scheduleLock.lock();
+        try {
+            if (timeIntervalIndex.isIntersection(task)) {
+                throw new IllegalArgumentException("Время выполнения задачи " + '"' + task.getName() + '"' + " пересекается с сущетсвующими.");
+            }
+
+            change.run();
+            removeFromSchedule(previous);
+            if (isScheduled(task)) {
+                prioritizedTasks.add(task);
+                timeIntervalIndex.put(task);
+                scheduleVersion++;
+            }
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void unschedule(Task task) {
+        if (!isScheduled(task)) {
+            return;
+        }
+
+        scheduleLock.lock();
+        try {
+            removeFromSchedule(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void removeFromSchedule(Task task) {
+        if (task != null) {
+            if (task.getStartTime() != null) {
+                prioritizedTasks.remove(task);
+                scheduleVersion++;
+            }
+            timeIntervalIndex.remove(task.getId());
+        }
+    }
+
+    // id выделяется до захвата блокировки задачи, чтобы вставка и событие о ней шли под той же блокировкой,
+    // что и удаление. id задачи, отклонённой из-за пересечения, повторно не используется.
+    @Override
+    public void addTask(Task task) {
+        int id = taskId.incrementAndGet();
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            reschedule(null, task, () -> {
+                task.setId(id);
+                tasks.put(id, task);
+            });
+            taskStatuses.put(id, task.getTaskStatus());
+            eventLog.publish(TaskEventType.CREATED, TaskType.TASK, id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        epic.clearSubtask();
+        int id = taskId.incrementAndGet();
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            epic.setId(id);
+            epics.put(id, epic);
+            eventLog.publish(TaskEventType.CREATED, TaskType.EPIC, id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Эпик меняется на месте под своей блокировкой. Список подзадач эпика и его статус со временем
+    // можно читать без блокировки: Epic публикует их через конкурентный список и volatile-значение.
+    @Override
+    public void addSubtask(Subtask subtask) {
+        Lock lock = lockFor(subtask.getEpicId());
+        lock.lock();
+        try {
+            Epic epicFromCollection = epics.get(subtask.getEpicId());
+            if (epicFromCollection == null) {
+                return;
+            }
+
+            reschedule(null, subtask, () -> {
+                subtask.setId(taskId.incrementAndGet());
+                subtasks.put(subtask.getId(), subtask);
+            });
+            subtaskStatuses.put(subtask.getId(), subtask.getTaskStatus());
+
+            epicFromCollection.addSubtask(subtask);
+            eventLog.publish(TaskEventType.CREATED, TaskType.SUBTASK, subtask.getId());
+            eventLog.publish(TaskEventType.UPDATED, TaskType.EPIC, epicFromCollection.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        int id = task.getId();
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            Task taskFromCollection = tasks.get(id);
+            if (taskFromCollection != null) {
+                reschedule(taskFromCollection, task, () -> tasks.put(id, task));
+                taskStatuses.put(id, task.getTaskStatus());
+                eventLog.publish(TaskEventType.UPDATED, TaskType.TASK, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        int id = epic.getId();
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epicFromCollection = epics.get(id);
+            if (epicFromCollection != null) {
+                epicFromCollection.setName(epic.getName());
+                epicFromCollection.setDescription(epic.getDescription());
+                eventLog.publish(TaskEventType.UPDATED, TaskType.EPIC, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        int id = subtask.getId();
+        Lock lock = lockFor(subtask.getEpicId());
+        lock.lock();
+        try {
+            Subtask subtaskFromCollection = subtasks.get(id);
+            if (subtaskFromCollection == null || subtask.getEpicId() != subtaskFromCollection.getEpicId()) {
+                return;
+            }
+
+            reschedule(subtaskFromCollection, subtask, () -> subtasks.put(id, subtask));
+            subtaskStatuses.put(id, subtask.getTaskStatus());
+
+            Epic epicFromCollection = epics.get(subtask.getEpicId());
+            epicFromCollection.addSubtask(subtask);
+            eventLog.publish(TaskEventType.UPDATED, TaskType.SUBTASK, id);
+            eventLog.publish(TaskEventType.UPDATED, TaskType.EPIC, epicFromCollection.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return historyManager.getVersion();
+    }
+
+    // Версия расписания меняется под блокировкой расписания после изменения множества, а читается до
+    // его обхода. Снимок, собранный одновременно с изменением, получает старую версию и будет пересобран
+    // при следующем чтении.
+    @Override
+    public PrioritizedView getPrioritizedTasks() {
+        long version = scheduleVersion;
+        PrioritizedView view = prioritizedView;
+        if (view.getVersion() != version) {
+            view = new PrioritizedView(prioritizedTasks, version);
+            prioritizedView = view;
+        }
+        return view;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(TaskQuery query) {
+        return query.selectByStartTime(prioritizedTasks, this::getScheduledTask, taskStatuses, subtaskStatuses);
+    }
+
+    private Task getScheduledTask(int id) {
+        Task task = tasks.get(id);
+        return task != null ? task : subtasks.get(id);
+    }
+
+    @Override
+    public Task getTaskOnId(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            addToHistory(task, tasks);
+        }
+
+        return task;
+    }
+
+    @Override
+    public Epic getEpicOnId(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            addToHistory(epic, epics);
+        }
+
+        return epic;
+    }
+
+    // Задачу могут удалить между чтением и записью в историю: удаление тогда чистит историю раньше,
+    // чем задача в неё попадает. Поэтому после записи задача проверяется снова и при необходимости убирается.
+    private void addToHistory(Task task, Map<Integer, ? extends Task> source) {
+        historyManager.add(task);
+        if (!source.containsKey(task.getId())) {
+            historyManager.remove(task.getId());
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtaskOnEpic(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic != null) {
+            return epic.getListOfSubtasks();
+        }
+
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Subtask getSubtaskOnId(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            addToHistory(subtask, subtasks);
+        }
+
+        return subtask;
+    }
+
+    @Override
+    public List<Task> getListOfTask() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Epic> getListOfEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public List<Subtask> getListOfSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public List<Task> getListOfTask(TaskQuery query) {
+        return query.selectById(tasks, taskStatuses);
+    }
+
+    @Override
+    public List<Epic> getListOfEpics(TaskQuery query) {
+        return query.selectById(epics, null);
+    }
+
+    @Override
+    public List<Subtask> getListOfSubtasks(TaskQuery query) {
+        return query.selectById(subtasks, subtaskStatuses);
+    }
+
+    @Override
+    public void removeTask(int id) {
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            Task task = tasks.remove(id);
+            if (task != null) {
+                taskStatuses.remove(id);
+                unschedule(task);
+                historyManager.remove(id);
+                eventLog.publish(TaskEventType.REMOVED, TaskType.TASK, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epicFromCollection = epics.remove(id);
+            if (epicFromCollection != null) {
+                for (Subtask subtask : epicFromCollection.getListOfSubtasks()) {
+                    subtasks.remove(subtask.getId());
+                    subtaskStatuses.remove(subtask.getId());
+                    unschedule(subtask);
+                    historyManager.remove(subtask.getId());
+                    eventLog.publish(TaskEventType.REMOVED, TaskType.SUBTASK, subtask.getId());
+                }
+                historyManager.remove(id);
+                eventLog.publish(TaskEventType.REMOVED, TaskType.EPIC, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        // Эпик подзадачи известен только из самой подзадачи, поэтому после захвата блокировки эпика
+        // подзадача перечитывается: её могли заменить или удалить, пока блокировка не была взята.
+        while (true) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask == null) {
+                return;
+            }
+
+            int epicId = subtask.getEpicId();
+            Lock lock = lockFor(epicId);
+            lock.lock();
+            try {
+                Subtask current = subtasks.get(id);
+                if (current == null) {
+                    return;
+                }
+                if (current.getEpicId() != epicId) {
+                    continue;
+                }
+
+                subtasks.remove(id);
+                subtaskStatuses.remove(id);
+                epics.get(epicId).removeSubtask(current);
+                unschedule(current);
+                historyManager.remove(id);
+                eventLog.publish(TaskEventType.REMOVED, TaskType.SUBTASK, id);
+                eventLog.publish(TaskEventType.UPDATED, TaskType.EPIC, epicId);
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void clearTasks() {
+        for (Integer id : tasks.keySet()) {
+            removeTask(id);
+        }
+    }
+
+    @Override
+    public void clearEpics() {
+        for (Integer id : epics.keySet()) {
+            removeEpic(id);
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        for (Integer epicId : epics.keySet()) {
+            Lock lock = lockFor(epicId);
+            lock.lock();
+            try {
+                Epic epic = epics.get(epicId);
+                if (epic == null || epic.getNumberOfSubtasks() == 0) {
+                    continue;
+                }
+
+                for (Subtask subtask : epic.getListOfSubtasks()) {
+                    subtasks.remove(subtask.getId());
+                    subtaskStatuses.remove(subtask.getId());
+                    unschedule(subtask);
+                    historyManager.remove(subtask.getId());
+                    eventLog.publish(TaskEventType.REMOVED, TaskType.SUBTASK, subtask.getId());
+                }
+
+                epic.clearSubtask();
+                eventLog.publish(TaskEventType.UPDATED, TaskType.EPIC, epicId);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Элементы пакета применяются по одному под своими блокировками, пакет не атомарен.
+    @Override
+    public List<BatchResult> addAll(List<? extends Task> items) {
+        List<BatchResult> results = new ArrayList<>(items.size());
+        for (Task item : items) {
+            try {
+                if (item instanceof Epic) {
+                    addEpic((Epic) item);
+                } else if (item instanceof Subtask) {
+                    item.setId(0);
+                    addSubtask((Subtask) item);
+                    if (item.getId() == 0) {
+                        results.add(BatchResult.failure(0, "Эпик подзадачи не найден."));
+                        continue;
+                    }
+                } else {
+                    addTask(item);
+                }
+                results.add(BatchResult.success(item.getId()));
+            } catch (IllegalArgumentException e) {
+                results.add(BatchResult.failure(item.getId(), e.getMessage()));
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<BatchResult> updateAll(List<? extends Task> items) {
+        List<BatchResult> results = new ArrayList<>(items.size());
+        for (Task item : items) {
+            int id = item.getId();
+            try {
+                if (item instanceof Epic && epics.containsKey(id)) {
+                    updateEpic((Epic) item);
+                } else if (item instanceof Subtask && isSubtaskOfEpic(id, ((Subtask) item).getEpicId())) {
+                    updateSubtask((Subtask) item);
+                } else if (!(item instanceof Epic) && !(item instanceof Subtask) && tasks.containsKey(id)) {
+                    updateTask(item);
+                } else {
+                    results.add(BatchResult.failure(id, "Задача не найдена."));
+                    continue;
+                }
+                results.add(BatchResult.success(id));
+            } catch (IllegalArgumentException e) {
+                results.add(BatchResult.failure(id, e.getMessage()));
+            }
+        }
+
+        return results;
+    }
+
+    private boolean isSubtaskOfEpic(int id, int epicId) {
+        Subtask subtask = subtasks.get(id);
+        return subtask != null && subtask.getEpicId() == epicId;
+    }
+
+    @Override
+    public List<BatchResult> removeAll(List<Integer> ids) {
+        List<BatchResult> results = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            if (tasks.containsKey(id)) {
+                removeTask(id);
+            } else if (subtasks.containsKey(id)) {
+                removeSubtask(id);
+            } else if (epics.containsKey(id)) {
+                removeEpic(id);
+            } else {
+                results.add(BatchResult.failure(id, "Задача не найдена."));
+                continue;
+            }
+            results.add(BatchResult.success(id));
+        }
+
+        return results;
+    }
+}
@@ -2,58 +2,312 @@ package ru.korshunov.kanban.manager;
 
 import ru.korshunov.kanban.exception.ManagerReadException;
 import ru.korshunov.kanban.exception.ManagerSaveException;
+import ru.korshunov.kanban.metrics.LatencyHistogram;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
 import ru.korshunov.kanban.task.Epic;
 import ru.korshunov.kanban.task.Subtask;
 import ru.korshunov.kanban.task.Task;
 import ru.korshunov.kanban.task.TaskStatus;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements Closeable {
 
     private final Path path;
+    private final TaskJournal journal;
+    private final int checkpointInterval;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final LatencyHistogram SAVE_LATENCY = MetricsRegistry.getDefault()
+            .histogram("kanban_snapshot_save_seconds", "Время записи снимка менеджера в файл.");
+    private static final LatencyHistogram LOAD_LATENCY = MetricsRegistry.getDefault()
+            .histogram("kanban_snapshot_load_seconds", "Время загрузки снимка менеджера из файла.");
+
+    private volatile SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
+    private boolean batchChanged = false;
+    private SnapshotWriter snapshotWriter;
+    private final AtomicLong saveCount = new AtomicLong();
+    private final AtomicLong lastSaveNanos = new AtomicLong();
+    private final AtomicLong maxSaveNanos = new AtomicLong();
+    private final AtomicLong totalSaveNanos = new AtomicLong();
+    private final Map<Integer, List<Subtask>> pendingSubtasks = new HashMap<>();
 
     public FileBackedTaskManager(Path pathToFile) {
+        this(pathToFile, null, 0);
+    }
+
+    private FileBackedTaskManager(Path pathToFile, TaskJournal journal, int checkpointInterval) {
         this.path = pathToFile;
+        this.journal = journal;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public static FileBackedTaskManager withJournal(Path path, int syncBatchSize, int checkpointInterval) {
+        FileBackedTaskManager fileTaskManager = createJournaled(path, syncBatchSize, checkpointInterval);
+        fileTaskManager.checkpoint();
+
+        return fileTaskManager;
     }
 
     public static FileBackedTaskManager loadFromFile(Path path) {
-        FileBackedTaskManager fileTaskManager = new FileBackedTaskManager(path);
+        return loadFromFile(path, LoadProgressListener.NONE);
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path path, LoadProgressListener listener) {
+        FileBackedTaskManager fileTaskManager = loadSnapshot(() -> new FileBackedTaskManager(path), listener);
+
+        // Журналы остаются, только если менеджер раньше работал в режиме журнала. Без них загрузка только
+        // читает файлы и ничего не создаёт рядом со снимком.
+        Path journalPath = TaskJournal.pathFor(path);
+        Path previousJournalPath = TaskJournal.previousPathFor(path);
+        boolean hasJournal = Files.exists(journalPath);
+        boolean hasPreviousJournal = Files.exists(previousJournalPath);
+        if (!hasJournal && !hasPreviousJournal) {
+            return fileTaskManager;
+        }
+
+        // Без журнала предыдущее поколение - просто прошлый снимок, поэтому журнал прошлого поколения
+        // удаляется только после записи снимка, который его заменяет.
+        if ((hasJournal && fileTaskManager.replayJournal(new TaskJournal(journalPath, 1)) > 0) || hasPreviousJournal) {
+            fileTaskManager.save();
+        }
 
         try {
-            List<String> list = Files.readAllLines(path);
-            int lastTaskId = 0;
+            Files.deleteIfExists(journalPath);
+            Files.deleteIfExists(previousJournalPath);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка удаления журнала изменений.", e);
+        }
 
-            for (int i = 1; i < list.size(); i++) {
-                Task task = fileTaskManager.fromString(list.get(i));
-                int id = task.getId();
+        return fileTaskManager;
+    }
 
-                if (task instanceof Epic) {
-                    fileTaskManager.epics.put(id, (Epic) task);
-                } else if (task instanceof Subtask) {
-                    fileTaskManager.subtasks.put(id, (Subtask) task);
+    public static FileBackedTaskManager loadFromFile(Path path, int syncBatchSize, int checkpointInterval) {
+        FileBackedTaskManager fileTaskManager = SnapshotFile.exists(path)
+                ? loadSnapshot(() -> createJournaled(path, syncBatchSize, checkpointInterval), LoadProgressListener.NONE)
+                : createJournaled(path, syncBatchSize, checkpointInterval);
+        fileTaskManager.replayJournal(fileTaskManager.journal);
 
-                    fileTaskManager.fillEpicWithSubtasks((Subtask) task);
-                } else {
-                    fileTaskManager.tasks.put(id, task);
+        return fileTaskManager;
+    }
+
+    // Снимок пишется фоновым потоком: серия изменений попадает в файл одной записью не позже чем через
+    // maxDelayMillis после первого из них или сразу по накоплении maxDirtyChanges изменений.
+    public static FileBackedTaskManager withAsyncSave(Path path, long maxDelayMillis, int maxDirtyChanges) {
+        FileBackedTaskManager fileTaskManager = SnapshotFile.exists(path) ? loadFromFile(path) : new FileBackedTaskManager(path);
+        fileTaskManager.snapshotWriter = new SnapshotWriter(fileTaskManager::writeSnapshot, maxDelayMillis,
+                TimeUnit.MILLISECONDS, maxDirtyChanges);
+
+        return fileTaskManager;
+    }
+
+    private static FileBackedTaskManager createJournaled(Path path, int syncBatchSize, int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Интервал контрольных точек журнала должен быть больше нуля.");
+        }
+
+        return new FileBackedTaskManager(path, new TaskJournal(TaskJournal.pathFor(path), syncBatchSize), checkpointInterval);
+    }
+
+    // Повреждённый или недописанный снимок заменяется предыдущим поколением, которое загружается
+    // в новый менеджер, чтобы в нём не осталось записей из испорченного файла. Текущий журнал продолжает
+    // испорченный снимок, поэтому сначала повторяется журнал предыдущего поколения, восстанавливающий его.
+    private static FileBackedTaskManager loadSnapshot(Supplier<FileBackedTaskManager> factory, LoadProgressListener listener) {
+        long startNanos = System.nanoTime();
+        FileBackedTaskManager fileTaskManager = factory.get();
+        try {
+            fileTaskManager.loadSnapshot(fileTaskManager.path, listener);
+            return fileTaskManager;
+        } catch (ManagerReadException e) {
+            Path previousPath = SnapshotFile.previousPath(fileTaskManager.path);
+            if (Files.notExists(previousPath)) {
+                throw e;
+            }
+
+            FileBackedTaskManager previousGeneration = factory.get();
+            previousGeneration.loadSnapshot(previousPath, listener);
+            previousGeneration.replayJournal(new TaskJournal(TaskJournal.previousPathFor(fileTaskManager.path), 1));
+            return previousGeneration;
+        } finally {
+            LOAD_LATENCY.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    private void loadSnapshot(Path source, LoadProgressListener listener) {
+        long startNanos = System.nanoTime();
+        long loadedRecords = 0;
+        long loadedBytes;
+
+        try {
+            loadedBytes = Files.size(source);
+            if (!SnapshotFile.verify(source)) {
+                throw new IOException("Контрольная сумма снимка не совпадает: " + source);
+            }
+
+            if (BinarySnapshot.isBinary(source)) {
+                snapshotFormat = SnapshotFormat.BINARY;
+                int[] numberOfRecords = new int[1];
+                int lastTaskId = BinarySnapshot.read(source, task -> {
+                    restore(task);
+                    numberOfRecords[0]++;
+                }, listener);
+                if (getTaskId() < lastTaskId) {
+                    setTaskId(lastTaskId);
+                }
+                loadedRecords = numberOfRecords[0];
+            } else {
+                loadedRecords = loadCsv(source, listener, loadedBytes);
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new ManagerReadException("Ошибка чтения данных из файла.", e);
+        } finally {
+            pendingSubtasks.clear();
+        }
+
+        listener.onComplete(loadedRecords, loadedBytes, System.nanoTime() - startNanos);
+    }
+
+    private long loadCsv(Path source, LoadProgressListener listener, long totalBytes) throws IOException {
+        long loadedRecords = 0;
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || SnapshotFile.isChecksumLine(line)) {
+                    continue;
                 }
 
-                if (lastTaskId < id) {
-                    lastTaskId = id;
+                restore(fromString(line));
+                if (++loadedRecords % LoadProgressListener.REPORT_INTERVAL == 0) {
+                    listener.onProgress(loadedRecords, channel.position(), totalBytes);
                 }
             }
+        }
+
+        return loadedRecords;
+    }
 
-            fileTaskManager.setTaskId(lastTaskId);
+    private int replayJournal(TaskJournal taskJournal) {
+        try {
+            return taskJournal.replay(this::applyRecord);
         } catch (IOException e) {
-            throw new ManagerReadException("Ошибка чтения данных из файла.", e);
+            throw new ManagerReadException("Ошибка чтения журнала изменений.", e);
+        } finally {
+            pendingSubtasks.clear();
         }
+    }
 
-        return fileTaskManager;
+    private void applyRecord(String record) {
+        String[] recordData = record.split(",", 2);
+        JournalOperation operation = JournalOperation.valueOf(recordData[0]);
+
+        switch (operation) {
+            case PUT_RECORD:
+                try {
+                    restore(BinarySnapshot.decode(Base64.getDecoder().decode(recordData[1])));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                break;
+            case REMOVE:
+                String[] removeData = recordData[1].split(",");
+                int id = Integer.parseInt(removeData[1]);
+                switch (TaskType.valueOf(removeData[0])) {
+                    case TASK:
+                        super.removeTask(id);
+                        break;
+                    case EPIC:
+                        super.removeEpic(id);
+                        break;
+                    case SUBTASK:
+                        super.removeSubtask(id);
+                        break;
+                }
+                break;
+            case CLEAR:
+                switch (TaskType.valueOf(recordData[1])) {
+                    case TASK:
+                        super.clearTasks();
+                        break;
+                    case EPIC:
+                        super.clearEpics();
+                        break;
+                    case SUBTASK:
+                        super.clearSubtasks();
+                        break;
+                }
+                break;
+        }
+    }
+
+    private void restore(Task task) {
+        int id = task.getId();
+
+        if (task instanceof Epic) {
+            Epic epic = (Epic) task;
+            Epic previous = epics.put(id, epic);
+            if (previous != null) {
+                for (Subtask subtask : previous.getListOfSubtasks()) {
+                    epic.addSubtask(subtask);
+                }
+            }
+
+            List<Subtask> waitingSubtasks = pendingSubtasks.remove(id);
+            if (waitingSubtasks != null) {
+                for (Subtask subtask : waitingSubtasks) {
+                    restore(subtask);
+                }
+            }
+        } else if (task instanceof Subtask) {
+            Subtask subtask = (Subtask) task;
+            // Подзадача может встретиться в файле раньше своего эпика.
+            if (!epics.containsKey(subtask.getEpicId())) {
+                pendingSubtasks.computeIfAbsent(subtask.getEpicId(), epicId -> new ArrayList<>()).add(subtask);
+                if (getTaskId() < id) {
+                    setTaskId(id);
+                }
+                return;
+            }
+
+            Subtask previous = subtasks.put(id, subtask);
+            subtaskStatuses.put(id, subtask.getTaskStatus());
+            if (previous != null) {
+                removePrioritizedTask(previous);
+                Epic epic = epics.get(previous.getEpicId());
+                if (epic != null) {
+                    epic.removeSubtask(previous);
+                }
+            }
+
+            fillEpicWithSubtasks(subtask);
+            addPrioritizedTask(subtask);
+        } else {
+            removePrioritizedTask(tasks.put(id, task));
+            taskStatuses.put(id, task.getTaskStatus());
+            addPrioritizedTask(task);
+        }
+
+        if (getTaskId() < id) {
+            setTaskId(id);
+        }
     }
 
     private void fillEpicWithSubtasks(Subtask subtask) {
@@ -71,8 +325,8 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         String name = objectData[2];
         TaskStatus taskStatus = TaskStatus.valueOf(objectData[3]);
         String description = objectData[4];
-        LocalDateTime startTime = LocalDateTime.parse(objectData[5]);
-        Duration duration = Duration.parse(objectData[6]);
+        LocalDateTime startTime = "null".equals(objectData[5]) ? null : LocalDateTime.parse(objectData[5]);
+        Duration duration = "null".equals(objectData[6]) ? null : Duration.parse(objectData[6]);
         int epicId = objectData.length == 8 ? Integer.parseInt(objectData[7]) : 0;
 
         switch (typeTask) {
@@ -87,45 +341,192 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
     protected void save() {
-        if (Files.notExists(path)) {
+        if (snapshotWriter != null) {
+            snapshotWriter.markDirty();
+            return;
+        }
+
+        writeSnapshot();
+    }
+
+    // Снимок пишется через SnapshotFile: временный файл, fsync и атомарное переименование,
+    // поэтому ни читатель, ни сбой посреди записи не застают частично записанный снимок.
+    private void writeSnapshot() {
+        long startNanos = System.nanoTime();
+        Snapshot snapshot = takeSnapshot();
+
+        try {
+            SnapshotFile.write(path, channel -> {
+                if (snapshot.format == SnapshotFormat.BINARY) {
+                    BinarySnapshot.write(channel, snapshot.lastTaskId, snapshot.tasks, snapshot.epics, snapshot.subtasks);
+                } else {
+                    writeCsv(channel, snapshot);
+                }
+            });
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения данных в файл.", e);
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        SAVE_LATENCY.record(elapsedNanos);
+        saveCount.incrementAndGet();
+        lastSaveNanos.set(elapsedNanos);
+        totalSaveNanos.addAndGet(elapsedNanos);
+        maxSaveNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    // Под монитором менеджера копируются только ссылки, сериализация идёт без блокировки.
+    private synchronized Snapshot takeSnapshot() {
+        return new Snapshot(snapshotFormat, getTaskId(), new ArrayList<>(tasks.values()),
+                new ArrayList<>(epics.values()), new ArrayList<>(subtasks.values()));
+    }
+
+    private void writeCsv(WritableByteChannel channel, Snapshot snapshot) throws IOException {
+        Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write("id,type,name,status,description,start time,duration,epic\n");
+
+        for (Task task : snapshot.tasks) {
+            writer.write(toString(task));
+        }
+
+        for (Epic epic : snapshot.epics) {
+            writer.write(toString(epic));
+        }
+
+        for (Subtask subtask : snapshot.subtasks) {
+            writer.write(toString(subtask));
+        }
+        writer.flush();
+    }
+
+    // Барьер долговечности: после возврата на диске есть все изменения, сделанные до вызова.
+    public void flush() {
+        if (snapshotWriter != null) {
+            snapshotWriter.flush();
+        }
+        if (journal != null) {
             try {
-                Files.createFile(path);
+                journal.sync();
             } catch (IOException e) {
-                e.printStackTrace();
+                throw new ManagerSaveException("Ошибка сохранения журнала изменений.", e);
             }
         }
+    }
 
-        String head = "id,type,name,status,description,start time,duration,epic\n";
+    @Override
+    public void close() {
+        if (snapshotWriter != null) {
+            snapshotWriter.close();
+        }
+        if (journal != null) {
+            flush();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка закрытия журнала изменений.", e);
+            }
+        }
+    }
 
-        try (FileWriter fileWriter = new FileWriter(path.toFile(), false)) {
-            fileWriter.write(head);
+    public long getPendingChanges() {
+        return snapshotWriter == null ? 0 : snapshotWriter.getPendingChanges();
+    }
 
-            for (Task task : getListOfTask()) {
-                fileWriter.write(toString(task));
-            }
+    public long getSaveCount() {
+        return saveCount.get();
+    }
 
-            for (Epic epic : getListOfEpics()) {
-                fileWriter.write(toString(epic));
-            }
+    public long getLastSaveNanos() {
+        return lastSaveNanos.get();
+    }
+
+    public long getMaxSaveNanos() {
+        return maxSaveNanos.get();
+    }
+
+    public long getTotalSaveNanos() {
+        return totalSaveNanos.get();
+    }
+
+    private void checkpoint() {
+        save();
+
+        try {
+            journal.rotate(TaskJournal.previousPathFor(path));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка смены поколения журнала изменений.", e);
+        }
+    }
 
-            for (Subtask subtask : getListOfSubtasks()) {
-                fileWriter.write(toString(subtask));
+    // Пакетная операция сохраняет снимок или выполняет контрольную точку один раз, в своём конце.
+    @Override
+    protected void endBatch() {
+        super.endBatch();
+        if (isInBatch() || !batchChanged) {
+            return;
+        }
+
+        batchChanged = false;
+        if (journal == null) {
+            save();
+        } else if (journal.getRecordCount() >= checkpointInterval) {
+            flush();
+            checkpoint();
+        }
+    }
+
+    private void saveChange(JournalOperation operation, String payload) {
+        if (isInBatch()) {
+            batchChanged = true;
+        }
+        if (journal == null) {
+            if (!isInBatch()) {
+                save();
             }
+            return;
+        }
+
+        try {
+            journal.append(operation + "," + payload);
         } catch (IOException e) {
-                throw new ManagerSaveException("Ошибка сохранения данных в файл.", e);
+            throw new ManagerSaveException("Ошибка записи в журнал изменений.", e);
         }
+
+        if (!isInBatch() && journal.getRecordCount() >= checkpointInterval) {
+            flush();
+            checkpoint();
+        }
+    }
+
+    private void savePut(Task stored) {
+        if (stored != null) {
+            saveChange(JournalOperation.PUT_RECORD, Base64.getEncoder().encodeToString(BinarySnapshot.encode(getType(stored), stored)));
+        }
+    }
+
+    private void saveRemove(TaskType typeTask, int id) {
+        saveChange(JournalOperation.REMOVE, typeTask + "," + id);
+    }
+
+    private void saveClear(TaskType typeTask) {
+        saveChange(JournalOperation.CLEAR, typeTask.toString());
     }
 
     protected String toString(Task task) {
         StringBuilder sb = new StringBuilder();
-        TaskType typeTask = TaskType.TASK;
+        TaskType typeTask = getType(task);
         int epicId = -1;
 
-        if (task instanceof Epic) {
-            typeTask = TaskType.EPIC;
-        } else if (task instanceof Subtask) {
-            typeTask = TaskType.SUBTASK;
+        if (typeTask == TaskType.SUBTASK) {
             epicId = ((Subtask) task).getEpicId();
         }
 
@@ -147,75 +548,117 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return sb.toString();
     }
 
+    private static TaskType getType(Task task) {
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        } else if (task instanceof Subtask) {
+            return TaskType.SUBTASK;
+        }
+
+        return TaskType.TASK;
+    }
+
     @Override
-    public void addTask(Task task) {
+    public synchronized void addTask(Task task) {
         super.addTask(task);
-        save();
+        savePut(tasks.get(task.getId()));
     }
 
     @Override
-    public void addEpic(Epic epic) {
+    public synchronized void addEpic(Epic epic) {
         super.addEpic(epic);
-        save();
+        savePut(epics.get(epic.getId()));
     }
 
     @Override
-    public void addSubtask(Subtask subtask) {
+    public synchronized void addSubtask(Subtask subtask) {
         super.addSubtask(subtask);
-        save();
+        savePut(subtasks.get(subtask.getId()));
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        savePut(tasks.get(task.getId()));
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        savePut(epics.get(epic.getId()));
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        savePut(subtasks.get(subtask.getId()));
     }
 
     @Override
-    public void removeTask(int id) {
+    public synchronized void removeTask(int id) {
         super.removeTask(id);
-        save();
+        saveRemove(TaskType.TASK, id);
     }
 
     @Override
-    public void removeEpic(int id) {
+    public synchronized void removeEpic(int id) {
         super.removeEpic(id);
-        save();
+        saveRemove(TaskType.EPIC, id);
     }
 
     @Override
-    public void removeSubtask(int id) {
+    public synchronized void removeSubtask(int id) {
         super.removeSubtask(id);
-        save();
+        saveRemove(TaskType.SUBTASK, id);
     }
 
     @Override
-    public void clearTasks() {
+    public synchronized void clearTasks() {
         super.clearTasks();
-        save();
+        saveClear(TaskType.TASK);
     }
 
     @Override
-    public void clearEpics() {
+    public synchronized void clearEpics() {
         super.clearEpics();
-        save();
+        saveClear(TaskType.EPIC);
     }
 
     @Override
-    public void clearSubtasks() {
+    public synchronized void clearSubtasks() {
         super.clearSubtasks();
-        save();
+        saveClear(TaskType.SUBTASK);
+    }
+
+    // Пакет разделяет с одиночными изменениями состояние пакета и журнал, поэтому выполняется под тем же монитором.
+    @Override
+    public synchronized List<BatchResult> addAll(List<? extends Task> items) {
+        return super.addAll(items);
+    }
+
+    @Override
+    public synchronized List<BatchResult> updateAll(List<? extends Task> items) {
+        return super.updateAll(items);
+    }
+
+    @Override
+    public synchronized List<BatchResult> removeAll(List<Integer> ids) {
+        return super.removeAll(ids);
+    }
+
+    private static final class Snapshot {
+        private final SnapshotFormat format;
+        private final int lastTaskId;
+        private final List<Task> tasks;
+        private final List<Epic> epics;
+        private final List<Subtask> subtasks;
+
+        private Snapshot(SnapshotFormat format, int lastTaskId, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+            this.format = format;
+            this.lastTaskId = lastTaskId;
+            this.tasks = tasks;
+            this.epics = epics;
+            this.subtasks = subtasks;
+        }
     }
 }
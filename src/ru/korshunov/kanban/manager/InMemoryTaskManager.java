@@ -1,31 +1,79 @@
 package ru.korshunov.kanban.manager;
 
+import ru.korshunov.kanban.DenseIdMap;
+import ru.korshunov.kanban.manager.event.TaskEventLog;
+import ru.korshunov.kanban.manager.event.TaskEventType;
 import ru.korshunov.kanban.manager.history.HistoryManager;
 import ru.korshunov.kanban.task.Epic;
 import ru.korshunov.kanban.task.Subtask;
 import ru.korshunov.kanban.task.Task;
-import ru.korshunov.kanban.task.TaskStatus;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected final Map<Integer, Task> tasks;
-    protected final Map<Integer, Epic> epics;
-    protected final Map<Integer, Subtask> subtasks;
-    private final Set<Task> prioritizedTasks;
+    protected final DenseIdMap<Task> tasks;
+    protected final DenseIdMap<Epic> epics;
+    protected final DenseIdMap<Subtask> subtasks;
+    // Статусы эпиков вычисляются по подзадачам и не индексируются.
+    protected final StatusIndex taskStatuses = new StatusIndex();
+    protected final StatusIndex subtaskStatuses = new StatusIndex();
+    private final NavigableSet<Task> prioritizedTasks;
+    private final TimeIntervalIndex timeIntervalIndex;
     private final HistoryManager historyManager;
+    private final TaskEventLog eventLog;
+    private final Set<Integer> batchEpics = new LinkedHashSet<>();
     private int taskId = 0;
+    private int batchDepth = 0;
+    private volatile long scheduleVersion = 0;
+    private volatile PrioritizedView prioritizedView = PrioritizedView.EMPTY;
 
     public InMemoryTaskManager() {
-        tasks = new HashMap<>();
-        epics = new HashMap<>();
-        subtasks = new HashMap<>();
-        prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+        tasks = new DenseIdMap<>();
+        epics = new DenseIdMap<>();
+        subtasks = new DenseIdMap<>();
+        prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+        timeIntervalIndex = new TimeIntervalIndex();
         historyManager = Managers.getDefaultHistory();
+        eventLog = new TaskEventLog();
+    }
+
+    @Override
+    public TaskEventLog getEventLog() {
+        return eventLog;
+    }
+
+    protected void publish(TaskEventType type, TaskType entityType, int id) {
+        eventLog.publish(type, entityType, id);
+    }
+
+    // Внутри пакетной операции об изменении эпика сообщается один раз, в её конце.
+    private void publishEpicUpdated(int epicId) {
+        if (batchDepth > 0) {
+            batchEpics.add(epicId);
+        } else {
+            publish(TaskEventType.UPDATED, TaskType.EPIC, epicId);
+        }
+    }
+
+    protected void beginBatch() {
+        batchDepth++;
+    }
+
+    protected void endBatch() {
+        if (--batchDepth > 0) {
+            return;
+        }
+
+        for (Integer epicId : batchEpics) {
+            if (epics.containsKey(epicId)) {
+                publish(TaskEventType.UPDATED, TaskType.EPIC, epicId);
+            }
+        }
+        batchEpics.clear();
+    }
+
+    protected boolean isInBatch() {
+        return batchDepth > 0;
     }
 
     @Override
@@ -36,31 +84,39 @@ public class InMemoryTaskManager implements TaskManager {
 
         task.setId(++taskId);
         tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        taskStatuses.put(task.getId(), task.getTaskStatus());
+        addPrioritizedTask(task);
+        publish(TaskEventType.CREATED, TaskType.TASK, task.getId());
     }
 
     private boolean isIntersectionOfTasksInTime(Task task) {
-        if (task.getStartTime() == null || task.getEndTime() == null) {
-            return false;
+        return timeIntervalIndex.isIntersection(task);
+    }
+
+    protected void addPrioritizedTask(Task task) {
+        timeIntervalIndex.put(task);
+        if (task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+            scheduleVersion++;
         }
+    }
 
-        return prioritizedTasks.stream().anyMatch(sortedTask -> {
-            if (sortedTask.getId() == task.getId()) {
-                return false;
+    protected void removePrioritizedTask(Task task) {
+        if (task != null) {
+            if (task.getStartTime() != null) {
+                prioritizedTasks.remove(task);
+                scheduleVersion++;
             }
-
-            LocalDateTime sortedTaskEndTime = sortedTask.getEndTime();
-            LocalDateTime taskEndTime = task.getEndTime();
-            return sortedTask.getStartTime().isBefore(taskEndTime) && task.getStartTime().isBefore(sortedTaskEndTime);
-        });
+            timeIntervalIndex.remove(task.getId());
+        }
     }
 
     @Override
     public void addEpic(Epic epic) {
+        epic.clearSubtask();
         epic.setId(++taskId);
         epics.put(epic.getId(), epic);
+        publish(TaskEventType.CREATED, TaskType.EPIC, epic.getId());
     }
 
     @Override
@@ -75,82 +131,13 @@ public class InMemoryTaskManager implements TaskManager {
 
             epicFromCollection.addSubtask(subtask);
             subtasks.put(subtask.getId(), subtask);
-            if (subtask.getStartTime() != null) {
-                prioritizedTasks.add(subtask);
-            }
-
-            checkingStatusForEpic(epicFromCollection);
-            recalculatingEpicExecutionTime(epicFromCollection);
-        }
-    }
-
-    private void checkingStatusForEpic(Epic epic) {
-        if (epic.getListOfSubtasks().isEmpty()) {
-            epic.setTaskStatus(TaskStatus.NEW);
-            return;
-        }
-
-        int numberOfNewSubtasks = 0;
-        int numberOfCompletedSubtasks = 0;
-        for (Subtask subtask : epic.getListOfSubtasks()) {
-            if (subtask.getTaskStatus() == TaskStatus.NEW) {
-                numberOfNewSubtasks++;
-            } else if (subtask.getTaskStatus() == TaskStatus.IN_PROGRESS) {
-                epic.setTaskStatus(TaskStatus.IN_PROGRESS);
-                return;
-            } else if (subtask.getTaskStatus() == TaskStatus.DONE) {
-                numberOfCompletedSubtasks++;
-            }
-        }
-
-        if (numberOfNewSubtasks == epic.getListOfSubtasks().size()) {
-            epic.setTaskStatus(TaskStatus.NEW);
-            return;
-        }
-
-        if (numberOfCompletedSubtasks == epic.getListOfSubtasks().size()) {
-            epic.setTaskStatus(TaskStatus.DONE);
+            subtaskStatuses.put(subtask.getId(), subtask.getTaskStatus());
+            addPrioritizedTask(subtask);
+            publish(TaskEventType.CREATED, TaskType.SUBTASK, subtask.getId());
+            publishEpicUpdated(epicFromCollection.getId());
         }
     }
 
-    private void recalculatingEpicExecutionTime(Epic epic) {
-        AtomicReference<LocalDateTime> startTime = new AtomicReference<>(LocalDateTime.now());
-        AtomicReference<Duration> duration = new AtomicReference<>(Duration.ZERO);
-        AtomicReference<LocalDateTime> endTime = new AtomicReference<>(LocalDateTime.now());
-
-        boolean isEmptyListOfSubtasks = epic.getListOfSubtasks().isEmpty();
-        boolean isAllStartTimeNull = epic.getListOfSubtasks().stream()
-                .allMatch(subtask -> subtask.getStartTime() == null);
-
-        if (isEmptyListOfSubtasks && isAllStartTimeNull) {
-            epic.setStartTime(null);
-            epic.setDuration(null);
-            epic.setEndTime(null);
-            return;
-        }
-
-        epic.getListOfSubtasks().stream()
-                .peek(subtask -> {
-                    LocalDateTime local = subtask.getStartTime();
-                    if (local.isBefore(startTime.get()))
-                        startTime.set(local);
-                })
-                .peek(subtask -> {
-                    LocalDateTime local = subtask.getEndTime();
-                    if (local.isAfter(endTime.get()))
-                        endTime.set(local);
-                })
-                .peek(subtask -> {
-                    Duration dur = duration.get();
-                    duration.set(dur.plus(subtask.getDuration()));
-                })
-                .collect(Collectors.toList());
-
-        epic.setStartTime(startTime.get());
-        epic.setDuration(duration.get());
-        epic.setEndTime(endTime.get());
-    }
-
     @Override
     public void updateTask(Task task) {
         int id = task.getId();
@@ -159,12 +146,11 @@ public class InMemoryTaskManager implements TaskManager {
                 throw new IllegalArgumentException("Время выполнения задачи " + '"' + task.getName() + '"' + "пересекается с сущетсвующими.");
             }
 
-            prioritizedTasks.remove(tasks.get(id));
+            removePrioritizedTask(tasks.get(id));
             tasks.put(task.getId(), task);
-
-            if (task.getStartTime() != null) {
-                prioritizedTasks.add(task);
-            }
+            taskStatuses.put(id, task.getTaskStatus());
+            addPrioritizedTask(task);
+            publish(TaskEventType.UPDATED, TaskType.TASK, id);
         }
     }
 
@@ -176,6 +162,7 @@ public class InMemoryTaskManager implements TaskManager {
 
             epicFromCollection.setName(epic.getName());
             epicFromCollection.setDescription(epic.getDescription());
+            publishEpicUpdated(id);
         }
     }
 
@@ -187,21 +174,17 @@ public class InMemoryTaskManager implements TaskManager {
                 throw new IllegalArgumentException("Время выполнения задачи " + '"' + subtask.getName() + '"' + "пересекается с сущетсвующими.");
             }
             Subtask subtaskFromCollection = subtasks.get(id);
-            prioritizedTasks.remove(subtaskFromCollection);
 
             if (subtask.getEpicId() == subtaskFromCollection.getEpicId()) {
-                Epic epicFromCollection = epics.get(subtask.getEpicId());
-                epicFromCollection.removeSubtask(subtaskFromCollection);
+                removePrioritizedTask(subtaskFromCollection);
 
+                Epic epicFromCollection = epics.get(subtask.getEpicId());
                 epicFromCollection.addSubtask(subtask);
                 subtasks.put(id, subtask);
-
-                if (subtask.getStartTime() != null) {
-                    prioritizedTasks.add(subtask);
-                }
-
-                checkingStatusForEpic(epicFromCollection);
-                recalculatingEpicExecutionTime(epicFromCollection);
+                subtaskStatuses.put(id, subtask.getTaskStatus());
+                addPrioritizedTask(subtask);
+                publish(TaskEventType.UPDATED, TaskType.SUBTASK, id);
+                publishEpicUpdated(epicFromCollection.getId());
            }
         }
     }
@@ -212,8 +195,30 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public Set<Task> getPrioritizedTasks() {
-        return prioritizedTasks;
+    public long getHistoryVersion() {
+        return historyManager.getVersion();
+    }
+
+    // Снимок пересобирается только после изменения расписания.
+    @Override
+    public PrioritizedView getPrioritizedTasks() {
+        long version = scheduleVersion;
+        PrioritizedView view = prioritizedView;
+        if (view.getVersion() != version) {
+            view = new PrioritizedView(prioritizedTasks, version);
+            prioritizedView = view;
+        }
+        return view;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(TaskQuery query) {
+        return query.selectByStartTime(prioritizedTasks, this::getScheduledTask, taskStatuses, subtaskStatuses);
+    }
+
+    private Task getScheduledTask(int id) {
+        Task task = tasks.get(id);
+        return task != null ? task : subtasks.get(id);
     }
 
     protected int getTaskId() {
@@ -278,11 +283,29 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(subtasks.values());
     }
 
+    @Override
+    public List<Task> getListOfTask(TaskQuery query) {
+        return query.selectById(tasks, taskStatuses);
+    }
+
+    @Override
+    public List<Epic> getListOfEpics(TaskQuery query) {
+        return query.selectById(epics, null);
+    }
+
+    @Override
+    public List<Subtask> getListOfSubtasks(TaskQuery query) {
+        return query.selectById(subtasks, subtaskStatuses);
+    }
+
     @Override
     public void removeTask(int id) {
-        prioritizedTasks.remove(tasks.get(id));
+        removePrioritizedTask(tasks.get(id));
         historyManager.remove(id);
-        tasks.remove(id);
+        taskStatuses.remove(id);
+        if (tasks.remove(id) != null) {
+            publish(TaskEventType.REMOVED, TaskType.TASK, id);
+        }
     }
 
     @Override
@@ -290,13 +313,15 @@ public class InMemoryTaskManager implements TaskManager {
         if (epics.containsKey(id)) {
             Epic epicFromCollection = epics.get(id);
             for (Subtask subtask : epicFromCollection.getListOfSubtasks()) {
-                prioritizedTasks.remove(subtasks.get(subtask.getId()));
+                removePrioritizedTask(subtasks.get(subtask.getId()));
                 historyManager.remove(subtask.getId());
                 subtasks.remove(subtask.getId());
+                subtaskStatuses.remove(subtask.getId());
+                publish(TaskEventType.REMOVED, TaskType.SUBTASK, subtask.getId());
             }
-            prioritizedTasks.remove(epicFromCollection);
             historyManager.remove(id);
             epics.remove(id);
+            publish(TaskEventType.REMOVED, TaskType.EPIC, id);
         }
     }
 
@@ -307,38 +332,43 @@ public class InMemoryTaskManager implements TaskManager {
             Epic epicFromCollection = epics.get(subtask.getEpicId());
 
             epicFromCollection.removeSubtask(subtask);
-            prioritizedTasks.remove(subtask);
+            removePrioritizedTask(subtask);
             historyManager.remove(id);
             subtasks.remove(id);
-
-            checkingStatusForEpic(epics.get(subtask.getEpicId()));
-            recalculatingEpicExecutionTime(epics.get(subtask.getEpicId()));
+            subtaskStatuses.remove(id);
+            publish(TaskEventType.REMOVED, TaskType.SUBTASK, id);
+            publishEpicUpdated(epicFromCollection.getId());
         }
     }
 
     @Override
     public void clearTasks() {
         for (Task task : tasks.values()) {
-            prioritizedTasks.remove(task);
+            removePrioritizedTask(task);
             historyManager.remove(task.getId());
+            publish(TaskEventType.REMOVED, TaskType.TASK, task.getId());
         }
         tasks.clear();
+        taskStatuses.clear();
     }
 
     @Override
     public void clearEpics() {
+        clearSubtaskFromHistoryAndPrioritizedTasks();
         for (Epic epic : epics.values()) {
             historyManager.remove(epic.getId());
+            publish(TaskEventType.REMOVED, TaskType.EPIC, epic.getId());
         }
-        clearSubtaskFromHistoryAndPrioritizedTasks();
         epics.clear();
         subtasks.clear();
+        subtaskStatuses.clear();
     }
 
     private void clearSubtaskFromHistoryAndPrioritizedTasks() {
         for (Subtask subtask : subtasks.values()) {
-            prioritizedTasks.remove(subtask);
+            removePrioritizedTask(subtask);
             historyManager.remove(subtask.getId());
+            publish(TaskEventType.REMOVED, TaskType.SUBTASK, subtask.getId());
         }
     }
 
@@ -346,12 +376,99 @@ public class InMemoryTaskManager implements TaskManager {
     public void clearSubtasks() {
         clearSubtaskFromHistoryAndPrioritizedTasks();
         subtasks.clear();
+        subtaskStatuses.clear();
 
         for (Epic epic : epics.values()) {
-            epic.clearSubtask();
-            checkingStatusForEpic(epic);
-            recalculatingEpicExecutionTime(epic);
+            if (epic.getNumberOfSubtasks() > 0) {
+                epic.clearSubtask();
+                publishEpicUpdated(epic.getId());
+            }
         }
     }
-}
 
+    @Override
+    public List<BatchResult> addAll(List<? extends Task> items) {
+        List<BatchResult> results = new ArrayList<>(items.size());
+        beginBatch();
+        try {
+            for (Task item : items) {
+                try {
+                    if (item instanceof Epic) {
+                        addEpic((Epic) item);
+                    } else if (item instanceof Subtask) {
+                        if (!epics.containsKey(((Subtask) item).getEpicId())) {
+                            results.add(BatchResult.failure(item.getId(), "Эпик подзадачи не найден."));
+                            continue;
+                        }
+                        addSubtask((Subtask) item);
+                    } else {
+                        addTask(item);
+                    }
+                    results.add(BatchResult.success(item.getId()));
+                } catch (IllegalArgumentException e) {
+                    results.add(BatchResult.failure(item.getId(), e.getMessage()));
+                }
+            }
+        } finally {
+            endBatch();
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<BatchResult> updateAll(List<? extends Task> items) {
+        List<BatchResult> results = new ArrayList<>(items.size());
+        beginBatch();
+        try {
+            for (Task item : items) {
+                int id = item.getId();
+                try {
+                    if (item instanceof Epic && epics.containsKey(id)) {
+                        updateEpic((Epic) item);
+                    } else if (item instanceof Subtask && subtasks.containsKey(id)
+                            && subtasks.get(id).getEpicId() == ((Subtask) item).getEpicId()) {
+                        updateSubtask((Subtask) item);
+                    } else if (!(item instanceof Epic) && !(item instanceof Subtask) && tasks.containsKey(id)) {
+                        updateTask(item);
+                    } else {
+                        results.add(BatchResult.failure(id, "Задача не найдена."));
+                        continue;
+                    }
+                    results.add(BatchResult.success(id));
+                } catch (IllegalArgumentException e) {
+                    results.add(BatchResult.failure(id, e.getMessage()));
+                }
+            }
+        } finally {
+            endBatch();
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<BatchResult> removeAll(List<Integer> ids) {
+        List<BatchResult> results = new ArrayList<>(ids.size());
+        beginBatch();
+        try {
+            for (int id : ids) {
+                if (tasks.containsKey(id)) {
+                    removeTask(id);
+                } else if (subtasks.containsKey(id)) {
+                    removeSubtask(id);
+                } else if (epics.containsKey(id)) {
+                    removeEpic(id);
+                } else {
+                    results.add(BatchResult.failure(id, "Задача не найдена."));
+                    continue;
+                }
+                results.add(BatchResult.success(id));
+            }
+        } finally {
+            endBatch();
+        }
+
+        return results;
+    }
+}
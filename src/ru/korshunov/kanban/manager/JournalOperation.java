@@ -0,0 +1,8 @@
+package ru.korshunov.kanban.manager;
+
+public enum JournalOperation {
+    // Задача в кодировании записи BinarySnapshot, переведённом в Base64.
+    PUT_RECORD,
+    REMOVE,
+    CLEAR
+}
@@ -0,0 +1,31 @@
+package ru.korshunov.kanban.manager;
+
+public interface LoadProgressListener {
+    long REPORT_INTERVAL = 100_000;
+
+    LoadProgressListener NONE = new LoadProgressListener() {
+    };
+
+    default void onProgress(long loadedRecords, long loadedBytes, long totalBytes) {
+    }
+
+    default void onComplete(long loadedRecords, long loadedBytes, long elapsedNanos) {
+    }
+
+    static LoadProgressListener console() {
+        return new LoadProgressListener() {
+            @Override
+            public void onProgress(long loadedRecords, long loadedBytes, long totalBytes) {
+                long percent = totalBytes == 0 ? 100 : loadedBytes * 100 / totalBytes;
+                System.out.println("Загружено записей: " + loadedRecords + " (" + percent + "%)");
+            }
+
+            @Override
+            public void onComplete(long loadedRecords, long loadedBytes, long elapsedNanos) {
+                double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+                System.out.printf("Загружено записей: %d за %.2f с (%.0f записей/с, %.1f МБ/с)%n",
+                        loadedRecords, seconds, loadedRecords / seconds, loadedBytes / seconds / (1 << 20));
+            }
+        };
+    }
+}
@@ -1,15 +1,42 @@
 package ru.korshunov.kanban.manager;
 
+import ru.korshunov.kanban.manager.history.ConcurrentHistoryManager;
 import ru.korshunov.kanban.manager.history.HistoryManager;
 import ru.korshunov.kanban.manager.history.InMemoryHistoryManager;
+import ru.korshunov.kanban.metrics.InstrumentedHistoryManager;
+import ru.korshunov.kanban.metrics.InstrumentedTaskManager;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+
+import java.nio.file.Path;
 
 public class Managers {
+    public static final int DEFAULT_HISTORY_SIZE = 10_000;
 
     public static TaskManager getDefaultTaskManager() {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrentTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Потокобезопасный менеджер, время операций которого и его истории пишется в общий реестр метрик.
+    public static TaskManager getInstrumentedTaskManager() {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        HistoryManager historyManager = new InstrumentedHistoryManager(getConcurrentHistory(), registry);
+        return new InstrumentedTaskManager(new ConcurrentTaskManager(ConcurrentTaskManager.DEFAULT_LOCK_STRIPES, historyManager), registry);
+    }
+
+    // Менеджер отдельной доски со своей историей и файлами в каталоге доски.
+    public static MappedTaskManager getBoardTaskManager(Path directory) {
+        return MappedTaskManager.open(directory);
+    }
+
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return new InMemoryHistoryManager(DEFAULT_HISTORY_SIZE);
+    }
+
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager(DEFAULT_HISTORY_SIZE);
     }
 }
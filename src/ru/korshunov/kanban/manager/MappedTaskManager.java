@@ -0,0 +1,771 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.DenseIdMap;
+import ru.korshunov.kanban.manager.event.TaskEventLog;
+import ru.korshunov.kanban.manager.event.TaskEventType;
+import ru.korshunov.kanban.manager.history.HistoryManager;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Менеджер для больших архивных досок: задачи лежат в MappedTaskStore, а в куче остаются только индексы
+// из примитивов - записи по id, расписание и id подзадач эпиков. Объекты задач создаются при каждом
+// чтении, поэтому изменения возвращённой задачи сохраняются только через update*.
+// Статус и время эпика, как и в других менеджерах, вычисляются по его подзадачам при чтении.
+public class MappedTaskManager implements TaskManager, Closeable {
+    // Конец интервала задачи без продолжительности: такая задача есть в расписании, но не в проверке пересечений.
+    private static final long NO_END = Long.MIN_VALUE;
+    private static final Comparator<long[]> SCHEDULE_ORDER = Comparator.<long[]>comparingLong(entry -> entry[0])
+            .thenComparingLong(entry -> entry[1]);
+
+    private final MappedTaskStore store;
+    private final PackedScheduleIndex schedule = new PackedScheduleIndex();
+    private final DenseIdMap<IdList> subtaskIdsByEpic = new DenseIdMap<>();
+    private final StatusIndex taskStatuses = new StatusIndex();
+    private final StatusIndex subtaskStatuses = new StatusIndex();
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final TaskEventLog eventLog = new TaskEventLog();
+    private final Set<Integer> batchEpics = new LinkedHashSet<>();
+    private int batchDepth = 0;
+    private long scheduleVersion = 0;
+    private PrioritizedView prioritizedView = PrioritizedView.EMPTY;
+
+    private MappedTaskManager(MappedTaskStore store) {
+        this.store = store;
+
+        // Расписание собирается одним проходом по хранилищу и загружается в индекс одной сортировкой.
+        int idLimit = store.getIdLimit();
+        long[] starts = new long[store.size()];
+        long[] ends = new long[starts.length];
+        int[] ids = new int[starts.length];
+        int scheduled = 0;
+        for (int id = 1; id < idLimit; id++) {
+            TaskType type = store.getType(id);
+            if (type == TaskType.EPIC) {
+                epicSubtaskIds(id);
+            } else if (type == TaskType.SUBTASK) {
+                epicSubtaskIds(store.getEpicId(id)).add(id);
+                subtaskStatuses.put(id, store.getTaskStatus(id));
+            } else if (type == TaskType.TASK) {
+                taskStatuses.put(id, store.getTaskStatus(id));
+            }
+            if (store.hasStartTime(id)) {
+                starts[scheduled] = store.getStartNanos(id);
+                ends[scheduled] = store.hasDuration(id) ? store.getEndNanos(id) : NO_END;
+                ids[scheduled++] = id;
+            }
+        }
+        schedule.load(starts, ends, ids, scheduled);
+        scheduleVersion++;
+    }
+
+    public static MappedTaskManager open(Path directory) {
+        return new MappedTaskManager(MappedTaskStore.open(directory));
+    }
+
+    @Override
+    public TaskEventLog getEventLog() {
+        return eventLog;
+    }
+
+    private void publish(TaskEventType type, TaskType entityType, int id) {
+        eventLog.publish(type, entityType, id);
+    }
+
+    private void publishEpicUpdated(int epicId) {
+        if (batchDepth > 0) {
+            batchEpics.add(epicId);
+        } else {
+            publish(TaskEventType.UPDATED, TaskType.EPIC, epicId);
+        }
+    }
+
+    private void beginBatch() {
+        batchDepth++;
+    }
+
+    private void endBatch() {
+        if (--batchDepth > 0) {
+            return;
+        }
+
+        for (Integer epicId : batchEpics) {
+            if (store.getType(epicId) == TaskType.EPIC) {
+                publish(TaskEventType.UPDATED, TaskType.EPIC, epicId);
+            }
+        }
+        batchEpics.clear();
+    }
+
+    private int nextTaskId() {
+        int taskId = store.getLastTaskId() + 1;
+        store.setLastTaskId(taskId);
+        return taskId;
+    }
+
+    @Override
+    public synchronized void addTask(Task task) {
+        if (isIntersectionOfTasksInTime(task)) {
+            throw new IllegalArgumentException("Время выполнения задачи " + '"' + task.getName() + '"' + "пересекается с сущетсвующими.");
+        }
+
+        task.setId(nextTaskId());
+        store.write(task, TaskType.TASK);
+        taskStatuses.put(task.getId(), task.getTaskStatus());
+        addPrioritizedTask(task.getId());
+        publish(TaskEventType.CREATED, TaskType.TASK, task.getId());
+    }
+
+    // Время вне диапазона хранилища отклоняется здесь же, до присвоения id.
+    private boolean isIntersectionOfTasksInTime(Task task) {
+        if (task.getStartTime() == null) {
+            return false;
+        }
+
+        long startNanos = MappedTaskStore.toNanos(task.getStartTime());
+        if (task.getDuration() == null) {
+            return false;
+        }
+        long endNanos;
+        try {
+            endNanos = Math.addExact(startNanos, MappedTaskStore.toNanos(task.getDuration()));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Окончание задачи вне поддерживаемого хранилищем диапазона: " + task.getName());
+        }
+        return schedule.isIntersection(startNanos, endNanos, task.getId());
+    }
+
+    private void addPrioritizedTask(int id) {
+        if (store.hasStartTime(id)) {
+            schedule.put(id, store.getStartNanos(id), store.hasDuration(id) ? store.getEndNanos(id) : NO_END);
+            scheduleVersion++;
+        }
+    }
+
+    private void removePrioritizedTask(int id) {
+        if (store.hasStartTime(id)) {
+            schedule.remove(id, store.getStartNanos(id));
+            scheduleVersion++;
+        }
+    }
+
+    @Override
+    public synchronized void addEpic(Epic epic) {
+        epic.clearSubtask();
+        epic.setId(nextTaskId());
+        store.write(epic, TaskType.EPIC);
+        epicSubtaskIds(epic.getId());
+        publish(TaskEventType.CREATED, TaskType.EPIC, epic.getId());
+    }
+
+    @Override
+    public synchronized void addSubtask(Subtask subtask) {
+        if (isIntersectionOfTasksInTime(subtask)) {
+            throw new IllegalArgumentException("Время выполнения задачи " + '"' + subtask.getName() + '"' + " пересекается с сущетсвующими.");
+        }
+
+        int epicId = subtask.getEpicId();
+        if (store.getType(epicId) == TaskType.EPIC) {
+            subtask.setId(nextTaskId());
+
+            store.write(subtask, TaskType.SUBTASK);
+            subtaskStatuses.put(subtask.getId(), subtask.getTaskStatus());
+            epicSubtaskIds(epicId).add(subtask.getId());
+            addPrioritizedTask(subtask.getId());
+            publish(TaskEventType.CREATED, TaskType.SUBTASK, subtask.getId());
+            publishEpicUpdated(epicId);
+        }
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        int id = task.getId();
+        if (store.getType(id) == TaskType.TASK) {
+            if (isIntersectionOfTasksInTime(task)) {
+                throw new IllegalArgumentException("Время выполнения задачи " + '"' + task.getName() + '"' + "пересекается с сущетсвующими.");
+            }
+
+            removePrioritizedTask(id);
+            store.write(task, TaskType.TASK);
+            taskStatuses.put(id, task.getTaskStatus());
+            addPrioritizedTask(id);
+            publish(TaskEventType.UPDATED, TaskType.TASK, id);
+        }
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        int id = epic.getId();
+        if (store.getType(id) == TaskType.EPIC) {
+            store.writeText(id, epic.getName(), epic.getDescription());
+            publishEpicUpdated(id);
+        }
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        int id = subtask.getId();
+        if (store.getType(id) == TaskType.SUBTASK) {
+            if (isIntersectionOfTasksInTime(subtask)) {
+                throw new IllegalArgumentException("Время выполнения задачи " + '"' + subtask.getName() + '"' + "пересекается с сущетсвующими.");
+            }
+
+            if (subtask.getEpicId() == store.getEpicId(id)) {
+                removePrioritizedTask(id);
+                store.write(subtask, TaskType.SUBTASK);
+                subtaskStatuses.put(id, subtask.getTaskStatus());
+                addPrioritizedTask(id);
+                publish(TaskEventType.UPDATED, TaskType.SUBTASK, id);
+                publishEpicUpdated(subtask.getEpicId());
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized long getHistoryVersion() {
+        return historyManager.getVersion();
+    }
+
+    // Снимок хранит только id из расписания, а задачи читает из хранилища при обращении, поэтому
+    // в куче не остаётся копии всех задач доски.
+    @Override
+    public synchronized PrioritizedView getPrioritizedTasks() {
+        if (prioritizedView.getVersion() != scheduleVersion) {
+            int[] ids = new int[schedule.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = schedule.getId(i);
+            }
+            prioritizedView = new StoredPrioritizedView(ids, scheduleVersion);
+        }
+        return prioritizedView;
+    }
+
+    // Тот же выбор страницы, что и TaskQuery.selectByStartTime, но по позициям в упакованном расписании.
+    @Override
+    public synchronized List<Task> getPrioritizedTasks(TaskQuery query) {
+        LocalDateTime afterStartTime = query.getAfterStartTime();
+        LocalDateTime from = query.getFrom();
+        // Первая пара (время начала, id), которая может попасть на страницу.
+        long lowStart = Long.MIN_VALUE;
+        int lowId = Integer.MIN_VALUE;
+        if (afterStartTime != null && (from == null || !afterStartTime.isBefore(from))) {
+            long startNanos = toScheduleNanos(afterStartTime);
+            Integer afterId = query.getAfterId();
+            if (afterId == null || afterId == Integer.MAX_VALUE) {
+                lowStart = startNanos + 1;
+            } else {
+                lowStart = startNanos;
+                lowId = afterId + 1;
+            }
+        } else if (from != null) {
+            lowStart = toScheduleNanos(from);
+        }
+
+        long toNanos = query.getTo() == null ? Long.MAX_VALUE : toScheduleNanos(query.getTo());
+        if (query.getTaskStatus() != null && query.prefersStatusIndex(taskStatuses, subtaskStatuses)) {
+            return selectByStatusIndex(query.getTaskStatus(), query.getLimit(), lowStart, lowId, toNanos);
+        }
+
+        List<Task> page = new ArrayList<>();
+        for (int index = schedule.lowerBound(lowStart, lowId); index < schedule.size() && page.size() < query.getLimit(); index++) {
+            if (query.getTo() != null && schedule.getStart(index) >= toNanos) {
+                break;
+            }
+
+            Task task = store.read(schedule.getId(index));
+            if (query.getTaskStatus() == null || task.getTaskStatus() == query.getTaskStatus()) {
+                page.add(task);
+            }
+        }
+
+        return page;
+    }
+
+    // Задачи со статусом из индексов статусов в порядке расписания: первые limit пар (время начала, id)
+    // держатся в куче, на вершине которой - самая поздняя. Из хранилища читаются только задачи страницы.
+    private List<Task> selectByStatusIndex(TaskStatus taskStatus, int limit, long lowStart, int lowId, long toNanos) {
+        PriorityQueue<long[]> earliest = new PriorityQueue<>(limit, SCHEDULE_ORDER.reversed());
+        for (StatusIndex statusIndex : new StatusIndex[]{taskStatuses, subtaskStatuses}) {
+            int id = statusIndex.nextId(taskStatus, 0);
+            while (id >= 0) {
+                if (store.hasStartTime(id)) {
+                    long start = store.getStartNanos(id);
+                    if (start < toNanos && (start > lowStart || start == lowStart && id >= lowId)) {
+                        long[] entry = {start, id};
+                        if (earliest.size() < limit) {
+                            earliest.add(entry);
+                        } else if (SCHEDULE_ORDER.compare(entry, earliest.peek()) < 0) {
+                            earliest.poll();
+                            earliest.add(entry);
+                        }
+                    }
+                }
+                id = id == Integer.MAX_VALUE ? -1 : statusIndex.nextId(taskStatus, id + 1);
+            }
+        }
+
+        long[][] entries = earliest.toArray(new long[0][]);
+        Arrays.sort(entries, SCHEDULE_ORDER);
+        List<Task> page = new ArrayList<>(entries.length);
+        for (long[] entry : entries) {
+            page.add(store.read((int) entry[1]));
+        }
+        return page;
+    }
+
+    // Границы запроса за пределами диапазона хранилища прижимаются к его краям.
+    private static long toScheduleNanos(LocalDateTime dateTime) {
+        try {
+            return MappedTaskStore.toNanos(dateTime);
+        } catch (IllegalArgumentException e) {
+            return dateTime.getYear() < 1970 ? Long.MIN_VALUE : Long.MAX_VALUE - 1;
+        }
+    }
+
+    @Override
+    public synchronized Task getTaskOnId(int id) {
+        Task task = store.getType(id) == TaskType.TASK ? store.read(id) : null;
+        if (task != null) {
+            historyManager.add(task);
+        }
+
+        return task;
+    }
+
+    @Override
+    public synchronized Epic getEpicOnId(int id) {
+        Epic epic = readEpic(id);
+        if (epic != null) {
+            historyManager.add(epic);
+        }
+
+        return epic;
+    }
+
+    private Epic readEpic(int id) {
+        if (store.getType(id) != TaskType.EPIC) {
+            return null;
+        }
+
+        Epic epic = (Epic) store.read(id);
+        IdList subtaskIds = subtaskIdsByEpic.get(id);
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            epic.addSubtask((Subtask) store.read(subtaskIds.get(i)));
+        }
+        return epic;
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtaskOnEpic(int epicId) {
+        Epic epic = readEpic(epicId);
+        if (epic != null) {
+            return epic.getListOfSubtasks();
+        }
+
+        return new ArrayList<>();
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskOnId(int id) {
+        Subtask subtask = store.getType(id) == TaskType.SUBTASK ? (Subtask) store.read(id) : null;
+        if (subtask != null) {
+            historyManager.add(subtask);
+        }
+
+        return subtask;
+    }
+
+    @Override
+    public synchronized List<Task> getListOfTask() {
+        return select(TaskType.TASK, null);
+    }
+
+    @Override
+    public synchronized List<Epic> getListOfEpics() {
+        return select(TaskType.EPIC, null);
+    }
+
+    @Override
+    public synchronized List<Subtask> getListOfSubtasks() {
+        return select(TaskType.SUBTASK, null);
+    }
+
+    @Override
+    public synchronized List<Task> getListOfTask(TaskQuery query) {
+        return select(TaskType.TASK, query);
+    }
+
+    @Override
+    public synchronized List<Epic> getListOfEpics(TaskQuery query) {
+        return select(TaskType.EPIC, query);
+    }
+
+    @Override
+    public synchronized List<Subtask> getListOfSubtasks(TaskQuery query) {
+        return select(TaskType.SUBTASK, query);
+    }
+
+    // Задачи типа type по возрастанию id; без запроса - все, с запросом - страница после его курсора.
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> select(TaskType type, TaskQuery query) {
+        if (query != null) {
+            query.requireIndexedFilters(type != TaskType.EPIC);
+            if (query.getTaskStatus() != null) {
+                return query.selectByStatus(id -> store.getType(id) == type ? (T) store.read(id) : null,
+                        type == TaskType.TASK ? taskStatuses : subtaskStatuses);
+            }
+        }
+
+        int idLimit = store.getIdLimit();
+        int firstId = query == null || query.getAfterId() == null ? 1 : Math.max(1, Math.min(query.getAfterId(), idLimit) + 1);
+        List<T> page = new ArrayList<>();
+        for (int id = firstId; id < idLimit; id++) {
+            if (store.getType(id) != type) {
+                continue;
+            }
+
+            page.add((T) (type == TaskType.EPIC ? readEpic(id) : store.read(id)));
+            if (query != null && page.size() == query.getLimit()) {
+                break;
+            }
+        }
+
+        return page;
+    }
+
+    @Override
+    public synchronized void removeTask(int id) {
+        if (store.getType(id) == TaskType.TASK) {
+            removePrioritizedTask(id);
+            historyManager.remove(id);
+            store.remove(id);
+            taskStatuses.remove(id);
+            publish(TaskEventType.REMOVED, TaskType.TASK, id);
+        }
+    }
+
+    @Override
+    public synchronized void removeEpic(int id) {
+        if (store.getType(id) == TaskType.EPIC) {
+            IdList subtaskIds = subtaskIdsByEpic.remove(id);
+            for (int i = 0; i < subtaskIds.size(); i++) {
+                removeStoredSubtask(subtaskIds.get(i));
+            }
+            historyManager.remove(id);
+            store.remove(id);
+            publish(TaskEventType.REMOVED, TaskType.EPIC, id);
+        }
+    }
+
+    @Override
+    public synchronized void removeSubtask(int id) {
+        if (store.getType(id) == TaskType.SUBTASK) {
+            int epicId = store.getEpicId(id);
+
+            subtaskIdsByEpic.get(epicId).remove(id);
+            removeStoredSubtask(id);
+            publishEpicUpdated(epicId);
+        }
+    }
+
+    private void removeStoredSubtask(int id) {
+        removePrioritizedTask(id);
+        historyManager.remove(id);
+        store.remove(id);
+        subtaskStatuses.remove(id);
+        publish(TaskEventType.REMOVED, TaskType.SUBTASK, id);
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        int idLimit = store.getIdLimit();
+        for (int id = 1; id < idLimit; id++) {
+            if (store.getType(id) == TaskType.TASK) {
+                removeTask(id);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        int idLimit = store.getIdLimit();
+        for (int id = 1; id < idLimit; id++) {
+            if (store.getType(id) == TaskType.SUBTASK) {
+                removeStoredSubtask(id);
+            }
+        }
+        for (int id = 1; id < idLimit; id++) {
+            if (store.getType(id) == TaskType.EPIC) {
+                historyManager.remove(id);
+                store.remove(id);
+                subtaskIdsByEpic.remove(id);
+                publish(TaskEventType.REMOVED, TaskType.EPIC, id);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clearSubtasks() {
+        int idLimit = store.getIdLimit();
+        for (int id = 1; id < idLimit; id++) {
+            if (store.getType(id) == TaskType.SUBTASK) {
+                removeStoredSubtask(id);
+            }
+        }
+
+        for (int id = 1; id < idLimit; id++) {
+            IdList subtaskIds = subtaskIdsByEpic.get(id);
+            if (subtaskIds != null && subtaskIds.size() > 0) {
+                subtaskIds.clear();
+                publishEpicUpdated(id);
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<BatchResult> addAll(List<? extends Task> items) {
+        List<BatchResult> results = new ArrayList<>(items.size());
+        beginBatch();
+        try {
+            for (Task item : items) {
+                try {
+                    if (item instanceof Epic) {
+                        addEpic((Epic) item);
+                    } else if (item instanceof Subtask) {
+                        if (store.getType(((Subtask) item).getEpicId()) != TaskType.EPIC) {
+                            results.add(BatchResult.failure(item.getId(), "Эпик подзадачи не найден."));
+                            continue;
+                        }
+                        addSubtask((Subtask) item);
+                    } else {
+                        addTask(item);
+                    }
+                    results.add(BatchResult.success(item.getId()));
+                } catch (IllegalArgumentException e) {
+                    results.add(BatchResult.failure(item.getId(), e.getMessage()));
+                }
+            }
+        } finally {
+            endBatch();
+        }
+
+        return results;
+    }
+
+    @Override
+    public synchronized List<BatchResult> updateAll(List<? extends Task> items) {
+        List<BatchResult> results = new ArrayList<>(items.size());
+        beginBatch();
+        try {
+            for (Task item : items) {
+                int id = item.getId();
+                TaskType type = store.getType(id);
+                try {
+                    if (item instanceof Epic && type == TaskType.EPIC) {
+                        updateEpic((Epic) item);
+                    } else if (item instanceof Subtask && type == TaskType.SUBTASK
+                            && store.getEpicId(id) == ((Subtask) item).getEpicId()) {
+                        updateSubtask((Subtask) item);
+                    } else if (!(item instanceof Epic) && !(item instanceof Subtask) && type == TaskType.TASK) {
+                        updateTask(item);
+                    } else {
+                        results.add(BatchResult.failure(id, "Задача не найдена."));
+                        continue;
+                    }
+                    results.add(BatchResult.success(id));
+                } catch (IllegalArgumentException e) {
+                    results.add(BatchResult.failure(id, e.getMessage()));
+                }
+            }
+        } finally {
+            endBatch();
+        }
+
+        return results;
+    }
+
+    @Override
+    public synchronized List<BatchResult> removeAll(List<Integer> ids) {
+        List<BatchResult> results = new ArrayList<>(ids.size());
+        beginBatch();
+        try {
+            for (int id : ids) {
+                TaskType type = store.getType(id);
+                if (type == TaskType.TASK) {
+                    removeTask(id);
+                } else if (type == TaskType.SUBTASK) {
+                    removeSubtask(id);
+                } else if (type == TaskType.EPIC) {
+                    removeEpic(id);
+                } else {
+                    results.add(BatchResult.failure(id, "Задача не найдена."));
+                    continue;
+                }
+                results.add(BatchResult.success(id));
+            }
+        } finally {
+            endBatch();
+        }
+
+        return results;
+    }
+
+    // Сжимает область строк, если в ней накопились устаревшие строки, и сбрасывает изменённые страницы файлов на диск.
+    public synchronized void flush() {
+        store.compactStrings();
+        store.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        store.close();
+    }
+
+    private IdList epicSubtaskIds(int epicId) {
+        IdList subtaskIds = subtaskIdsByEpic.get(epicId);
+        if (subtaskIds == null) {
+            subtaskIds = new IdList();
+            subtaskIdsByEpic.put(epicId, subtaskIds);
+        }
+        return subtaskIds;
+    }
+
+    // Порядок задач фиксируется при создании снимка, а сами задачи читаются в момент обращения. Задачи,
+    // удалённые после создания снимка, исключаются из него при следующем обращении, поэтому size, get
+    // и обход видят одни и те же задачи. Задача, удалённая во время обхода, пропускается.
+    private final class StoredPrioritizedView extends PrioritizedView {
+        private int[] ids;
+        private long removeCount;
+
+        private StoredPrioritizedView(int[] ids, long version) {
+            super(version);
+            this.ids = ids;
+            this.removeCount = store.getRemoveCount();
+        }
+
+        // Вызывается под блокировкой менеджера.
+        private int[] liveIds() {
+            if (removeCount != store.getRemoveCount()) {
+                int[] live = new int[ids.length];
+                int count = 0;
+                for (int id : ids) {
+                    if (store.contains(id)) {
+                        live[count++] = id;
+                    }
+                }
+                ids = Arrays.copyOf(live, count);
+                removeCount = store.getRemoveCount();
+            }
+            return ids;
+        }
+
+        @Override
+        public Task get(int index) {
+            synchronized (MappedTaskManager.this) {
+                return store.read(liveIds()[index]);
+            }
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            int[] snapshot;
+            synchronized (MappedTaskManager.this) {
+                snapshot = liveIds();
+            }
+            return new Iterator<>() {
+                private int index = 0;
+                private Task next = advance();
+
+                private Task advance() {
+                    while (index < snapshot.length) {
+                        Task task;
+                        synchronized (MappedTaskManager.this) {
+                            task = store.read(snapshot[index++]);
+                        }
+                        if (task != null) {
+                            return task;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Task next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Task task = next;
+                    next = advance();
+                    return task;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            synchronized (MappedTaskManager.this) {
+                return liveIds().length;
+            }
+        }
+    }
+
+    // id подзадач эпика в порядке добавления; удаление сдвигает остальные id, сохраняя этот порядок, как в Epic.
+    private static final class IdList {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        private int size() {
+            return size;
+        }
+
+        private int get(int index) {
+            return ids[index];
+        }
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    // Остальные id сдвигаются, чтобы подзадачи эпика сохранили порядок добавления.
+                    System.arraycopy(ids, i + 1, ids, i, --size - i);
+                    return;
+                }
+            }
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
+}
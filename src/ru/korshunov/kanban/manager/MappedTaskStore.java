@@ -0,0 +1,601 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.exception.ManagerReadException;
+import ru.korshunov.kanban.exception.ManagerSaveException;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Задачи хранятся записями фиксированного размера в отображённом в память файле tasks.dat, а их строки -
+// в отдельной области strings.dat, тоже отображённой в память. В куче остаётся только индекс id -> номер записи.
+// Файлы отображаются сегментами по SEGMENT_SIZE байт и растут по мере заполнения. Изменённая запись
+// переписывается на месте, удалённая помечается свободной; строки дописываются, только если изменились.
+// Место старых строк освобождается сжатием области строк в новый файл при открытии и по compactStrings().
+// На диск данные попадают средствами ОС, а гарантированно - после force() или close().
+public class MappedTaskStore implements Closeable {
+    static final String RECORDS_FILE = "tasks.dat";
+    static final String STRINGS_FILE = "strings.dat";
+    static final String COMPACTED_STRINGS_FILE = "strings.dat.compact";
+
+    private static final int MAGIC = 0x4B4D5453;
+    private static final int FORMAT_VERSION = 1;
+    private static final int RECORD_SIZE = 64;
+    private static final int SEGMENT_SIZE = 1 << 24;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // Область строк сжимается, когда она больше этого размера и устаревшие строки занимают больше половины.
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+    // Заголовок занимает место нулевой записи.
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_LAST_TASK_ID = 8;
+    private static final int HEADER_RECORD_COUNT = 12;
+    private static final int HEADER_STRINGS_END = 16;
+    private static final int HEADER_STRINGS_STATE = 24;
+    private static final int HEADER_COMPACTED_STRINGS_END = 32;
+
+    // Область строк переключается на сжатый файл: смещения записей ещё могут указывать в прежний.
+    private static final int STRINGS_STABLE = 0;
+    private static final int STRINGS_SWITCHING = 1;
+
+    // Поля записи.
+    private static final int STATE = 0;
+    private static final int TYPE = 1;
+    private static final int STATUS = 2;
+    private static final int FLAGS = 3;
+    private static final int ID = 4;
+    private static final int EPIC_ID = 8;
+    private static final int NAME_LENGTH = 12;
+    private static final int NAME_OFFSET = 16;
+    private static final int DESCRIPTION_OFFSET = 24;
+    private static final int DESCRIPTION_LENGTH = 32;
+    private static final int START = 40;
+    private static final int DURATION = 48;
+    // Смещение названия в сжатом файле строк; описание лежит сразу за названием.
+    private static final int COMPACTED_NAME_OFFSET = 56;
+
+    private static final byte STATE_FREE = 0;
+    private static final byte STATE_LIVE = 1;
+    private static final byte HAS_START = 1;
+    private static final byte HAS_DURATION = 2;
+
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    private final Path directory;
+    private final FileChannel records;
+    private FileChannel strings;
+    private final List<MappedByteBuffer> recordSegments = new ArrayList<>();
+    private final List<MappedByteBuffer> stringSegments = new ArrayList<>();
+    private int[] slotsById = new int[16];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount = 0;
+    private int recordCount;
+    private long stringsEnd;
+    // Байты строк, на которые ссылаются живые записи; остальное до stringsEnd - устаревшие строки.
+    private long liveStringBytes;
+    private int size = 0;
+    private long removeCount = 0;
+
+    private MappedTaskStore(Path directory, FileChannel records, FileChannel strings) {
+        this.directory = directory;
+        this.records = records;
+        this.strings = strings;
+    }
+
+    public static MappedTaskStore open(Path directory) {
+        FileChannel records = null;
+        FileChannel strings = null;
+        try {
+            Files.createDirectories(directory);
+            records = FileChannel.open(directory.resolve(RECORDS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            strings = FileChannel.open(directory.resolve(STRINGS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedTaskStore store = new MappedTaskStore(directory, records, strings);
+            store.load(records.size() == 0);
+            store.compactStrings();
+            return store;
+        } catch (IOException e) {
+            closeQuietly(records);
+            closeQuietly(strings);
+            throw new ManagerReadException("Ошибка открытия хранилища задач: " + directory, e);
+        } catch (RuntimeException e) {
+            closeQuietly(records);
+            closeQuietly(strings);
+            throw e;
+        }
+    }
+
+    // Индекс id -> запись восстанавливается одним последовательным проходом по файлу записей.
+    private void load(boolean created) throws IOException {
+        if (created) {
+            MappedByteBuffer header = recordSegment(0);
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, FORMAT_VERSION);
+            return;
+        }
+
+        MappedByteBuffer header = recordSegment(0);
+        if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_VERSION) != FORMAT_VERSION) {
+            throw new IOException("Неизвестный формат хранилища задач.");
+        }
+        recordCount = header.getInt(HEADER_RECORD_COUNT);
+        if (header.getInt(HEADER_STRINGS_STATE) == STRINGS_SWITCHING) {
+            // Сжатие прервано после того, как сжатый файл и новые смещения оказались на диске: доводится до конца.
+            switchToCompactedStrings();
+        } else {
+            Files.deleteIfExists(directory.resolve(COMPACTED_STRINGS_FILE));
+        }
+        stringsEnd = header.getLong(HEADER_STRINGS_END);
+
+        for (int slot = 1; slot <= recordCount; slot++) {
+            MappedByteBuffer segment = recordSegment(slot);
+            int offset = recordOffset(slot);
+            if (segment.get(offset + STATE) == STATE_LIVE) {
+                indexSlot(segment.getInt(offset + ID), slot);
+                liveStringBytes += stringBytes(segment, offset);
+            } else {
+                pushFreeSlot(slot);
+            }
+        }
+    }
+
+    public int getLastTaskId() {
+        return recordSegments.get(0).getInt(HEADER_LAST_TASK_ID);
+    }
+
+    public void setLastTaskId(int lastTaskId) {
+        recordSegments.get(0).putInt(HEADER_LAST_TASK_ID, lastTaskId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Число удалений с открытия хранилища: id не переиспользуются, поэтому пока оно не изменилось,
+    // все ранее найденные id на месте.
+    public long getRemoveCount() {
+        return removeCount;
+    }
+
+    // Занятый строками объём strings.dat в байтах.
+    public long getStringsSize() {
+        return stringsEnd;
+    }
+
+    // Переписывает строки живых записей в новый файл, если устаревшие строки занимают больше половины
+    // области. Файлы меняются так, чтобы сбой на любом шаге оставлял записи с целыми строками:
+    // 1. строки копируются подряд в COMPACTED_STRINGS_FILE, их новые смещения пишутся в свободное поле
+    //    записи, а прежние смещения не трогаются; оба файла сбрасываются на диск;
+    // 2. в заголовке отмечается переключение, и он сбрасывается на диск;
+    // 3. сжатый файл атомарно заменяет strings.dat, и новые смещения переносятся в записи;
+    // 4. отметка снимается. Прерванное после шага 2 сжатие open доводит до конца.
+    // Проход идёт по записям один раз, поэтому сжатию не нужна память, растущая с размером доски.
+    // Возвращает true, если область сжата.
+    public boolean compactStrings() {
+        if (stringsEnd < MIN_COMPACTION_BYTES || stringsEnd - liveStringBytes <= liveStringBytes) {
+            return false;
+        }
+
+        try {
+            long compactedEnd = 0;
+            try (FileChannel compacted = FileChannel.open(directory.resolve(COMPACTED_STRINGS_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream output = new BufferedOutputStream(Channels.newOutputStream(compacted), COPY_BUFFER_SIZE);
+                for (int slot = 1; slot <= recordCount; slot++) {
+                    MappedByteBuffer segment = recordSegment(slot);
+                    int offset = recordOffset(slot);
+                    if (segment.get(offset + STATE) == STATE_LIVE) {
+                        segment.putLong(offset + COMPACTED_NAME_OFFSET, compactedEnd);
+                        compactedEnd += copyString(output, segment, offset + NAME_OFFSET, offset + NAME_LENGTH);
+                        compactedEnd += copyString(output, segment, offset + DESCRIPTION_OFFSET, offset + DESCRIPTION_LENGTH);
+                    }
+                }
+                output.flush();
+                compacted.force(true);
+            }
+            forceRecords();
+
+            MappedByteBuffer header = recordSegments.get(0);
+            header.putLong(HEADER_COMPACTED_STRINGS_END, compactedEnd);
+            header.putInt(HEADER_STRINGS_STATE, STRINGS_SWITCHING);
+            header.force();
+
+            switchToCompactedStrings();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сжатия области строк хранилища задач.", e);
+        }
+        return true;
+    }
+
+    // Шаги 3 и 4 сжатия. Повторный вызов безопасен: сжатый файл переносится, только если он ещё есть,
+    // а новые смещения берутся из поля записи, которое до следующего сжатия не меняется.
+    private void switchToCompactedStrings() throws IOException {
+        Path compacted = directory.resolve(COMPACTED_STRINGS_FILE);
+        if (Files.exists(compacted)) {
+            stringSegments.clear();
+            strings.close();
+            Path stringsPath = directory.resolve(STRINGS_FILE);
+            Files.move(compacted, stringsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            strings = FileChannel.open(stringsPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            forceDirectory();
+        }
+
+        for (int slot = 1; slot <= recordCount; slot++) {
+            MappedByteBuffer segment = recordSegment(slot);
+            int offset = recordOffset(slot);
+            if (segment.get(offset + STATE) == STATE_LIVE) {
+                long nameOffset = segment.getLong(offset + COMPACTED_NAME_OFFSET);
+                segment.putLong(offset + NAME_OFFSET, nameOffset);
+                segment.putLong(offset + DESCRIPTION_OFFSET, nameOffset + Math.max(segment.getInt(offset + NAME_LENGTH), 0));
+            }
+        }
+
+        MappedByteBuffer header = recordSegments.get(0);
+        stringsEnd = header.getLong(HEADER_COMPACTED_STRINGS_END);
+        liveStringBytes = stringsEnd;
+        header.putLong(HEADER_STRINGS_END, stringsEnd);
+        // Отметка снимается только после того, как новые смещения всех записей оказались на диске.
+        forceRecords();
+        header.putInt(HEADER_STRINGS_STATE, STRINGS_STABLE);
+        header.force();
+    }
+
+    private long copyString(OutputStream output, MappedByteBuffer record, int offsetField, int lengthField) throws IOException {
+        int length = record.getInt(lengthField);
+        if (length <= 0) {
+            return 0;
+        }
+        output.write(readBytes(record.getLong(offsetField), length));
+        return length;
+    }
+
+    // Переименование попадает на диск вместе с каталогом. Не везде каталог можно открыть для записи,
+    // и тогда на это остаётся полагаться на файловую систему.
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Каталог не открывается как файл.
+        }
+    }
+
+    // Верхняя граница id для перебора записей по возрастанию id.
+    public int getIdLimit() {
+        return slotsById.length;
+    }
+
+    public boolean contains(int id) {
+        return slotOf(id) != 0;
+    }
+
+    // Тип записи или null, если задачи с таким id нет.
+    public TaskType getType(int id) {
+        int slot = slotOf(id);
+        return slot == 0 ? null : TASK_TYPES[recordSegment(slot).get(recordOffset(slot) + TYPE)];
+    }
+
+    public int getEpicId(int id) {
+        int slot = liveSlotOf(id);
+        return recordSegment(slot).getInt(recordOffset(slot) + EPIC_ID);
+    }
+
+    public TaskStatus getTaskStatus(int id) {
+        int slot = liveSlotOf(id);
+        byte status = recordSegment(slot).get(recordOffset(slot) + STATUS);
+        return status == 0 ? null : TASK_STATUSES[status - 1];
+    }
+
+    public boolean hasStartTime(int id) {
+        return hasFlag(id, HAS_START);
+    }
+
+    public boolean hasDuration(int id) {
+        return hasFlag(id, HAS_DURATION);
+    }
+
+    private boolean hasFlag(int id, byte flag) {
+        int slot = slotOf(id);
+        return slot != 0 && (recordSegment(slot).get(recordOffset(slot) + FLAGS) & flag) != 0;
+    }
+
+    public long getStartNanos(int id) {
+        int slot = liveSlotOf(id);
+        return recordSegment(slot).getLong(recordOffset(slot) + START);
+    }
+
+    public long getEndNanos(int id) {
+        int slot = liveSlotOf(id);
+        MappedByteBuffer segment = recordSegment(slot);
+        int offset = recordOffset(slot);
+        return segment.getLong(offset + START) + segment.getLong(offset + DURATION);
+    }
+
+    // Новый объект из записи. Эпик создаётся без подзадач: их добавляет менеджер.
+    public Task read(int id) {
+        int slot = slotOf(id);
+        if (slot == 0) {
+            return null;
+        }
+
+        MappedByteBuffer segment = recordSegment(slot);
+        int offset = recordOffset(slot);
+        TaskType type = TASK_TYPES[segment.get(offset + TYPE)];
+        byte status = segment.get(offset + STATUS);
+        TaskStatus taskStatus = status == 0 ? null : TASK_STATUSES[status - 1];
+        byte flags = segment.get(offset + FLAGS);
+        String name = readString(segment.getLong(offset + NAME_OFFSET), segment.getInt(offset + NAME_LENGTH));
+        String description = readString(segment.getLong(offset + DESCRIPTION_OFFSET), segment.getInt(offset + DESCRIPTION_LENGTH));
+        LocalDateTime startTime = (flags & HAS_START) == 0 ? null : fromNanos(segment.getLong(offset + START));
+        Duration duration = (flags & HAS_DURATION) == 0 ? null : Duration.ofNanos(segment.getLong(offset + DURATION));
+
+        switch (type) {
+            case EPIC:
+                return Epic.getInstance(id, name, taskStatus, description);
+            case SUBTASK:
+                return Subtask.getInstance(id, name, taskStatus, description, segment.getInt(offset + EPIC_ID), startTime, duration);
+            default:
+                return Task.getInstance(id, name, taskStatus, description, startTime, duration);
+        }
+    }
+
+    // Вставляет или переписывает запись задачи с её id. Время эпика вычисляется по подзадачам и не хранится.
+    public void write(Task task, TaskType type) {
+        int id = task.getId();
+        long startNanos = 0;
+        long durationNanos = 0;
+        byte flags = 0;
+        if (type != TaskType.EPIC && task.getStartTime() != null) {
+            startNanos = toNanos(task.getStartTime());
+            flags |= HAS_START;
+        }
+        if (type != TaskType.EPIC && task.getDuration() != null) {
+            durationNanos = toNanos(task.getDuration());
+            flags |= HAS_DURATION;
+        }
+
+        int slot = slotOf(id);
+        boolean live = slot != 0;
+        if (!live) {
+            slot = allocateSlot();
+            indexSlot(id, slot);
+        }
+
+        MappedByteBuffer segment = recordSegment(slot);
+        int offset = recordOffset(slot);
+        writeString(segment, offset + NAME_OFFSET, offset + NAME_LENGTH, task.getName(), live);
+        writeString(segment, offset + DESCRIPTION_OFFSET, offset + DESCRIPTION_LENGTH, task.getDescription(), live);
+        segment.put(offset + TYPE, (byte) type.ordinal());
+        segment.put(offset + STATUS, task.getTaskStatus() == null ? 0 : (byte) (task.getTaskStatus().ordinal() + 1));
+        segment.put(offset + FLAGS, flags);
+        segment.putInt(offset + ID, id);
+        segment.putInt(offset + EPIC_ID, task instanceof Subtask ? ((Subtask) task).getEpicId() : 0);
+        segment.putLong(offset + START, startNanos);
+        segment.putLong(offset + DURATION, durationNanos);
+        segment.put(offset + STATE, STATE_LIVE);
+    }
+
+    // Название и описание эпика меняются без перезаписи остальных полей.
+    public void writeText(int id, String name, String description) {
+        int slot = liveSlotOf(id);
+        MappedByteBuffer segment = recordSegment(slot);
+        int offset = recordOffset(slot);
+        writeString(segment, offset + NAME_OFFSET, offset + NAME_LENGTH, name, true);
+        writeString(segment, offset + DESCRIPTION_OFFSET, offset + DESCRIPTION_LENGTH, description, true);
+    }
+
+    public boolean remove(int id) {
+        int slot = slotOf(id);
+        if (slot == 0) {
+            return false;
+        }
+
+        MappedByteBuffer segment = recordSegment(slot);
+        int offset = recordOffset(slot);
+        liveStringBytes -= stringBytes(segment, offset);
+        segment.put(offset + STATE, STATE_FREE);
+        slotsById[id] = 0;
+        pushFreeSlot(slot);
+        size--;
+        removeCount++;
+        return true;
+    }
+
+    public void force() {
+        forceRecords();
+        for (MappedByteBuffer segment : stringSegments) {
+            segment.force();
+        }
+    }
+
+    private void forceRecords() {
+        for (MappedByteBuffer segment : recordSegments) {
+            segment.force();
+        }
+    }
+
+    // Отображение освобождается сборщиком мусора: стандартного способа снять его явно нет.
+    @Override
+    public void close() throws IOException {
+        force();
+        recordSegments.clear();
+        stringSegments.clear();
+        try {
+            records.close();
+        } finally {
+            strings.close();
+        }
+    }
+
+    // Время задачи хранится в наносекундах от 1970-01-01T00:00, что покрывает годы с 1678 по 2261.
+    public static long toNanos(LocalDateTime dateTime) {
+        try {
+            return Math.addExact(Math.multiplyExact(dateTime.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND), dateTime.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Время задачи вне поддерживаемого хранилищем диапазона: " + dateTime);
+        }
+    }
+
+    public static long toNanos(Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Продолжительность задачи вне поддерживаемого хранилищем диапазона: " + duration);
+        }
+    }
+
+    public static LocalDateTime fromNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    private int slotOf(int id) {
+        return id > 0 && id < slotsById.length ? slotsById[id] : 0;
+    }
+
+    // Нулевая запись - заголовок, поэтому поля неизвестной задачи не читаются.
+    private int liveSlotOf(int id) {
+        int slot = slotOf(id);
+        if (slot == 0) {
+            throw new IllegalArgumentException("Задачи с id " + id + " нет в хранилище.");
+        }
+        return slot;
+    }
+
+    private void indexSlot(int id, int slot) {
+        if (id >= slotsById.length) {
+            slotsById = Arrays.copyOf(slotsById, Math.max(id + 1, slotsById.length * 2));
+        }
+        slotsById[id] = slot;
+        size++;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+
+        int slot = ++recordCount;
+        recordSegment(slot);
+        recordSegments.get(0).putInt(HEADER_RECORD_COUNT, recordCount);
+        return slot;
+    }
+
+    private void pushFreeSlot(int slot) {
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private static int recordOffset(int slot) {
+        return (int) ((long) slot * RECORD_SIZE % SEGMENT_SIZE);
+    }
+
+    private MappedByteBuffer recordSegment(int slot) {
+        return segment(records, recordSegments, (int) ((long) slot * RECORD_SIZE / SEGMENT_SIZE));
+    }
+
+    private static MappedByteBuffer segment(FileChannel channel, List<MappedByteBuffer> segments, int index) {
+        try {
+            while (segments.size() <= index) {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка отображения файла хранилища задач.", e);
+        }
+        return segments.get(index);
+    }
+
+    // Строка дописывается в конец области строк, в записи остаются её смещение и длина (-1 для null).
+    // Если в живой записи уже лежат те же байты, прежнее смещение остаётся.
+    private void writeString(MappedByteBuffer record, int offsetField, int lengthField, String value, boolean live) {
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        if (live && bytes != null && record.getInt(lengthField) == bytes.length
+                && Arrays.equals(readBytes(record.getLong(offsetField), bytes.length), bytes)) {
+            return;
+        }
+        if (live) {
+            liveStringBytes -= Math.max(record.getInt(lengthField), 0);
+        }
+        if (bytes == null) {
+            record.putLong(offsetField, 0);
+            record.putInt(lengthField, -1);
+            return;
+        }
+
+        long position = stringsEnd;
+        writeBytes(position, bytes);
+        stringsEnd += bytes.length;
+        liveStringBytes += bytes.length;
+        recordSegments.get(0).putLong(HEADER_STRINGS_END, stringsEnd);
+
+        record.putLong(offsetField, position);
+        record.putInt(lengthField, bytes.length);
+    }
+
+    private void writeBytes(long position, byte[] bytes) {
+        int written = 0;
+        while (written < bytes.length) {
+            long current = position + written;
+            MappedByteBuffer segment = segment(strings, stringSegments, (int) (current / SEGMENT_SIZE));
+            int offset = (int) (current % SEGMENT_SIZE);
+            int length = Math.min(bytes.length - written, SEGMENT_SIZE - offset);
+            segment.duplicate().position(offset).put(bytes, written, length);
+            written += length;
+        }
+    }
+
+    private static long stringBytes(MappedByteBuffer record, int offset) {
+        return Math.max(record.getInt(offset + NAME_LENGTH), 0) + Math.max(record.getInt(offset + DESCRIPTION_LENGTH), 0);
+    }
+
+    private String readString(long position, int length) {
+        return length < 0 ? null : new String(readBytes(position, length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(long position, int length) {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            long current = position + read;
+            MappedByteBuffer segment = segment(strings, stringSegments, (int) (current / SEGMENT_SIZE));
+            int offset = (int) (current % SEGMENT_SIZE);
+            int chunk = Math.min(length - read, SEGMENT_SIZE - offset);
+            segment.duplicate().position(offset).get(bytes, read, chunk);
+            read += chunk;
+        }
+        return bytes;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Исходная ошибка открытия важнее.
+            }
+        }
+    }
+}
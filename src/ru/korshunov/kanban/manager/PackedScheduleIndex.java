@@ -0,0 +1,144 @@
+package ru.korshunov.kanban.manager;
+
+import java.util.Arrays;
+
+// Расписание на примитивных массивах: интервалы [start, end) в наносекундах, упорядоченные по началу, а при
+// равенстве - по id, как prioritizedTasks в InMemoryTaskManager. Объекты на интервал не создаются, поэтому
+// индекс пригоден для досок, задачи которых хранятся вне кучи. Вставка и удаление сдвигают хвост массивов.
+public class PackedScheduleIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Пересекается ли [start, end) с интервалом другой задачи. Интервалы ненулевой длины в индексе
+    // не пересекаются между собой, поэтому их концы возрастают вместе с началами и просмотр назад
+    // останавливается на первом таком интервале, не пересекающем [start, end).
+    public boolean isIntersection(long start, long end, int excludedId) {
+        for (int i = lowerBound(end, Integer.MIN_VALUE) - 1; i >= 0; i--) {
+            if (ids[i] == excludedId) {
+                continue;
+            }
+            if (ends[i] > start) {
+                return true;
+            }
+            if (ends[i] > starts[i]) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public void put(int id, long start, long end) {
+        int index = lowerBound(start, id);
+        if (index < size && starts[index] == start && ids[index] == id) {
+            ends[index] = end;
+            return;
+        }
+
+        if (size == ids.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        starts[index] = start;
+        ends[index] = end;
+        ids[index] = id;
+        size++;
+    }
+
+    // Заменяет содержимое индекса count интервалами из массивов, заданными в любом порядке: одна сортировка
+    // вместо count вставок со сдвигом хвоста. Массивы не меняются.
+    public void load(long[] starts, long[] ends, int[] ids, int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        sort(order, new int[count], 0, count, starts, ids);
+
+        int capacity = Math.max(count, INITIAL_CAPACITY);
+        this.starts = new long[capacity];
+        this.ends = new long[capacity];
+        this.ids = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            this.starts[i] = starts[order[i]];
+            this.ends[i] = ends[order[i]];
+            this.ids[i] = ids[order[i]];
+        }
+        size = count;
+    }
+
+    // Сортировка слиянием позиций order[from, to) по паре (start, id) без упаковки в объекты.
+    private static void sort(int[] order, int[] buffer, int from, int to, long[] starts, int[] ids) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        sort(order, buffer, from, middle, starts, ids);
+        sort(order, buffer, middle, to, starts, ids);
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || (left < middle && !isBefore(buffer[right], buffer[left], starts, ids))) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static boolean isBefore(int first, int second, long[] starts, int[] ids) {
+        return starts[first] < starts[second] || (starts[first] == starts[second] && ids[first] < ids[second]);
+    }
+
+    public void remove(int id, long start) {
+        int index = lowerBound(start, id);
+        if (index == size || starts[index] != start || ids[index] != id) {
+            return;
+        }
+
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public long getStart(int index) {
+        return starts[index];
+    }
+
+    // Позиция первого интервала, который не меньше пары (start, id).
+    public int lowerBound(long start, int id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < start || (starts[middle] == start && ids[middle] < id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.task.Task;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Неизменяемый снимок задач в порядке приоритета. Менеджер строит новый снимок только после изменения
+// расписания, поэтому повторное чтение ничего не копирует и не блокирует, а по ссылке на снимок
+// можно кешировать готовые ответы.
+public class PrioritizedView extends AbstractSet<Task> {
+    static final PrioritizedView EMPTY = new PrioritizedView(new Task[0], 0);
+
+    private final Task[] tasks;
+    private final long version;
+
+    PrioritizedView(Collection<Task> prioritizedTasks, long version) {
+        this(prioritizedTasks.toArray(new Task[0]), version);
+    }
+
+    private PrioritizedView(Task[] tasks, long version) {
+        this.tasks = tasks;
+        this.version = version;
+    }
+
+    // Для снимков, которые хранят задачи по-своему и переопределяют get, size и iterator.
+    PrioritizedView(long version) {
+        this(new Task[0], version);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Task get(int index) {
+        return tasks[index];
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < tasks.length;
+            }
+
+            @Override
+            public Task next() {
+                if (index >= tasks.length) {
+                    throw new NoSuchElementException();
+                }
+                return tasks[index++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return tasks.length;
+    }
+}
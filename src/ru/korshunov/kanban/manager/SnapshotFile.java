@@ -0,0 +1,138 @@
+package ru.korshunov.kanban.manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Запись снимка без риска потерять доску: содержимое пишется во временный файл рядом со снимком,
+// сбрасывается на диск и переименованием подменяет снимок, а прежний снимок остаётся предыдущим поколением.
+// В конце файла - строка "#crc32=xxxxxxxx\n" с контрольной суммой всех байтов до неё.
+public class SnapshotFile {
+    private static final String CHECKSUM_PREFIX = "#crc32=";
+    private static final int TRAILER_LENGTH = CHECKSUM_PREFIX.length() + 8 + 1;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    public interface ContentWriter {
+        void write(WritableByteChannel channel) throws IOException;
+    }
+
+    public static Path previousPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".prev");
+    }
+
+    public static boolean exists(Path path) {
+        return Files.exists(path) || Files.exists(previousPath(path));
+    }
+
+    public static boolean isChecksumLine(String line) {
+        return line.startsWith(CHECKSUM_PREFIX);
+    }
+
+    public static void write(Path path, ContentWriter contentWriter) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChecksumChannel checksumChannel = new ChecksumChannel(channel);
+            contentWriter.write(checksumChannel);
+
+            ByteBuffer trailer = ByteBuffer.wrap(trailer(checksumChannel.checksum.getValue()));
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+
+        if (Files.exists(path)) {
+            Files.move(path, previousPath(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path);
+    }
+
+    // Файл без строки контрольной суммы записан до её появления и считается целым.
+    public static boolean verify(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long contentLength = channel.size() - TRAILER_LENGTH;
+            if (contentLength < 0) {
+                return true;
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, contentLength + trailer.position()) < 0) {
+                    return false;
+                }
+            }
+            String trailerLine = new String(trailer.array(), StandardCharsets.US_ASCII);
+            if (!trailerLine.startsWith(CHECKSUM_PREFIX)) {
+                return true;
+            }
+
+            CRC32 checksum = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            long position = 0;
+            while (position < contentLength) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), contentLength - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return false;
+                }
+                buffer.flip();
+                checksum.update(buffer);
+                position += read;
+            }
+
+            return trailerLine.equals(new String(trailer(checksum.getValue()), StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static byte[] trailer(long checksum) {
+        return String.format("%s%08x\n", CHECKSUM_PREFIX, checksum).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void syncDirectory(Path path) {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Не все файловые системы позволяют открыть каталог, переименование тогда остаётся на их совести.
+        }
+    }
+
+    // Считает контрольную сумму проходящих байтов. Закрывается вместе с файлом, а не тем, кто в него пишет.
+    private static class ChecksumChannel implements WritableByteChannel {
+        private final FileChannel channel;
+        private final CRC32 checksum = new CRC32();
+
+        private ChecksumChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            ByteBuffer written = source.duplicate();
+            int bytes = channel.write(source);
+            written.limit(written.position() + bytes);
+            checksum.update(written);
+            return bytes;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
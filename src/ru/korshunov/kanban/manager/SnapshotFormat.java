@@ -0,0 +1,6 @@
+package ru.korshunov.kanban.manager;
+
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
@@ -0,0 +1,179 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.exception.ManagerSaveException;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Фоновая запись снимка: изменения только отмечаются, а снимок пишется одним разом, когда с первого
+// незаписанного изменения прошло maxDelay или их накопилось maxDirtyChanges. Неудачная запись повторяется.
+// После закрытия фонового потока нет, и изменение сразу записывается снимком в вызывающем потоке.
+public class SnapshotWriter implements Closeable {
+    private final Runnable write;
+    private final long maxDelayNanos;
+    private final int maxDirtyChanges;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private final Thread thread;
+
+    private long changeSequence = 0;
+    private long writtenSequence = 0;
+    private long firstDirtyNanos;
+    private boolean flushRequested = false;
+    private boolean closed = false;
+    // Фоновый поток завершился: ни одно изменение больше не будет записано им.
+    private boolean stopped = false;
+    private RuntimeException failure;
+
+    public SnapshotWriter(Runnable write, long maxDelay, TimeUnit unit, int maxDirtyChanges) {
+        if (maxDelay < 0 || maxDirtyChanges < 1) {
+            throw new IllegalArgumentException("Задержка записи не может быть отрицательной, а порог изменений должен быть больше нуля.");
+        }
+
+        this.write = write;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.maxDirtyChanges = maxDirtyChanges;
+
+        thread = new Thread(this::run, "kanban-snapshot-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void markDirty() {
+        long target;
+        lock.lock();
+        try {
+            if (!stopped) {
+                if (changeSequence == writtenSequence) {
+                    firstDirtyNanos = System.nanoTime();
+                }
+                changeSequence++;
+                changed.signal();
+                return;
+            }
+            target = changeSequence;
+        } finally {
+            lock.unlock();
+        }
+
+        // Снимок содержит и изменения, которые фоновый поток не успел записать.
+        write.run();
+        lock.lock();
+        try {
+            writtenSequence = Math.max(writtenSequence, target);
+            failure = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPendingChanges() {
+        lock.lock();
+        try {
+            return changeSequence - writtenSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Возвращается, когда записан снимок со всеми изменениями, отмеченными до вызова.
+    public void flush() {
+        lock.lock();
+        try {
+            long target = changeSequence;
+            while (writtenSequence < target) {
+                if (stopped) {
+                    throw new ManagerSaveException("Ошибка сохранения данных в файл.", failure);
+                }
+                flushRequested = true;
+                changed.signal();
+                written.await();
+                if (writtenSequence < target && failure != null) {
+                    throw new ManagerSaveException("Ошибка сохранения данных в файл.", failure);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Ожидание сохранения данных прервано.", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (getPendingChanges() > 0) {
+            throw new ManagerSaveException("Ошибка сохранения данных в файл.", failure);
+        }
+    }
+
+    private void run() {
+        lock.lock();
+        try {
+            while (true) {
+                while (!closed && changeSequence == writtenSequence) {
+                    changed.await();
+                }
+                if (changeSequence == writtenSequence) {
+                    return;
+                }
+
+                long deadline = firstDirtyNanos + maxDelayNanos;
+                while (!closed && !flushRequested && changeSequence - writtenSequence < maxDirtyChanges) {
+                    long waitNanos = deadline - System.nanoTime();
+                    if (waitNanos <= 0) {
+                        break;
+                    }
+                    changed.awaitNanos(waitNanos);
+                }
+
+                long target = changeSequence;
+                flushRequested = false;
+                RuntimeException error = null;
+                lock.unlock();
+                try {
+                    write.run();
+                } catch (RuntimeException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+
+                failure = error;
+                if (error == null) {
+                    writtenSequence = target;
+                }
+                firstDirtyNanos = System.nanoTime();
+                written.signalAll();
+
+                if (error != null && closed) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+            stopped = true;
+            written.signalAll();
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+
+// id задач по статусу: на каждый статус - битовое множество, поэтому страница с фильтром по статусу
+// перебирает только id с этим статусом, а индекс занимает по биту на id и статус.
+// Методы синхронизированы: ConcurrentTaskManager меняет индекс под разными блокировками.
+public class StatusIndex {
+    private final Map<TaskStatus, BitSet> idsByStatus = new EnumMap<>(TaskStatus.class);
+    // Количество id по статусу, чтобы выбор способа фильтрации не считал биты.
+    private final int[] counts = new int[TaskStatus.values().length];
+
+    public StatusIndex() {
+        for (TaskStatus taskStatus : TaskStatus.values()) {
+            idsByStatus.put(taskStatus, new BitSet());
+        }
+    }
+
+    // Запоминает текущий статус задачи; задача без статуса в индекс не попадает.
+    public synchronized void put(int id, TaskStatus taskStatus) {
+        for (Map.Entry<TaskStatus, BitSet> ids : idsByStatus.entrySet()) {
+            boolean matches = ids.getKey() == taskStatus;
+            if (ids.getValue().get(id) != matches) {
+                ids.getValue().set(id, matches);
+                counts[ids.getKey().ordinal()] += matches ? 1 : -1;
+            }
+        }
+    }
+
+    public synchronized void remove(int id) {
+        for (Map.Entry<TaskStatus, BitSet> ids : idsByStatus.entrySet()) {
+            if (ids.getValue().get(id)) {
+                ids.getValue().clear(id);
+                counts[ids.getKey().ordinal()]--;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (BitSet ids : idsByStatus.values()) {
+            ids.clear();
+        }
+        Arrays.fill(counts, 0);
+    }
+
+    public synchronized int count(TaskStatus taskStatus) {
+        return counts[taskStatus.ordinal()];
+    }
+
+    // Все id в индексе, с любым статусом.
+    public synchronized int size() {
+        int size = 0;
+        for (int count : counts) {
+            size += count;
+        }
+        return size;
+    }
+
+    // Наименьший id не меньше fromId со статусом taskStatus или -1.
+    public synchronized int nextId(TaskStatus taskStatus, int fromId) {
+        return idsByStatus.get(taskStatus).nextSetBit(fromId);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.korshunov.kanban.manager;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+public class TaskJournal implements Closeable {
+    private final Path path;
+    private final int syncBatchSize;
+    private FileChannel channel;
+    private int recordCount = 0;
+    private int unsyncedRecordCount = 0;
+
+    public TaskJournal(Path path, int syncBatchSize) {
+        if (syncBatchSize < 1) {
+            throw new IllegalArgumentException("Размер пакета синхронизации журнала должен быть больше нуля.");
+        }
+
+        this.path = path;
+        this.syncBatchSize = syncBatchSize;
+    }
+
+    public static Path pathFor(Path snapshotPath) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".journal");
+    }
+
+    // Журнал предыдущего поколения снимка: вместе со снимком SnapshotFile.previousPath он даёт текущий снимок.
+    public static Path previousPathFor(Path snapshotPath) {
+        return pathFor(SnapshotFile.previousPath(snapshotPath));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // Повреждённой может быть только последняя запись, не дописанная при аварийном завершении: строка без
+    // завершающего '\n' или запись, которую не удалось применить. Такой хвост отрезается, чтобы следующая
+    // запись журнала начиналась с новой строки, а не склеивалась с ним.
+    public int replay(Consumer<String> consumer) throws IOException {
+        if (Files.notExists(path)) {
+            return 0;
+        }
+
+        int records = 0;
+        long position = 0;
+        long appliedEnd = 0;
+        String failedRecord = null;
+        RuntimeException failure = null;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+            int next;
+            while ((next = input.read()) != -1) {
+                position++;
+                if (next != '\n') {
+                    line.write(next);
+                    continue;
+                }
+
+                String record = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                if (failure != null) {
+                    throw new IOException("Повреждена запись журнала изменений: " + failedRecord, failure);
+                }
+
+                try {
+                    consumer.accept(record);
+                    appliedEnd = position;
+                    records++;
+                } catch (RuntimeException e) {
+                    failedRecord = record;
+                    failure = e;
+                }
+            }
+        }
+
+        if (appliedEnd < position) {
+            try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                fileChannel.truncate(appliedEnd);
+                fileChannel.force(false);
+            }
+        }
+
+        recordCount = records;
+        return records;
+    }
+
+    public void append(String record) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(record + '\n');
+        FileChannel fileChannel = getChannel();
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+
+        recordCount++;
+        unsyncedRecordCount++;
+        if (unsyncedRecordCount >= syncBatchSize) {
+            sync();
+        }
+    }
+
+    public void sync() throws IOException {
+        if (channel != null && unsyncedRecordCount > 0) {
+            channel.force(false);
+        }
+        unsyncedRecordCount = 0;
+    }
+
+    // Вызывается сразу после записи нового снимка: записи журнала уже в нём и переходят к предыдущему
+    // поколению, а новые изменения пишутся в пустой журнал.
+    public void rotate(Path previousPath) throws IOException {
+        close();
+        if (Files.exists(path)) {
+            Files.move(path, previousPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.deleteIfExists(previousPath);
+        }
+        recordCount = 0;
+        unsyncedRecordCount = 0;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            sync();
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package ru.korshunov.kanban.manager;
 
+import ru.korshunov.kanban.manager.event.TaskEventLog;
 import ru.korshunov.kanban.task.Epic;
 import ru.korshunov.kanban.task.Subtask;
 import ru.korshunov.kanban.task.Task;
 
 import java.util.List;
-import java.util.Set;
 
 public interface TaskManager {
     void addTask(Task task);
@@ -22,7 +22,11 @@ public interface TaskManager {
 
     List<Task> getHistory();
 
-    Set<Task> getPrioritizedTasks();
+    long getHistoryVersion();
+
+    PrioritizedView getPrioritizedTasks();
+
+    List<Task> getPrioritizedTasks(TaskQuery query);
 
     Task getTaskOnId(int id);
 
@@ -38,6 +42,12 @@ public interface TaskManager {
 
     List<Subtask> getListOfSubtasks();
 
+    List<Task> getListOfTask(TaskQuery query);
+
+    List<Epic> getListOfEpics(TaskQuery query);
+
+    List<Subtask> getListOfSubtasks(TaskQuery query);
+
     void removeTask(int id);
 
     void removeEpic(int id);
@@ -49,4 +59,12 @@ public interface TaskManager {
     void clearEpics();
 
     void clearSubtasks();
+
+    List<BatchResult> addAll(List<? extends Task> items);
+
+    List<BatchResult> updateAll(List<? extends Task> items);
+
+    List<BatchResult> removeAll(List<Integer> ids);
+
+    TaskEventLog getEventLog();
 }
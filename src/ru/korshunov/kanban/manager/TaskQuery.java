@@ -0,0 +1,219 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.DenseIdMap;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+
+// Страница списка: не больше limit задач после курсора, отфильтрованных по статусу и окну времени начала [from, to).
+// Списки по id продолжаются после afterId, список по времени начала - после пары (afterStartTime, afterId).
+// Фильтры не просматривают всю доску: статус берётся из индекса статусов списка, а окно времени начала
+// задаётся только для списка по времени начала, где оно - диапазон расписания. В списке по времени начала
+// редкий статус тоже выбирается по индексу, а частый - обходом расписания, где страница заполняется быстро.
+// Списку без нужного индекса фильтр не передаётся: выбор страницы отвечает IllegalArgumentException.
+public class TaskQuery {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Comparator<Task> BY_START_TIME = Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId);
+
+    private final int limit;
+    private final Integer afterId;
+    private final LocalDateTime afterStartTime;
+    private final TaskStatus taskStatus;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    public TaskQuery(int limit, Integer afterId, LocalDateTime afterStartTime, TaskStatus taskStatus,
+                     LocalDateTime from, LocalDateTime to) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_LIMIT + ".");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало интервала должно быть раньше его окончания.");
+        }
+
+        this.limit = limit;
+        this.afterId = afterId;
+        this.afterStartTime = afterStartTime;
+        this.taskStatus = taskStatus;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static TaskQuery firstPage(int limit) {
+        return new TaskQuery(limit, null, null, null, null, null);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    public LocalDateTime getAfterStartTime() {
+        return afterStartTime;
+    }
+
+    public TaskStatus getTaskStatus() {
+        return taskStatus;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    // statusIndex - индекс статусов списка или null, если статусы списка не индексируются.
+    <T extends Task> List<T> selectById(NavigableMap<Integer, T> tasksById, StatusIndex statusIndex) {
+        requireIndexedFilters(statusIndex != null);
+        if (taskStatus != null) {
+            return selectByStatus(tasksById::get, statusIndex);
+        }
+        return select((afterId == null ? tasksById : tasksById.tailMap(afterId, false)).values());
+    }
+
+    <T extends Task> List<T> selectById(DenseIdMap<T> tasksById, StatusIndex statusIndex) {
+        requireIndexedFilters(statusIndex != null);
+        if (taskStatus != null) {
+            return selectByStatus(tasksById::get, statusIndex);
+        }
+        return select(afterId == null ? tasksById.values() : tasksById.valuesAfter(afterId));
+    }
+
+    void requireIndexedFilters(boolean statusIndexed) {
+        if (from != null || to != null) {
+            throw new IllegalArgumentException("Окно времени начала задаётся только для списка по времени начала.");
+        }
+        if (taskStatus != null && !statusIndexed) {
+            throw new IllegalArgumentException("Фильтр по статусу для этого списка не поддерживается.");
+        }
+    }
+
+    // Индекс и задачи меняются не атомарно, поэтому статус перепроверяется по самой задаче.
+    <T extends Task> List<T> selectByStatus(IntFunction<T> tasksById, StatusIndex statusIndex) {
+        List<T> page = new ArrayList<>();
+        if (afterId != null && afterId == Integer.MAX_VALUE) {
+            return page;
+        }
+
+        int id = statusIndex.nextId(taskStatus, afterId == null ? 0 : Math.max(0, afterId + 1));
+        while (id >= 0 && page.size() < limit) {
+            T task = tasksById.apply(id);
+            if (task != null && task.getTaskStatus() == taskStatus) {
+                page.add(task);
+            }
+            id = id == Integer.MAX_VALUE ? -1 : statusIndex.nextId(taskStatus, id + 1);
+        }
+
+        return page;
+    }
+
+    private <T extends Task> List<T> select(Iterable<T> candidates) {
+        List<T> page = new ArrayList<>();
+        for (T task : candidates) {
+            page.add(task);
+            if (page.size() == limit) {
+                break;
+            }
+        }
+
+        return page;
+    }
+
+    // Фильтр по статусу выполняется тем способом, что дешевле: обход расписания до заполнения страницы
+    // просматривает около limit * n / c задач, а выбор по индексу статусов - c задач с этим статусом,
+    // где n - все задачи в индексах.
+    boolean prefersStatusIndex(StatusIndex... statusIndexes) {
+        long matching = 0;
+        long total = 0;
+        for (StatusIndex statusIndex : statusIndexes) {
+            matching += statusIndex.count(taskStatus);
+            total += statusIndex.size();
+        }
+        return matching * matching < (long) limit * total;
+    }
+
+    // Множество должно быть упорядочено по времени начала, а при равенстве - по id. tasksById находит задачу
+    // или подзадачу из индексов статусов statusIndexes.
+    List<Task> selectByStartTime(NavigableSet<Task> prioritizedTasks, IntFunction<? extends Task> tasksById,
+                                 StatusIndex... statusIndexes) {
+        if (taskStatus != null && prefersStatusIndex(statusIndexes)) {
+            return selectByStatusAndStartTime(tasksById, statusIndexes);
+        }
+
+        NavigableSet<Task> view = prioritizedTasks;
+        if (afterStartTime != null && (from == null || !afterStartTime.isBefore(from))) {
+            int id = afterId == null ? Integer.MAX_VALUE : afterId;
+            view = view.tailSet(Task.getInstance(id, null, null, null, afterStartTime, null), false);
+        } else if (from != null) {
+            view = view.tailSet(Task.getInstance(Integer.MIN_VALUE, null, null, null, from, null), true);
+        }
+
+        List<Task> page = new ArrayList<>();
+        for (Task task : view) {
+            if (to != null && !task.getStartTime().isBefore(to)) {
+                break;
+            }
+            if (taskStatus == null || task.getTaskStatus() == taskStatus) {
+                page.add(task);
+                if (page.size() == limit) {
+                    break;
+                }
+            }
+        }
+
+        return page;
+    }
+
+    // Задачи со статусом из индекса, у которых время начала после курсора и в окне: первые limit по времени
+    // начала остаются в куче, на вершине которой - самая поздняя из них.
+    private List<Task> selectByStatusAndStartTime(IntFunction<? extends Task> tasksById, StatusIndex... statusIndexes) {
+        PriorityQueue<Task> earliest = new PriorityQueue<>(limit, BY_START_TIME.reversed());
+        for (StatusIndex statusIndex : statusIndexes) {
+            int id = statusIndex.nextId(taskStatus, 0);
+            while (id >= 0) {
+                Task task = tasksById.apply(id);
+                if (task != null && task.getTaskStatus() == taskStatus && task.getStartTime() != null
+                        && isInPage(task.getStartTime(), id)) {
+                    if (earliest.size() < limit) {
+                        earliest.add(task);
+                    } else if (BY_START_TIME.compare(task, earliest.peek()) < 0) {
+                        earliest.poll();
+                        earliest.add(task);
+                    }
+                }
+                id = id == Integer.MAX_VALUE ? -1 : statusIndex.nextId(taskStatus, id + 1);
+            }
+        }
+
+        List<Task> page = new ArrayList<>(earliest);
+        page.sort(BY_START_TIME);
+        return page;
+    }
+
+    // Та же граница, что у обхода расписания: после пары (afterStartTime, afterId) или не раньше from, и раньше to.
+    private boolean isInPage(LocalDateTime startTime, int id) {
+        if (to != null && !startTime.isBefore(to)) {
+            return false;
+        }
+        if (afterStartTime != null && (from == null || !afterStartTime.isBefore(from))) {
+            int order = startTime.compareTo(afterStartTime);
+            return order > 0 || order == 0 && afterId != null && id > afterId;
+        }
+        return from == null || !startTime.isBefore(from);
+    }
+}
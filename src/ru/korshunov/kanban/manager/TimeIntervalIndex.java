@@ -0,0 +1,122 @@
+package ru.korshunov.kanban.manager;
+
+import ru.korshunov.kanban.metrics.LatencyHistogram;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+import ru.korshunov.kanban.task.Task;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+public class TimeIntervalIndex {
+    private static final LatencyHistogram INTERSECTION_LATENCY = MetricsRegistry.getDefault()
+            .histogram("kanban_overlap_check_seconds", "Время проверки пересечения задач по времени.");
+
+    private final NavigableSet<Interval> intervals;
+    private final Map<Integer, Interval> intervalsById;
+
+    public TimeIntervalIndex() {
+        intervals = new TreeSet<>();
+        intervalsById = new HashMap<>();
+    }
+
+    public boolean isIntersection(Task task) {
+        LocalDateTime startTime = task.getStartTime();
+        LocalDateTime endTime = task.getEndTime();
+        if (startTime == null || endTime == null) {
+            return false;
+        }
+
+        return isIntersection(startTime, endTime, task.getId());
+    }
+
+    public boolean isIntersection(LocalDateTime startTime, LocalDateTime endTime, int excludedId) {
+        long startNanos = System.nanoTime();
+        try {
+            return findIntersection(startTime, endTime, excludedId);
+        } finally {
+            INTERSECTION_LATENCY.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    private boolean findIntersection(LocalDateTime startTime, LocalDateTime endTime, int excludedId) {
+        // Интервалы в индексе не пересекаются между собой, поэтому достаточно проверить
+        // первый интервал, начинающийся после startTime, и последний, начинающийся до него.
+        Interval from = new Interval(startTime, startTime, Integer.MAX_VALUE);
+        for (Interval next : intervals.tailSet(from, false)) {
+            if (next.id != excludedId) {
+                if (next.startTime.isBefore(endTime)) {
+                    return true;
+                }
+                break;
+            }
+        }
+
+        Interval to = new Interval(startTime, LocalDateTime.MIN, Integer.MIN_VALUE);
+        Iterator<Interval> iterator = intervals.headSet(to, false).descendingIterator();
+        while (iterator.hasNext()) {
+            Interval prev = iterator.next();
+            if (prev.id != excludedId) {
+                return prev.endTime.isAfter(startTime);
+            }
+        }
+
+        return false;
+    }
+
+    public void put(Task task) {
+        remove(task.getId());
+
+        LocalDateTime startTime = task.getStartTime();
+        LocalDateTime endTime = task.getEndTime();
+        if (startTime != null && endTime != null) {
+            Interval interval = new Interval(startTime, endTime, task.getId());
+            intervals.add(interval);
+            intervalsById.put(task.getId(), interval);
+        }
+    }
+
+    public void remove(int id) {
+        Interval interval = intervalsById.remove(id);
+        if (interval != null) {
+            intervals.remove(interval);
+        }
+    }
+
+    public void clear() {
+        intervals.clear();
+        intervalsById.clear();
+    }
+
+    public int size() {
+        return intervalsById.size();
+    }
+
+    private static final class Interval implements Comparable<Interval> {
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final int id;
+
+        private Interval(LocalDateTime startTime, LocalDateTime endTime, int id) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            int result = startTime.compareTo(other.startTime);
+            if (result == 0) {
+                result = endTime.compareTo(other.endTime);
+            }
+            if (result == 0) {
+                result = Integer.compare(id, other.id);
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.korshunov.kanban.manager.event;
+
+import ru.korshunov.kanban.manager.TaskType;
+
+// Версия сущности после изменения совпадает с порядковым номером события в журнале.
+public class TaskEvent {
+    private final long sequence;
+    private final TaskEventType type;
+    private final TaskType entityType;
+    private final int id;
+    private final long version;
+
+    public TaskEvent(long sequence, TaskEventType type, TaskType entityType, int id) {
+        this.sequence = sequence;
+        this.type = type;
+        this.entityType = entityType;
+        this.id = id;
+        this.version = sequence;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public TaskEventType getType() {
+        return type;
+    }
+
+    public TaskType getEntityType() {
+        return entityType;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", entityType=" + entityType +
+                ", id=" + id +
+                '}';
+    }
+}
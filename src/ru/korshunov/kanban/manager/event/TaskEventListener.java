@@ -0,0 +1,5 @@
+package ru.korshunov.kanban.manager.event;
+
+public interface TaskEventListener {
+    void onEvent(TaskEvent event);
+}
@@ -0,0 +1,153 @@
+package ru.korshunov.kanban.manager.event;
+
+import ru.korshunov.kanban.manager.TaskType;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Кольцевой буфер последних событий. Изменение никогда не ждёт потребителей: каждый читает буфер
+// со своего номера, а отставший больше чем на ёмкость буфера узнаёт о потере событий и перечитывает данные.
+public class TaskEventLog {
+    public static final int DEFAULT_CAPACITY = 4096;
+    // Версии сущностей хранятся массивом по id только для id меньше этого предела, чтобы одно событие
+    // о сущности с большим id не выделяло массив под все меньшие id.
+    private static final int MAX_TRACKED_ID = 1 << 20;
+    private static final LongAdder LISTENER_FAILURES = MetricsRegistry.getDefault()
+            .counter("kanban_event_listener_failures_total", "Исключения, брошенные слушателями событий.");
+
+    private final TaskEvent[] events;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final List<TaskEventListener> listeners = new CopyOnWriteArrayList<>();
+    private long lastSequence = 0;
+    // Версия коллекции и сущности - номер последнего события о ней, 0 - изменений ещё не было.
+    private final long[] typeVersions = new long[TaskType.values().length];
+    private long[] entityVersions = new long[16];
+
+    public TaskEventLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TaskEventLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость журнала событий должна быть больше нуля.");
+        }
+
+        events = new TaskEvent[capacity];
+    }
+
+    // Слушатели вызываются в потоке, изменившем задачу, и не должны блокироваться. Изменение к этому
+    // моменту уже сделано, поэтому исключение слушателя не прерывает его: оно считается
+    // в kanban_event_listener_failures_total, а событие получают остальные слушатели.
+    public void addListener(TaskEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TaskEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public TaskEvent publish(TaskEventType type, TaskType entityType, int id) {
+        TaskEvent event;
+        lock.lock();
+        try {
+            lastSequence++;
+            event = new TaskEvent(lastSequence, type, entityType, id);
+            events[(int) (lastSequence % events.length)] = event;
+            typeVersions[entityType.ordinal()] = lastSequence;
+            if (id >= 0 && id < MAX_TRACKED_ID) {
+                if (id >= entityVersions.length) {
+                    entityVersions = Arrays.copyOf(entityVersions, Math.min(Math.max(id + 1, entityVersions.length * 2), MAX_TRACKED_ID));
+                }
+                entityVersions[id] = lastSequence;
+            }
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (TaskEventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                LISTENER_FAILURES.increment();
+            }
+        }
+        return event;
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getVersion(TaskType entityType) {
+        lock.lock();
+        try {
+            return typeVersions[entityType.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Для id за пределом MAX_TRACKED_ID версией служит номер последнего события: она меняется чаще,
+    // чем сама сущность, но никогда не остаётся прежней после её изменения.
+    public long getVersion(int id) {
+        lock.lock();
+        try {
+            if (id < 0 || id >= MAX_TRACKED_ID) {
+                return lastSequence;
+            }
+            return id < entityVersions.length ? entityVersions[id] : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Возвращает null, если события после sequence уже вытеснены из буфера или номер из будущего.
+    public List<TaskEvent> readAfter(long sequence, int max) {
+        lock.lock();
+        try {
+            return read(sequence, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<TaskEvent> awaitAfter(long sequence, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = unit.toNanos(timeout);
+            while (lastSequence == sequence && nanos > 0) {
+                nanos = published.awaitNanos(nanos);
+            }
+            return read(sequence, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<TaskEvent> read(long sequence, int max) {
+        if (sequence > lastSequence || sequence < lastSequence - events.length) {
+            return null;
+        }
+
+        int count = (int) Math.min(max, lastSequence - sequence);
+        List<TaskEvent> result = new ArrayList<>(count);
+        for (long next = sequence + 1; next <= sequence + count; next++) {
+            result.add(events[(int) (next % events.length)]);
+        }
+        return result;
+    }
+}
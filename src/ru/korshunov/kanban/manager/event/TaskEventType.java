@@ -0,0 +1,7 @@
+package ru.korshunov.kanban.manager.event;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    REMOVED
+}
@@ -0,0 +1,93 @@
+package ru.korshunov.kanban.manager.history;
+
+import ru.korshunov.kanban.task.Task;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Просмотры сначала попадают в неблокирующий буфер, а в историю их переносит тот поток,
+// которому удалось взять блокировку без ожидания. Чтение истории и удаление сначала разбирают буфер.
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int MAX_PENDING = 1024;
+
+    private final InMemoryHistoryManager history;
+    private final Queue<Task> accessBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ConcurrentHistoryManager(int maxSize) {
+        history = new InMemoryHistoryManager(maxSize);
+    }
+
+    @Override
+    public void add(Task task) {
+        accessBuffer.offer(task);
+        version.incrementAndGet();
+
+        // Переполненный буфер разбирается с ожиданием блокировки, чтобы он не рос без ограничения.
+        if (pending.incrementAndGet() >= MAX_PENDING) {
+            lock.lock();
+        } else if (!lock.tryLock()) {
+            return;
+        }
+
+        try {
+            drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.lock();
+        try {
+            drain();
+            history.remove(id);
+            version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        lock.lock();
+        try {
+            drain();
+            return history.getHistory();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Отложенные просмотры учитываются сразу, а не после разбора буфера.
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            drain();
+            return history.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        Task task;
+        while ((task = accessBuffer.poll()) != null) {
+            pending.decrementAndGet();
+            history.add(task);
+        }
+    }
+}
@@ -10,4 +10,9 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Растёт при каждом изменении истории.
+    long getVersion();
+
+    int size();
 }
@@ -1,5 +1,6 @@
 package ru.korshunov.kanban.manager.history;
 
+import ru.korshunov.kanban.DenseIdMap;
 import ru.korshunov.kanban.Node;
 import ru.korshunov.kanban.task.Task;
 
@@ -9,14 +10,27 @@ public class InMemoryHistoryManager implements HistoryManager {
     private Node<Task> head;
     private Node<Task> tail;
     private int size = 0;
-    private final Map<Integer, Node<Task>> nodes;
+    private long version = 0;
+    private final int maxSize;
+    private final DenseIdMap<Node<Task>> nodes;
 
     public InMemoryHistoryManager() {
-        nodes = new HashMap<>();
+        this(Integer.MAX_VALUE);
+    }
+
+    // При превышении maxSize вытесняется задача, просмотренная раньше всех.
+    public InMemoryHistoryManager(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Размер истории должен быть больше нуля.");
+        }
+
+        this.maxSize = maxSize;
+        nodes = new DenseIdMap<>();
     }
 
     @Override
     public void add(Task task) {
+        version++;
         if (nodes.containsKey(task.getId())) {
             removeNode(nodes.get(task.getId()));
         }
@@ -65,12 +79,17 @@ public class InMemoryHistoryManager implements HistoryManager {
 
         nodes.put(element.getId(), newNode);
         size++;
+
+        if (size > maxSize) {
+            removeNode(head);
+        }
     }
 
     @Override
     public void remove(int id) {
         if (nodes.containsKey(id)) {
             removeNode(nodes.get(id));
+            version++;
         }
     }
 
@@ -79,6 +98,16 @@ public class InMemoryHistoryManager implements HistoryManager {
         return getTasks();
     }
 
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
     private List<Task> getTasks() {
         List<Task> tasks = new ArrayList<>();
         Node<Task> node = head;
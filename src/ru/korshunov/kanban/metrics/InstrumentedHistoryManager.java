@@ -0,0 +1,64 @@
+package ru.korshunov.kanban.metrics;
+
+import ru.korshunov.kanban.manager.history.HistoryManager;
+import ru.korshunov.kanban.task.Task;
+
+import java.util.List;
+
+public class InstrumentedHistoryManager implements HistoryManager {
+    private static final String NAME = "kanban_history_operation_seconds";
+    private static final String HELP = "Время операций истории просмотров.";
+
+    private final HistoryManager historyManager;
+    private final LatencyHistogram addLatency;
+    private final LatencyHistogram removeLatency;
+    private final LatencyHistogram getHistoryLatency;
+
+    public InstrumentedHistoryManager(HistoryManager historyManager, MetricsRegistry registry) {
+        this.historyManager = historyManager;
+        addLatency = registry.histogram(NAME, HELP, "operation", "add");
+        removeLatency = registry.histogram(NAME, HELP, "operation", "remove");
+        getHistoryLatency = registry.histogram(NAME, HELP, "operation", "getHistory");
+        registry.gauge("kanban_history_size", "Количество задач в истории просмотров.", historyManager::size);
+    }
+
+    @Override
+    public void add(Task task) {
+        long startNanos = System.nanoTime();
+        try {
+            historyManager.add(task);
+        } finally {
+            addLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            historyManager.remove(id);
+        } finally {
+            removeLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long startNanos = System.nanoTime();
+        try {
+            return historyManager.getHistory();
+        } finally {
+            getHistoryLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return historyManager.getVersion();
+    }
+
+    @Override
+    public int size() {
+        return historyManager.size();
+    }
+}
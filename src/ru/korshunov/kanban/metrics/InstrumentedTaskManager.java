@@ -0,0 +1,375 @@
+package ru.korshunov.kanban.metrics;
+
+import ru.korshunov.kanban.manager.BatchResult;
+import ru.korshunov.kanban.manager.PrioritizedView;
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.manager.TaskQuery;
+import ru.korshunov.kanban.manager.event.TaskEventLog;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+
+import java.util.List;
+
+// Обёртка менеджера, которая замеряет время каждой операции. Гистограммы берутся из реестра один раз,
+// поэтому на вызов приходятся только два чтения System.nanoTime и запись в гистограмму.
+public class InstrumentedTaskManager implements TaskManager {
+    private static final String NAME = "kanban_operation_seconds";
+    private static final String HELP = "Время операций менеджера задач.";
+
+    private final TaskManager taskManager;
+    private final LatencyHistogram addTaskLatency;
+    private final LatencyHistogram addEpicLatency;
+    private final LatencyHistogram addSubtaskLatency;
+    private final LatencyHistogram updateTaskLatency;
+    private final LatencyHistogram updateEpicLatency;
+    private final LatencyHistogram updateSubtaskLatency;
+    private final LatencyHistogram getHistoryLatency;
+    private final LatencyHistogram getPrioritizedTasksLatency;
+    private final LatencyHistogram getPrioritizedTasksByQueryLatency;
+    private final LatencyHistogram getTaskOnIdLatency;
+    private final LatencyHistogram getEpicOnIdLatency;
+    private final LatencyHistogram getSubtaskOnEpicLatency;
+    private final LatencyHistogram getSubtaskOnIdLatency;
+    private final LatencyHistogram getListOfTaskLatency;
+    private final LatencyHistogram getListOfEpicsLatency;
+    private final LatencyHistogram getListOfSubtasksLatency;
+    private final LatencyHistogram getListOfTaskByQueryLatency;
+    private final LatencyHistogram getListOfEpicsByQueryLatency;
+    private final LatencyHistogram getListOfSubtasksByQueryLatency;
+    private final LatencyHistogram removeTaskLatency;
+    private final LatencyHistogram removeEpicLatency;
+    private final LatencyHistogram removeSubtaskLatency;
+    private final LatencyHistogram clearTasksLatency;
+    private final LatencyHistogram clearEpicsLatency;
+    private final LatencyHistogram clearSubtasksLatency;
+    private final LatencyHistogram addAllLatency;
+    private final LatencyHistogram updateAllLatency;
+    private final LatencyHistogram removeAllLatency;
+
+    public InstrumentedTaskManager(TaskManager taskManager, MetricsRegistry registry) {
+        this.taskManager = taskManager;
+        addTaskLatency = histogram(registry, "addTask");
+        addEpicLatency = histogram(registry, "addEpic");
+        addSubtaskLatency = histogram(registry, "addSubtask");
+        updateTaskLatency = histogram(registry, "updateTask");
+        updateEpicLatency = histogram(registry, "updateEpic");
+        updateSubtaskLatency = histogram(registry, "updateSubtask");
+        getHistoryLatency = histogram(registry, "getHistory");
+        getPrioritizedTasksLatency = histogram(registry, "getPrioritizedTasks");
+        getPrioritizedTasksByQueryLatency = histogram(registry, "getPrioritizedTasksByQuery");
+        getTaskOnIdLatency = histogram(registry, "getTaskOnId");
+        getEpicOnIdLatency = histogram(registry, "getEpicOnId");
+        getSubtaskOnEpicLatency = histogram(registry, "getSubtaskOnEpic");
+        getSubtaskOnIdLatency = histogram(registry, "getSubtaskOnId");
+        getListOfTaskLatency = histogram(registry, "getListOfTask");
+        getListOfEpicsLatency = histogram(registry, "getListOfEpics");
+        getListOfSubtasksLatency = histogram(registry, "getListOfSubtasks");
+        getListOfTaskByQueryLatency = histogram(registry, "getListOfTaskByQuery");
+        getListOfEpicsByQueryLatency = histogram(registry, "getListOfEpicsByQuery");
+        getListOfSubtasksByQueryLatency = histogram(registry, "getListOfSubtasksByQuery");
+        removeTaskLatency = histogram(registry, "removeTask");
+        removeEpicLatency = histogram(registry, "removeEpic");
+        removeSubtaskLatency = histogram(registry, "removeSubtask");
+        clearTasksLatency = histogram(registry, "clearTasks");
+        clearEpicsLatency = histogram(registry, "clearEpics");
+        clearSubtasksLatency = histogram(registry, "clearSubtasks");
+        addAllLatency = histogram(registry, "addAll");
+        updateAllLatency = histogram(registry, "updateAll");
+        removeAllLatency = histogram(registry, "removeAll");
+    }
+
+    private static LatencyHistogram histogram(MetricsRegistry registry, String operation) {
+        return registry.histogram(NAME, HELP, "operation", operation);
+    }
+
+    @Override
+    public void addTask(Task task) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.addTask(task);
+        } finally {
+            addTaskLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.addEpic(epic);
+        } finally {
+            addEpicLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.addSubtask(subtask);
+        } finally {
+            addSubtaskLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.updateTask(task);
+        } finally {
+            updateTaskLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.updateEpic(epic);
+        } finally {
+            updateEpicLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.updateSubtask(subtask);
+        } finally {
+            updateSubtaskLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getHistory();
+        } finally {
+            getHistoryLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public PrioritizedView getPrioritizedTasks() {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getPrioritizedTasks();
+        } finally {
+            getPrioritizedTasksLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(TaskQuery query) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getPrioritizedTasks(query);
+        } finally {
+            getPrioritizedTasksByQueryLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public Task getTaskOnId(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getTaskOnId(id);
+        } finally {
+            getTaskOnIdLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public Epic getEpicOnId(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getEpicOnId(id);
+        } finally {
+            getEpicOnIdLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtaskOnEpic(int epicId) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getSubtaskOnEpic(epicId);
+        } finally {
+            getSubtaskOnEpicLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public Subtask getSubtaskOnId(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getSubtaskOnId(id);
+        } finally {
+            getSubtaskOnIdLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getListOfTask() {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getListOfTask();
+        } finally {
+            getListOfTaskLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Epic> getListOfEpics() {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getListOfEpics();
+        } finally {
+            getListOfEpicsLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Subtask> getListOfSubtasks() {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getListOfSubtasks();
+        } finally {
+            getListOfSubtasksLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getListOfTask(TaskQuery query) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getListOfTask(query);
+        } finally {
+            getListOfTaskByQueryLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Epic> getListOfEpics(TaskQuery query) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getListOfEpics(query);
+        } finally {
+            getListOfEpicsByQueryLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<Subtask> getListOfSubtasks(TaskQuery query) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.getListOfSubtasks(query);
+        } finally {
+            getListOfSubtasksByQueryLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void removeTask(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.removeTask(id);
+        } finally {
+            removeTaskLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void removeEpic(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.removeEpic(id);
+        } finally {
+            removeEpicLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void removeSubtask(int id) {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.removeSubtask(id);
+        } finally {
+            removeSubtaskLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void clearTasks() {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.clearTasks();
+        } finally {
+            clearTasksLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void clearEpics() {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.clearEpics();
+        } finally {
+            clearEpicsLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        long startNanos = System.nanoTime();
+        try {
+            taskManager.clearSubtasks();
+        } finally {
+            clearSubtasksLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<BatchResult> addAll(List<? extends Task> items) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.addAll(items);
+        } finally {
+            addAllLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<BatchResult> updateAll(List<? extends Task> items) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.updateAll(items);
+        } finally {
+            updateAllLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public List<BatchResult> removeAll(List<Integer> ids) {
+        long startNanos = System.nanoTime();
+        try {
+            return taskManager.removeAll(ids);
+        } finally {
+            removeAllLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return taskManager.getHistoryVersion();
+    }
+
+    @Override
+    public TaskEventLog getEventLog() {
+        return taskManager.getEventLog();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.korshunov.kanban.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+// Метрики реестра как атрибуты MBean только для чтения. Имена атрибутов совпадают с именами отсчётов
+// в /metrics, а их набор вычисляется при каждом запросе, поэтому видны и метрики, появившиеся позже.
+public class MetricsJmx implements DynamicMBean {
+    public static final String OBJECT_NAME = "ru.korshunov.kanban:type=Metrics";
+
+    private final MetricsRegistry registry;
+
+    public MetricsJmx(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Повторная регистрация, например при перезапуске сервера в том же процессе, ничего не делает.
+    public static void register(MetricsRegistry registry) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsJmx(registry), name);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // Зарегистрирован другим потоком.
+        } catch (JMException e) {
+            throw new IllegalStateException("Ошибка регистрации MBean метрик.", e);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = registry.getSamples().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("Метрика не найдена: " + attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Метрики доступны только для чтения: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> samples = registry.getSamples();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Number value = samples.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Операции не поддерживаются: " + actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Number> samples = registry.getSamples();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[samples.size()];
+        int i = 0;
+        for (Map.Entry<String, Number> sample : samples.entrySet()) {
+            attributes[i++] = new MBeanAttributeInfo(sample.getKey(), sample.getValue().getClass().getName(),
+                    sample.getKey(), true, false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "Метрики Kanban", attributes, null, null, null);
+    }
+}
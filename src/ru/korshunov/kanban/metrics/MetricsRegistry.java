@@ -0,0 +1,166 @@
+package ru.korshunov.kanban.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Именованные метрики приложения. Счётчики и гистограммы создаются один раз при построении компонента,
+// а на горячем пути только обновляются. Выводятся в текстовом формате Prometheus и через JMX.
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 1.0};
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    // Метки передаются парами имя, значение. Повторный вызов с теми же именем и метками возвращает ту же метрику.
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, MetricType.SUMMARY)
+                .series.computeIfAbsent(formatLabels(labels), key -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, MetricType.COUNTER)
+                .series.computeIfAbsent(formatLabels(labels), key -> new LongAdder());
+    }
+
+    // Значение вычисляется при каждом чтении метрик. Новая регистрация заменяет прежнюю.
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, MetricType.GAUGE).series.put(formatLabels(labels), value);
+    }
+
+    // Снимает показатель, только если он всё ещё зарегистрирован этим value, а не заменён более новым.
+    public void removeGauge(String name, LongSupplier value, String... labels) {
+        Family family = families.get(name);
+        if (family != null && family.type == MetricType.GAUGE) {
+            family.series.remove(formatLabels(labels), value);
+        }
+    }
+
+    // Значения всех метрик по именам отсчётов в формате Prometheus, например kanban_http_requests_total{code="2xx"}.
+    public Map<String, Number> getSamples() {
+        Map<String, Number> samples = new LinkedHashMap<>();
+        for (Family family : families.values()) {
+            family.collect(samples);
+        }
+        return samples;
+    }
+
+    public String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        Map<String, Number> samples = new LinkedHashMap<>();
+        for (Family family : families.values()) {
+            samples.clear();
+            family.collect(samples);
+            text.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            text.append("# TYPE ").append(family.name).append(' ').append(family.type.prometheusName).append('\n');
+            for (Map.Entry<String, Number> sample : samples.entrySet()) {
+                text.append(sample.getKey()).append(' ').append(sample.getValue()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private Family family(String name, String help, MetricType type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Метрика " + name + " уже зарегистрирована с типом " + family.type + ".");
+        }
+        return family;
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Метки метрики должны передаваться парами имя, значение.");
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            for (char c : labels[i + 1].toCharArray()) {
+                if (c == '\\' || c == '"') {
+                    text.append('\\').append(c);
+                } else if (c == '\n') {
+                    text.append("\\n");
+                } else {
+                    text.append(c);
+                }
+            }
+            text.append('"');
+        }
+        return text.toString();
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String sampleName(String name, String labels, String extraLabel) {
+        if (labels.isEmpty() && extraLabel.isEmpty()) {
+            return name;
+        }
+        if (labels.isEmpty() || extraLabel.isEmpty()) {
+            return name + '{' + labels + extraLabel + '}';
+        }
+        return name + '{' + labels + ',' + extraLabel + '}';
+    }
+
+    private enum MetricType {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        SUMMARY("summary");
+
+        private final String prometheusName;
+
+        MetricType(String prometheusName) {
+            this.prometheusName = prometheusName;
+        }
+    }
+
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final MetricType type;
+        private final ConcurrentMap<String, Object> series = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, MetricType type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        // Задержки пишутся в секундах, как принято в Prometheus; квантиль 1 — наибольшее значение.
+        private void collect(Map<String, Number> samples) {
+            for (Map.Entry<String, Object> entry : series.entrySet()) {
+                String labels = entry.getKey();
+                switch (type) {
+                    case COUNTER:
+                        samples.put(sampleName(name, labels, ""), ((LongAdder) entry.getValue()).sum());
+                        break;
+                    case GAUGE:
+                        samples.put(sampleName(name, labels, ""), ((LongSupplier) entry.getValue()).getAsLong());
+                        break;
+                    case SUMMARY:
+                        LatencyHistogram histogram = (LatencyHistogram) entry.getValue();
+                        for (double quantile : QUANTILES) {
+                            samples.put(sampleName(name, labels, "quantile=\"" + quantile + '"'),
+                                    histogram.getValueAtQuantile(quantile) / NANOS_PER_SECOND);
+                        }
+                        samples.put(sampleName(name + "_sum", labels, ""), histogram.getTotalNanos() / NANOS_PER_SECOND);
+                        samples.put(sampleName(name + "_count", labels, ""), histogram.getCount());
+                        break;
+                }
+            }
+        }
+    }
+}
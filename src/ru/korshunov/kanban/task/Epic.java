@@ -3,58 +3,226 @@ package ru.korshunov.kanban.task;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 public class Epic extends Task {
-    private List<Subtask> subtasks;
-    private LocalDateTime endTime;
+    // Подзадачи по номеру добавления: порядок списка не меняется при удалении, а удаление стоит O(log n).
+    // Эпик меняется под внешней блокировкой, а список и aggregates можно читать без неё.
+    private final NavigableMap<Long, Subtask> subtasks = new ConcurrentSkipListMap<>();
+    private transient volatile Aggregates aggregates;
+    private final transient Map<Integer, SubtaskState> subtaskStates = new HashMap<>();
+    private transient long nextPosition;
+    private final transient int[] statusCounters = new int[TaskStatus.values().length];
+    private transient Duration totalDuration;
+    private final transient TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final transient TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
 
     public Epic(String name, String description) {
         super(name, description, TaskStatus.NEW, null, Duration.ZERO);
 
-        subtasks = new ArrayList<>();
+        aggregates = new Aggregates(TaskStatus.NEW, null, null, Duration.ZERO);
+        initSubtasks();
     }
 
     public Epic(Epic epic) {
         super(epic.getName(), epic.getDescription(), epic.getId(), epic.getTaskStatus(), epic.getStartTime(), epic.getDuration());
 
-        subtasks = epic.getListOfSubtasks();
+        aggregates = new Aggregates(epic.getTaskStatus(), epic.getStartTime(), epic.getEndTime(), epic.getDuration());
+        initSubtasks();
+        for (Subtask subtask : epic.getListOfSubtasks()) {
+            addSubtask(subtask);
+        }
     }
 
     protected Epic(String name, String description, int id, TaskStatus taskStatus) {
         super(name, description, id, taskStatus, null, Duration.ZERO);
 
-        subtasks = new ArrayList<>();
+        aggregates = new Aggregates(taskStatus, null, null, Duration.ZERO);
+        initSubtasks();
+    }
+
+    private Epic() {
+        this("", "");
     }
 
     public static Epic getInstance(int id, String name, TaskStatus taskStatus, String description) {
         return new Epic(name, description, id, taskStatus);
     }
 
+    private void initSubtasks() {
+        subtasks.clear();
+        subtaskStates.clear();
+        nextPosition = 0;
+        Arrays.fill(statusCounters, 0);
+        totalDuration = Duration.ZERO;
+        startTimes.clear();
+        endTimes.clear();
+    }
+
+    // Повторное добавление подзадачи с тем же id заменяет её, не меняя порядок в списке.
     public void addSubtask(Subtask subtask) {
-        subtasks.add(subtask);
+        SubtaskState previous = subtaskStates.get(subtask.getId());
+        SubtaskState state;
+        if (previous != null) {
+            unregister(previous);
+            state = new SubtaskState(previous.position, subtask);
+        } else {
+            state = new SubtaskState(nextPosition++, subtask);
+        }
+
+        subtasks.put(state.position, subtask);
+        subtaskStates.put(subtask.getId(), state);
+        register(state);
+        updateAggregates();
     }
 
     public void removeSubtask(Subtask subtask) {
-        if (subtask != null) {
-            subtasks.remove(subtask);
+        if (subtask == null) {
+            return;
+        }
+
+        SubtaskState state = subtaskStates.remove(subtask.getId());
+        if (state == null) {
+            return;
         }
+
+        subtasks.remove(state.position);
+        unregister(state);
+        updateAggregates();
     }
 
     public void clearSubtask() {
-        subtasks.clear();
+        initSubtasks();
+        updateAggregates();
     }
 
     public List<Subtask> getListOfSubtasks() {
-        return new ArrayList<>(subtasks);
+        return new ArrayList<>(subtasks.values());
+    }
+
+    public int getNumberOfSubtasks() {
+        return subtaskStates.size();
+    }
+
+    private void register(SubtaskState state) {
+        if (state.taskStatus != null) {
+            statusCounters[state.taskStatus.ordinal()]++;
+        }
+        if (state.duration != null) {
+            totalDuration = totalDuration.plus(state.duration);
+        }
+        if (state.startTime != null) {
+            startTimes.merge(state.startTime, 1, Integer::sum);
+            endTimes.merge(state.endTime, 1, Integer::sum);
+        }
+    }
+
+    private void unregister(SubtaskState state) {
+        if (state.taskStatus != null) {
+            statusCounters[state.taskStatus.ordinal()]--;
+        }
+        if (state.duration != null) {
+            totalDuration = totalDuration.minus(state.duration);
+        }
+        if (state.startTime != null) {
+            startTimes.computeIfPresent(state.startTime, (time, count) -> count == 1 ? null : count - 1);
+            endTimes.computeIfPresent(state.endTime, (time, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private void updateAggregates() {
+        int numberOfSubtasks = subtaskStates.size();
+        TaskStatus status;
+        if (numberOfSubtasks == 0 || statusCounters[TaskStatus.NEW.ordinal()] == numberOfSubtasks) {
+            status = TaskStatus.NEW;
+        } else if (statusCounters[TaskStatus.DONE.ordinal()] == numberOfSubtasks) {
+            status = TaskStatus.DONE;
+        } else {
+            status = TaskStatus.IN_PROGRESS;
+        }
+
+        aggregates = new Aggregates(status, startTimes.isEmpty() ? null : startTimes.firstKey(),
+                endTimes.isEmpty() ? null : endTimes.lastKey(), totalDuration);
+    }
+
+    @Override
+    public TaskStatus getTaskStatus() {
+        return aggregates.taskStatus;
+    }
+
+    @Override
+    public void setTaskStatus(TaskStatus taskStatus) {
+        Aggregates current = aggregates;
+        aggregates = new Aggregates(taskStatus, current.startTime, current.endTime, current.duration);
+    }
+
+    @Override
+    public LocalDateTime getStartTime() {
+        return aggregates.startTime;
+    }
+
+    @Override
+    public void setStartTime(LocalDateTime startTime) {
+        Aggregates current = aggregates;
+        aggregates = new Aggregates(current.taskStatus, startTime, current.endTime, current.duration);
+    }
+
+    @Override
+    public Duration getDuration() {
+        return aggregates.duration;
+    }
+
+    @Override
+    public void setDuration(Duration duration) {
+        Aggregates current = aggregates;
+        aggregates = new Aggregates(current.taskStatus, current.startTime, current.endTime, duration);
     }
 
     @Override
     public LocalDateTime getEndTime() {
-        return endTime;
+        return aggregates.endTime;
     }
 
     public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+        Aggregates current = aggregates;
+        aggregates = new Aggregates(current.taskStatus, current.startTime, endTime, current.duration);
+    }
+
+    // Статус и время эпика заменяются одним значением, поэтому чтение без блокировки видит их согласованными.
+    private static final class Aggregates {
+        private final TaskStatus taskStatus;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final Duration duration;
+
+        private Aggregates(TaskStatus taskStatus, LocalDateTime startTime, LocalDateTime endTime, Duration duration) {
+            this.taskStatus = taskStatus;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.duration = duration;
+        }
+    }
+
+    // Значения подзадачи на момент добавления: сама подзадача может быть изменена снаружи до обновления.
+    private static final class SubtaskState {
+        private final long position;
+        private final TaskStatus taskStatus;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final Duration duration;
+
+        private SubtaskState(long position, Subtask subtask) {
+            this.position = position;
+            this.taskStatus = subtask.getTaskStatus();
+            this.duration = subtask.getDuration();
+            this.startTime = subtask.getStartTime();
+            this.endTime = startTime == null || duration == null ? startTime : startTime.plus(duration);
+        }
     }
 }
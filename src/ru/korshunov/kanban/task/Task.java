@@ -52,7 +52,7 @@ public class Task {
                 "name='" + name + '\'' +
                 ", description='" + description + '\'' +
                 ", id=" + id +
-                ", taskStatus=" + taskStatus +
+                ", taskStatus=" + getTaskStatus() +
                 '}';
     }
 
@@ -0,0 +1,236 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.exception.ManagerSaveException;
+import ru.korshunov.kanban.httpserver.Board;
+import ru.korshunov.kanban.httpserver.BoardRegistry;
+import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.manager.InMemoryTaskManager;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardRegistryTest {
+
+    private Path root;
+    private BoardRegistry registry;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("boards");
+    }
+
+    @AfterEach
+    public void shutDown() throws IOException {
+        if (registry != null) {
+            registry.close();
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void boardsAreLoadedLazilyAndIsolated() {
+        registry = BoardRegistry.inDirectory(root, 4, 1, TimeUnit.HOURS);
+        assertEquals(0, registry.getResidentBoards());
+
+        Board first = registry.acquire("first");
+        Board second = registry.acquire("second");
+        first.getTaskManager().addTask(new Task("Задача", "", TaskStatus.NEW, null, null));
+        registry.release(first);
+        registry.release(second);
+
+        assertEquals(2, registry.getResidentBoards());
+        assertEquals(1, first.getTaskManager().getListOfTask().size());
+        assertTrue(second.getTaskManager().getListOfTask().isEmpty(), "Доски используют общий менеджер.");
+        assertNotSame(first.getTaskManager().getEventLog(), second.getTaskManager().getEventLog());
+        assertThrows(IllegalArgumentException.class, () -> registry.acquire("../first"));
+    }
+
+    @Test
+    void leastRecentlyUsedBoardIsEvictedToDisk() {
+        registry = BoardRegistry.inDirectory(root, 2, 1, TimeUnit.HOURS);
+        Board first = registry.acquire("first");
+        Task task = new Task("Задача", "", TaskStatus.NEW, null, null);
+        first.getTaskManager().addTask(task);
+        registry.release(first);
+        registry.release(registry.acquire("second"));
+        Board third = registry.acquire("third");
+
+        awaitTrue(() -> registry.getResidentBoards() == 2, "Лишняя доска не выгружена.");
+        assertNull(first.getTaskManager(), "Выгружена не самая давно использованная доска.");
+        assertNotNull(third.getTaskManager(), "Выгружена доска с активным запросом.");
+        registry.release(third);
+
+        Board reloaded = registry.acquire("first");
+        assertNotSame(first, reloaded);
+        assertEquals("Задача", reloaded.getTaskManager().getTaskOnId(task.getId()).getName(), "Доска не загружена с диска.");
+        registry.release(reloaded);
+    }
+
+    @Test
+    void idleBoardIsEvicted() {
+        registry = new BoardRegistry(boardId -> new InMemoryTaskManager(), 8, 200, TimeUnit.MILLISECONDS);
+        Board board = registry.acquire("idle");
+        registry.release(board);
+
+        awaitTrue(() -> registry.getResidentBoards() == 0, "Простаивающая доска не выгружена.");
+        assertNull(board.getTaskManager());
+    }
+
+    @Test
+    void closeWaitsForActiveRequest() throws InterruptedException {
+        registry = new BoardRegistry(boardId -> new InMemoryTaskManager(), 8, 1, TimeUnit.HOURS);
+        Board board = registry.acquire("busy");
+        Thread requestThread = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            registry.release(board);
+        });
+        requestThread.start();
+
+        registry.close();
+        requestThread.join();
+        assertEquals(0, registry.getResidentBoards(), "Реестр закрыт до окончания запроса.");
+        assertNull(board.getTaskManager());
+    }
+
+    @Test
+    void closedRegistryRefusesBoards() {
+        registry = new BoardRegistry(boardId -> new InMemoryTaskManager(), 8, 1, TimeUnit.HOURS);
+        registry.release(registry.acquire("first"));
+        registry.close();
+
+        assertThrows(RejectedExecutionException.class, () -> registry.acquire("second"));
+        assertEquals(0, registry.getResidentBoards(), "Закрытый реестр загрузил доску.");
+        registry = null;
+    }
+
+    @Test
+    void closeReportsBoardsThatWereNotSaved() {
+        registry = new BoardRegistry(boardId -> new UnsavableTaskManager(), 8, 1, TimeUnit.HOURS);
+        registry.release(registry.acquire("first"));
+        registry.release(registry.acquire("second"));
+        long failures = MetricsRegistry.getDefault().getSamples().get("kanban_board_save_failures_total").longValue();
+
+        ManagerSaveException exception = assertThrows(ManagerSaveException.class, registry::close);
+        assertEquals("Диск недоступен.", exception.getCause().getMessage());
+        assertEquals(1, exception.getSuppressed().length);
+        assertEquals(failures + 2, MetricsRegistry.getDefault().getSamples().get("kanban_board_save_failures_total").longValue());
+        assertEquals(0, registry.getResidentBoards());
+    }
+
+    @Test
+    void serveBoardsOverHttp() throws IOException, InterruptedException {
+        registry = BoardRegistry.inDirectory(root, 4, 1, TimeUnit.HOURS);
+        HttpKanbanServer kanbanServer = new HttpKanbanServer(new InMemoryTaskManager(), registry);
+        kanbanServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            Task task = new Task("Задача доски", "", TaskStatus.NEW, null, null);
+            HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/boards/team-a/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(HttpKanbanServer.getGson().toJson(task)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, created.statusCode());
+
+            HttpResponse<String> own = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/boards/team-a/tasks/1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, own.statusCode());
+            assertTrue(own.body().contains("Задача доски"));
+
+            HttpResponse<String> other = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/boards/team-b/tasks/1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(404, other.statusCode(), "Задача видна на другой доске.");
+
+            HttpResponse<String> ownList = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/boards/team-a/tasks")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(ownList.body().contains("Задача доски"));
+            HttpResponse<String> otherList = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/boards/team-b/tasks")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals("[]", otherList.body(), "Доска получила закешированный ответ другой доски.");
+
+            HttpResponse<String> rootTasks = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals("[]", rootTasks.body(), "Задача доски попала в основной менеджер.");
+
+            HttpResponse<String> unknown = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/boards/team-a/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(404, unknown.statusCode());
+        } finally {
+            kanbanServer.stop();
+            registry = null;
+        }
+    }
+
+    @Test
+    void etagChangesAfterBoardIsReloaded() throws IOException, InterruptedException {
+        registry = BoardRegistry.inDirectory(root, 4, 200, TimeUnit.MILLISECONDS);
+        HttpKanbanServer kanbanServer = new HttpKanbanServer(new InMemoryTaskManager(), registry);
+        kanbanServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI tasks = URI.create("http://localhost:8080/boards/team-a/tasks");
+            client.send(HttpRequest.newBuilder(tasks).POST(HttpRequest.BodyPublishers.ofString(HttpKanbanServer.getGson()
+                    .toJson(new Task("Задача 1", "", TaskStatus.NEW, null, null)))).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> before = client.send(HttpRequest.newBuilder(tasks).build(), HttpResponse.BodyHandlers.ofString());
+            String etag = before.headers().firstValue("ETag").orElseThrow();
+
+            awaitTrue(() -> registry.getResidentBoards() == 0, "Простаивающая доска не выгружена.");
+            // Журнал событий загруженной заново доски начинается с нуля, и версия списка совпадает с прежней.
+            client.send(HttpRequest.newBuilder(tasks).POST(HttpRequest.BodyPublishers.ofString(HttpKanbanServer.getGson()
+                    .toJson(new Task("Задача 2", "", TaskStatus.NEW, null, null)))).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> after = client.send(HttpRequest.newBuilder(tasks).header("If-None-Match", etag).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, after.statusCode(), "Изменённый список доски ответил 304 по ETag до выгрузки.");
+            assertTrue(after.body().contains("Задача 2"));
+        } finally {
+            kanbanServer.stop();
+            registry = null;
+        }
+    }
+
+    private static class UnsavableTaskManager extends InMemoryTaskManager implements Closeable {
+        @Override
+        public void close() throws IOException {
+            throw new IOException("Диск недоступен.");
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.manager.history.ConcurrentHistoryManager;
+import ru.korshunov.kanban.manager.history.HistoryManager;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentHistoryManagerTest extends InMemoryHistoryManagerTest {
+
+    @BeforeEach
+    @Override
+    void installInstance() {
+        historyManager = new ConcurrentHistoryManager(Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected HistoryManager createHistoryManager(int maxSize) {
+        return new ConcurrentHistoryManager(maxSize);
+    }
+
+    @Test
+    void addFromManyThreads() throws InterruptedException {
+        HistoryManager boundedHistory = createHistoryManager(500);
+        Task[] tasks = new Task[1000];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = Task.getInstance(i + 1, "Задача " + i, TaskStatus.NEW, "", null, null);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int thread = 0; thread < 8; thread++) {
+            int offset = thread;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    boundedHistory.add(tasks[(i * 7 + offset) % tasks.length]);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "Потоки не завершились.");
+
+        boundedHistory.remove(tasks[0].getId());
+        List<Task> history = boundedHistory.getHistory();
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : history) {
+            assertTrue(ids.add(task.getId()), "Задача встречается в истории дважды.");
+        }
+        assertTrue(history.size() <= 500, "История превысила максимальный размер.");
+        assertFalse(ids.contains(tasks[0].getId()), "Удалённая задача осталась в истории.");
+    }
+}
@@ -0,0 +1,256 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.manager.ConcurrentTaskManager;
+import ru.korshunov.kanban.manager.Managers;
+import ru.korshunov.kanban.manager.history.HistoryManager;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int SUBTASKS_PER_EPIC = 250;
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void readEpicWithoutLockWhileSubtasksChange() throws Exception {
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 0, 0);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicBoolean done = new AtomicBoolean();
+            Future<?> reads = executor.submit(() -> {
+                while (!done.get()) {
+                    List<Subtask> subtasks = taskManager.getSubtaskOnEpic(epic.getId());
+                    Epic read = taskManager.getEpicOnId(epic.getId());
+                    assertNotNull(read.getTaskStatus());
+                    assertTrue(subtasks.size() <= SUBTASKS_PER_EPIC);
+                }
+                return null;
+            });
+
+            List<Subtask> added = new ArrayList<>();
+            for (int i = 0; i < SUBTASKS_PER_EPIC; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "", TaskStatus.DONE, epic.getId(), startTime.plusMinutes(i * 10L), Duration.ofMinutes(10));
+                taskManager.addSubtask(subtask);
+                added.add(subtask);
+            }
+            for (int i = 0; i < SUBTASKS_PER_EPIC; i += 2) {
+                taskManager.removeSubtask(added.get(i).getId());
+            }
+            done.set(true);
+            reads.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        Epic read = taskManager.getEpicOnId(epic.getId());
+        assertSame(epic, read, "Эпик заменён копией.");
+        assertEquals(SUBTASKS_PER_EPIC / 2, read.getListOfSubtasks().size());
+        assertEquals(TaskStatus.DONE, read.getTaskStatus());
+        assertEquals(startTime.plusMinutes(10), read.getStartTime());
+        assertEquals(startTime.plusMinutes(SUBTASKS_PER_EPIC * 10L), read.getEndTime());
+    }
+
+    // Удаление выполняется между чтением задачи и её записью в историю.
+    @Test
+    void removedTaskDoesNotReturnToHistory() {
+        HistoryManager history = Managers.getConcurrentHistory();
+        AtomicBoolean removeOnAdd = new AtomicBoolean(true);
+        taskManager = new ConcurrentTaskManager(ConcurrentTaskManager.DEFAULT_LOCK_STRIPES, new HistoryManager() {
+            @Override
+            public void add(Task task) {
+                if (removeOnAdd.getAndSet(false)) {
+                    Thread remover = new Thread(() -> {
+                        if (task instanceof Subtask) {
+                            taskManager.removeSubtask(task.getId());
+                        } else if (task instanceof Epic) {
+                            taskManager.removeEpic(task.getId());
+                        } else {
+                            taskManager.removeTask(task.getId());
+                        }
+                    });
+                    remover.start();
+                    try {
+                        remover.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                history.add(task);
+            }
+
+            @Override
+            public void remove(int id) {
+                history.remove(id);
+            }
+
+            @Override
+            public List<Task> getHistory() {
+                return history.getHistory();
+            }
+
+            @Override
+            public long getVersion() {
+                return history.getVersion();
+            }
+
+            @Override
+            public int size() {
+                return history.size();
+            }
+        });
+
+        Task task = new Task("Задача", "", TaskStatus.NEW, null, null);
+        taskManager.addTask(task);
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", TaskStatus.NEW, epic.getId(), null, null);
+        taskManager.addSubtask(subtask);
+
+        assertNotNull(taskManager.getSubtaskOnId(subtask.getId()));
+        removeOnAdd.set(true);
+        assertNotNull(taskManager.getTaskOnId(task.getId()));
+        removeOnAdd.set(true);
+        assertNotNull(taskManager.getEpicOnId(epic.getId()));
+
+        assertEquals(List.of(), taskManager.getHistory(), "Удалённая задача вернулась в историю.");
+    }
+
+    @Test
+    void addSubtasksToDifferentEpicsInParallel() throws Exception {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 0, 0);
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Epic epic = new Epic("Эпик " + i, "");
+            taskManager.addEpic(epic);
+            epics.add(epic);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    Epic epic = epics.get(thread);
+                    for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                        LocalDateTime subtaskStart = startTime.plusMinutes((long) (j * THREADS + thread) * 10);
+                        taskManager.addSubtask(new Subtask("Подзадача " + j, "", TaskStatus.DONE, epic.getId(), subtaskStart, Duration.ofMinutes(10)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Subtask subtask : taskManager.getListOfSubtasks()) {
+            ids.add(subtask.getId());
+        }
+        assertEquals(THREADS * SUBTASKS_PER_EPIC, ids.size(), "Идентификаторы подзадач повторяются.");
+        assertEquals(THREADS * SUBTASKS_PER_EPIC, taskManager.getPrioritizedTasks().size());
+
+        for (Epic epic : epics) {
+            assertEquals(SUBTASKS_PER_EPIC, taskManager.getSubtaskOnEpic(epic.getId()).size());
+            assertEquals(TaskStatus.DONE, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+        }
+    }
+
+    @Test
+    void removeSubtaskWhileItIsUpdated() throws Exception {
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "", TaskStatus.NEW, epic.getId(), null, null);
+                taskManager.addSubtask(subtask);
+                CountDownLatch updating = new CountDownLatch(1);
+                AtomicBoolean removed = new AtomicBoolean();
+                Future<?> updates = executor.submit(() -> {
+                    for (int j = 0; !removed.get(); j++) {
+                        Subtask updated = new Subtask(subtask);
+                        updated.setTaskStatus(j % 2 == 0 ? TaskStatus.DONE : TaskStatus.NEW);
+                        updated.setStartTime(LocalDateTime.of(2025, 5, 13, 12, 0).plusHours(j % 2));
+                        updated.setDuration(Duration.ofMinutes(30));
+                        taskManager.updateSubtask(updated);
+                        updating.countDown();
+                    }
+                    return null;
+                });
+                Future<?> removal = executor.submit(() -> {
+                    updating.await();
+                    taskManager.removeSubtask(subtask.getId());
+                    removed.set(true);
+                    return null;
+                });
+                updates.get();
+                removal.get();
+
+                assertNull(taskManager.getSubtaskOnId(subtask.getId()), "Удаление подзадачи потеряно.");
+                assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Удалённая подзадача осталась в расписании.");
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(taskManager.getSubtaskOnEpic(epic.getId()).isEmpty());
+    }
+
+    @Test
+    void onlyOneOfIntersectingTasksIsAddedInParallel() throws Exception {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0);
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    try {
+                        taskManager.addTask(new Task("Задача " + thread, "", TaskStatus.NEW, startTime.plusMinutes(thread), Duration.ofMinutes(30)));
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, taskManager.getListOfTask().size());
+        assertEquals(THREADS - 1, rejected.get());
+    }
+}
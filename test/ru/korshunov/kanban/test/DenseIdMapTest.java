@@ -0,0 +1,78 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.DenseIdMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DenseIdMapTest {
+
+    @Test
+    void putGetAndRemoveById() {
+        DenseIdMap<String> map = new DenseIdMap<>();
+        for (int id = 1; id <= 100; id++) {
+            assertNull(map.put(id, "Задача " + id));
+        }
+
+        assertEquals(100, map.size(), "Некорректный размер.");
+        assertEquals("Задача 64", map.get(64));
+        assertEquals("Задача 64", map.put(64, "Изменённая задача"), "Не возвращено предыдущее значение.");
+        assertEquals(100, map.size(), "Замена изменила размер.");
+
+        assertEquals("Изменённая задача", map.remove(64));
+        assertNull(map.get(64), "Значение не удалено.");
+        assertFalse(map.containsKey(64));
+        assertNull(map.get(1000));
+        assertNull(map.get(-1));
+        assertEquals(99, map.size(), "Некорректный размер после удаления.");
+    }
+
+    @Test
+    void iterateValuesInIdOrderSkippingRemoved() {
+        DenseIdMap<Integer> map = new DenseIdMap<>();
+        for (int id = 1; id <= 10; id++) {
+            map.put(id, id);
+        }
+        map.remove(4);
+        map.remove(5);
+
+        assertEquals(List.of(1, 2, 3, 6, 7, 8, 9, 10), new ArrayList<>(map.values()));
+        assertEquals(List.of(6, 7, 8, 9, 10), new ArrayList<>(map.valuesAfter(3)));
+
+        map.clear();
+        assertTrue(map.isEmpty(), "Хранилище не очищено.");
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    void keepSparseIdsOutOfTheArray() {
+        DenseIdMap<String> map = new DenseIdMap<>();
+        map.put(2, "Задача 2");
+        map.put(2_000_000_000, "Задача с большим id");
+        map.put(1_000_000, "Задача с id 1000000");
+        map.put(1, "Задача 1");
+
+        assertEquals(4, map.size());
+        assertEquals("Задача с большим id", map.get(2_000_000_000));
+        assertEquals(List.of("Задача 1", "Задача 2", "Задача с id 1000000", "Задача с большим id"), new ArrayList<>(map.values()));
+        assertEquals(List.of("Задача с id 1000000", "Задача с большим id"), new ArrayList<>(map.valuesAfter(2)));
+        assertEquals(1, map.valuesAfter(1_000_000).size());
+
+        assertEquals("Задача с id 1000000", map.remove(1_000_000));
+        assertNull(map.get(1_000_000));
+        assertEquals(3, map.size());
+
+        // Плотные id после разреженного по-прежнему ложатся в массив и обходятся по порядку.
+        for (int id = 3; id <= 100_000; id++) {
+            map.put(id, "Задача " + id);
+        }
+        assertEquals(100_001, map.size());
+        assertEquals("Задача 100000", map.get(100_000));
+        List<String> values = new ArrayList<>(map.values());
+        assertEquals("Задача 100000", values.get(values.size() - 2));
+        assertEquals("Задача с большим id", values.get(values.size() - 1));
+    }
+}
@@ -7,6 +7,9 @@ import ru.korshunov.kanban.task.Epic;
 import ru.korshunov.kanban.task.Subtask;
 import ru.korshunov.kanban.task.TaskStatus;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTest {
@@ -43,4 +46,35 @@ class EpicTest {
         assertEquals(0, epic.getListOfSubtasks().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void recalculateStatusAndTimeOnSubtaskChanges() {
+        Epic epicForTime = new Epic("Сходить в магазин.", "");
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0);
+        Subtask s1 = new Subtask("Купить хлеб.", "", TaskStatus.NEW, epicForTime.getId(), startTime, Duration.ofMinutes(10));
+        s1.setId(1);
+        Subtask s2 = new Subtask("Купить молоко.", "", TaskStatus.NEW, epicForTime.getId(), startTime.plusHours(1), Duration.ofMinutes(20));
+        s2.setId(2);
+        epicForTime.addSubtask(s1);
+        epicForTime.addSubtask(s2);
+
+        assertEquals(TaskStatus.NEW, epicForTime.getTaskStatus());
+        assertEquals(startTime, epicForTime.getStartTime());
+        assertEquals(startTime.plusMinutes(80), epicForTime.getEndTime());
+        assertEquals(Duration.ofMinutes(30), epicForTime.getDuration());
+
+        s1.setTaskStatus(TaskStatus.DONE);
+        epicForTime.addSubtask(s1);
+        assertEquals(TaskStatus.IN_PROGRESS, epicForTime.getTaskStatus());
+        assertEquals(2, epicForTime.getNumberOfSubtasks());
+
+        epicForTime.removeSubtask(s2);
+        assertEquals(TaskStatus.DONE, epicForTime.getTaskStatus());
+        assertEquals(startTime.plusMinutes(10), epicForTime.getEndTime());
+        assertEquals(Duration.ofMinutes(10), epicForTime.getDuration());
+
+        epicForTime.removeSubtask(s1);
+        assertEquals(TaskStatus.NEW, epicForTime.getTaskStatus());
+        assertNull(epicForTime.getStartTime());
+        assertNull(epicForTime.getEndTime());
+    }
+}
@@ -2,17 +2,36 @@ package ru.korshunov.kanban.test;
 
 import org.junit.jupiter.api.Test;
 import ru.korshunov.kanban.manager.FileBackedTaskManager;
+import ru.korshunov.kanban.manager.LoadProgressListener;
+import ru.korshunov.kanban.manager.SnapshotFile;
+import ru.korshunov.kanban.manager.SnapshotFormat;
+import ru.korshunov.kanban.manager.TaskJournal;
 import ru.korshunov.kanban.task.Epic;
 import ru.korshunov.kanban.task.Subtask;
 import ru.korshunov.kanban.task.Task;
 import ru.korshunov.kanban.task.TaskStatus;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FileBaskedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
 
@@ -41,4 +60,280 @@ public class FileBaskedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertEquals(epic, fbtm.getEpicOnId(2));
         assertEquals(subtask, fbtm.getSubtaskOnId(3));
     }
+
+    @Test
+    void saveAndLoadTaskFromJournal() {
+        Path journalPath = Path.of("task-journal.txt");
+        FileBackedTaskManager journalManager = FileBackedTaskManager.withJournal(journalPath, 2, 4);
+
+        Task task = new Task("Новыя задача 1", "Описание 1", TaskStatus.NEW, LocalDateTime.of(2025, 5, 13, 15, 15), Duration.of(20, ChronoUnit.MINUTES));
+        journalManager.addTask(task);
+        Epic epic = new Epic("Новыя задача 2", "Описание 1");
+        journalManager.addEpic(epic);
+        Subtask subtask = new Subtask("Новыя задача 3", "Описание 1", TaskStatus.NEW, epic.getId(), LocalDateTime.of(2025, 5, 13, 16, 15), Duration.of(20, ChronoUnit.MINUTES));
+        journalManager.addSubtask(subtask);
+
+        subtask.setTaskStatus(TaskStatus.DONE);
+        journalManager.updateSubtask(subtask);
+        journalManager.removeTask(task.getId());
+        journalManager.flush();
+
+        FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(journalPath, 2, 4);
+
+        assertEquals(0, fbtm.getListOfTask().size());
+        assertNull(fbtm.getTaskOnId(task.getId()));
+        assertEquals(epic, fbtm.getEpicOnId(epic.getId()));
+        assertEquals(TaskStatus.DONE, fbtm.getEpicOnId(epic.getId()).getTaskStatus());
+        assertEquals(TaskStatus.DONE, fbtm.getSubtaskOnId(subtask.getId()).getTaskStatus());
+        assertEquals(subtask.getStartTime(), fbtm.getEpicOnId(epic.getId()).getStartTime());
+    }
+
+    @Test
+    void truncateTornJournalTailBeforeAppending() throws IOException {
+        Path journalPath = Path.of("task-journal-torn.txt");
+        for (Path file : List.of(journalPath, SnapshotFile.previousPath(journalPath), TaskJournal.pathFor(journalPath),
+                TaskJournal.previousPathFor(journalPath))) {
+            Files.deleteIfExists(file);
+        }
+
+        FileBackedTaskManager journalManager = FileBackedTaskManager.withJournal(journalPath, 1, 1000);
+        journalManager.addTask(new Task("Задача 1", "", TaskStatus.NEW, null, null));
+        journalManager.close();
+        // Запись, оборванная при аварийном завершении: без конца и без '\n'.
+        Files.writeString(TaskJournal.pathFor(journalPath), "PUT_RECORD,AAA", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager reopened = FileBackedTaskManager.loadFromFile(journalPath, 1, 1000);
+        assertEquals(1, reopened.getListOfTask().size());
+        reopened.addTask(new Task("Задача 2", "", TaskStatus.NEW, null, null));
+        reopened.addTask(new Task("Задача 3", "", TaskStatus.NEW, null, null));
+        reopened.close();
+
+        FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(journalPath, 1, 1000);
+        assertEquals(3, fbtm.getListOfTask().size(), "Запись после оборванной склеилась с ней.");
+        assertEquals("Задача 3", fbtm.getTaskOnId(3).getName());
+        fbtm.close();
+    }
+
+    @Test
+    void replayJournalWithCommasInText() {
+        Path journalPath = Path.of("task-journal.txt");
+        FileBackedTaskManager journalManager = FileBackedTaskManager.withJournal(journalPath, 1, 100);
+
+        Task task = new Task("Задача, с запятой", "Описание,\nв две строки", TaskStatus.NEW, LocalDateTime.of(2025, 5, 13, 15, 15), Duration.ofMinutes(20));
+        journalManager.addTask(task);
+        Epic epic = new Epic("Эпик, с запятой", null);
+        journalManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача,", ",", TaskStatus.DONE, epic.getId(), null, null);
+        journalManager.addSubtask(subtask);
+        journalManager.close();
+
+        FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(journalPath, 1, 100);
+
+        assertEquals("Задача, с запятой", fbtm.getTaskOnId(task.getId()).getName());
+        assertEquals("Описание,\nв две строки", fbtm.getTaskOnId(task.getId()).getDescription());
+        assertEquals(task.getStartTime(), fbtm.getTaskOnId(task.getId()).getStartTime());
+        assertEquals("Эпик, с запятой", fbtm.getEpicOnId(epic.getId()).getName());
+        assertNull(fbtm.getEpicOnId(epic.getId()).getDescription());
+        assertEquals(",", fbtm.getSubtaskOnId(subtask.getId()).getDescription());
+        assertEquals(TaskStatus.DONE, fbtm.getEpicOnId(epic.getId()).getTaskStatus());
+        fbtm.close();
+    }
+
+    @Test
+    void convertCsvFileToBinarySnapshot() {
+        Task task = new Task("Задача, с запятой", "Описание 1", TaskStatus.NEW, LocalDateTime.of(2025, 5, 13, 15, 15, 30, 500), Duration.of(20, ChronoUnit.MINUTES));
+        Epic epic = new Epic("Новыя задача 2", "Описание 1");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Новыя задача 3", "Описание 1", TaskStatus.DONE, epic.getId(), LocalDateTime.of(2025, 5, 13, 16, 15), Duration.of(20, ChronoUnit.MINUTES));
+        taskManager.addSubtask(subtask);
+
+        FileBackedTaskManager csvManager = FileBackedTaskManager.loadFromFile(path);
+        assertEquals(SnapshotFormat.CSV, csvManager.getSnapshotFormat());
+
+        csvManager.setSnapshotFormat(SnapshotFormat.BINARY);
+        csvManager.addTask(task);
+
+        FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(path);
+
+        assertEquals(SnapshotFormat.BINARY, fbtm.getSnapshotFormat());
+        assertEquals(task.getName(), fbtm.getTaskOnId(task.getId()).getName());
+        assertEquals(task.getStartTime(), fbtm.getTaskOnId(task.getId()).getStartTime());
+        assertEquals(TaskStatus.DONE, fbtm.getEpicOnId(epic.getId()).getTaskStatus());
+        assertEquals(subtask.getEndTime(), fbtm.getEpicOnId(epic.getId()).getEndTime());
+        assertEquals(subtask, fbtm.getSubtaskOnId(subtask.getId()));
+    }
+
+    @Test
+    void loadSubtaskBeforeItsEpic() throws IOException {
+        String csv = "id,type,name,status,description,start time,duration,epic\n" +
+                "2,SUBTASK,Новыя задача 2,DONE,Описание 2,2025-05-13T16:15,PT20M,1\n" +
+                "1,EPIC,Новыя задача 1,NEW,Описание 1,null,PT0S\n";
+        Files.writeString(path, csv, StandardCharsets.UTF_8);
+
+        AtomicLong loadedRecords = new AtomicLong();
+        FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(path, new LoadProgressListener() {
+            @Override
+            public void onComplete(long records, long bytes, long elapsedNanos) {
+                loadedRecords.set(records);
+            }
+        });
+
+        assertEquals(2, loadedRecords.get());
+        assertEquals(1, fbtm.getSubtaskOnEpic(1).size());
+        assertEquals(TaskStatus.DONE, fbtm.getEpicOnId(1).getTaskStatus());
+        assertEquals(LocalDateTime.of(2025, 5, 13, 16, 15), fbtm.getEpicOnId(1).getStartTime());
+    }
+
+    @Test
+    void saveBatchOnce() {
+        AtomicInteger saves = new AtomicInteger();
+        FileBackedTaskManager countingManager = new FileBackedTaskManager(path) {
+            @Override
+            protected void save() {
+                saves.incrementAndGet();
+                super.save();
+            }
+        };
+
+        Epic epic = new Epic("Новыя задача 1", "Описание 1");
+        countingManager.addEpic(epic);
+        saves.set(0);
+
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Subtask("Подзадача " + i, "", TaskStatus.DONE, epic.getId(), LocalDateTime.of(2025, 5, 13, 0, 0).plusHours(i), Duration.ofMinutes(30)));
+        }
+        countingManager.addAll(batch);
+
+        assertEquals(1, saves.get(), "Пакет сохранён не один раз.");
+        FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(path);
+        assertEquals(100, fbtm.getSubtaskOnEpic(epic.getId()).size());
+        assertEquals(TaskStatus.DONE, fbtm.getEpicOnId(epic.getId()).getTaskStatus());
+    }
+
+    @Test
+    void saveConcurrentBatchesOnceEach() throws Exception {
+        AtomicInteger saves = new AtomicInteger();
+        FileBackedTaskManager countingManager = new FileBackedTaskManager(path) {
+            @Override
+            protected void save() {
+                saves.incrementAndGet();
+                super.save();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    List<Task> batch = new ArrayList<>();
+                    for (int j = 0; j < 200; j++) {
+                        batch.add(new Task("Задача " + thread + "-" + j, "", TaskStatus.NEW, null, null));
+                    }
+                    start.await();
+                    return countingManager.addAll(batch);
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2, saves.get(), "Параллельные пакеты сохранены не по одному разу.");
+        assertEquals(400, FileBackedTaskManager.loadFromFile(path).getListOfTask().size());
+    }
+
+    @Test
+    void coalesceAsyncSavesAndFlush() throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(SnapshotFile.previousPath(path));
+        try (FileBackedTaskManager asyncManager = FileBackedTaskManager.withAsyncSave(path, 60_000, 1_000_000)) {
+            for (int i = 0; i < 500; i++) {
+                asyncManager.addTask(new Task("Задача " + i, "Описание", TaskStatus.NEW, LocalDateTime.of(2025, 5, 13, 0, 0).plusHours(i), Duration.ofMinutes(30)));
+            }
+            assertEquals(0, asyncManager.getSaveCount(), "Снимок записан до истечения задержки.");
+            assertEquals(500, asyncManager.getPendingChanges());
+
+            asyncManager.flush();
+            assertEquals(1, asyncManager.getSaveCount(), "Изменения не объединены в одну запись.");
+            assertEquals(0, asyncManager.getPendingChanges());
+            assertTrue(asyncManager.getLastSaveNanos() > 0);
+            assertEquals(500, FileBackedTaskManager.loadFromFile(path).getListOfTask().size());
+
+            asyncManager.removeTask(1);
+        }
+
+        assertEquals(499, FileBackedTaskManager.loadFromFile(path).getListOfTask().size(), "Изменения не сохранены при закрытии.");
+    }
+
+    @Test
+    void saveChangesMadeAfterAsyncWriterIsClosed() throws Exception {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(SnapshotFile.previousPath(path));
+        FileBackedTaskManager asyncManager = FileBackedTaskManager.withAsyncSave(path, 10, 100);
+        asyncManager.close();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                asyncManager.addTask(new Task("Задача", "", TaskStatus.NEW, null, null));
+                asyncManager.flush();
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, asyncManager.getPendingChanges());
+        assertEquals(1, FileBackedTaskManager.loadFromFile(path).getListOfTask().size(), "Изменение после закрытия потеряно.");
+    }
+
+    @Test
+    void fallBackToPreviousGenerationOnChecksumMismatch() throws IOException {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            createTaskManager().setSnapshotFormat(format);
+            taskManager.addTask(new Task("Задача 1", "Описание 1", TaskStatus.NEW, LocalDateTime.of(2025, 5, 13, 15, 15), Duration.ofMinutes(20)));
+            taskManager.addTask(new Task("Задача 2", "Описание 2", TaskStatus.NEW, LocalDateTime.of(2025, 5, 13, 16, 15), Duration.ofMinutes(20)));
+            assertEquals(2, FileBackedTaskManager.loadFromFile(path).getListOfTask().size());
+
+            // Испорченный байт в середине снимка: загружается предыдущее поколение с одной задачей.
+            byte[] bytes = Files.readAllBytes(path);
+            bytes[bytes.length / 2] ^= 0x20;
+            Files.write(path, bytes);
+
+            FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(path);
+            assertEquals(1, fbtm.getListOfTask().size(), "Не загружено предыдущее поколение снимка " + format);
+            assertEquals("Задача 1", fbtm.getTaskOnId(1).getName());
+        }
+    }
+
+    @Test
+    void fallBackToPreviousGenerationWithJournal() throws IOException {
+        Path journalPath = Path.of("task-journal-generations.txt");
+        for (Path file : List.of(journalPath, SnapshotFile.previousPath(journalPath), TaskJournal.pathFor(journalPath),
+                TaskJournal.previousPathFor(journalPath))) {
+            Files.deleteIfExists(file);
+        }
+
+        // Вторая запись вызывает контрольную точку: задачи 1 и 2 попадают в снимок, задача 3 - в журнал.
+        FileBackedTaskManager journalManager = FileBackedTaskManager.withJournal(journalPath, 1, 2);
+        for (int i = 1; i <= 3; i++) {
+            journalManager.addTask(new Task("Задача " + i, "", TaskStatus.NEW, null, null));
+        }
+        journalManager.close();
+
+        byte[] bytes = Files.readAllBytes(journalPath);
+        bytes[bytes.length / 2] ^= 0x20;
+        Files.write(journalPath, bytes);
+
+        FileBackedTaskManager fbtm = FileBackedTaskManager.loadFromFile(journalPath, 1, 2);
+        assertEquals(3, fbtm.getListOfTask().size(), "Журнал применён не к своему поколению снимка.");
+        assertEquals("Задача 2", fbtm.getTaskOnId(2).getName());
+        fbtm.close();
+    }
 }
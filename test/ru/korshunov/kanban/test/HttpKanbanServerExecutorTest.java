@@ -0,0 +1,206 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.manager.ConcurrentTaskManager;
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpKanbanServerExecutorTest {
+
+    private static final int REQUESTS = 100;
+    private static final int CLIENTS = 4;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private final TaskManager taskManager = new ConcurrentTaskManager();
+    private final HttpKanbanServer kanbanServer = HttpKanbanServer.withThreadPool(taskManager, THREADS, QUEUE_CAPACITY, 64);
+
+    public HttpKanbanServerExecutorTest() throws IOException {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        kanbanServer.start();
+    }
+
+    @AfterEach
+    public void shutDown() {
+        kanbanServer.stop();
+    }
+
+    // Запросы сверх пула и очереди получают 503 и не доходят до менеджера.
+    @Test
+    public void parallelRequestsAreServedByThreadPool() {
+        HttpClient client = HttpClient.newHttpClient();
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 0, 0);
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            Task task = new Task("Задача " + i, "", TaskStatus.NEW, startTime.plusMinutes(i * 10L), Duration.ofMinutes(10));
+            HttpRequest request = HttpRequest.newBuilder()
+                    .POST(HttpRequest.BodyPublishers.ofString(HttpKanbanServer.getGson().toJson(task)))
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        int created = 0;
+        int rejected = 0;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            int statusCode = response.join().statusCode();
+            if (statusCode == 201) {
+                created++;
+            } else {
+                assertEquals(503, statusCode);
+                rejected++;
+            }
+        }
+
+        assertEquals(created, taskManager.getListOfTask().size(), "Некорректное количество задач");
+        assertEquals(rejected, kanbanServer.getRejectedRequests(), "Отклонённые запросы не посчитаны");
+        assertEquals(0, kanbanServer.getQueueDepth(), "Очередь запросов не пуста");
+    }
+
+    // Соединения с недописанными заголовками занимают все потоки и место в очереди. Следующий запрос
+    // получает 503, а поток-диспетчер остаётся свободным и принимает его.
+    @Test
+    public void overloadedServerAnswersServiceUnavailable() throws IOException, InterruptedException {
+        List<Socket> pending = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS + QUEUE_CAPACITY; i++) {
+                Socket socket = new Socket("localhost", 8080);
+                pending.add(socket);
+                socket.getOutputStream().write("GET /tasks HTTP/1.1\r\n".getBytes(StandardCharsets.US_ASCII));
+                socket.getOutputStream().flush();
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (kanbanServer.getActiveRequests() + kanbanServer.getQueueDepth() < THREADS + QUEUE_CAPACITY) {
+                assertTrue(System.nanoTime() < deadline, "Соединения не переданы пулу");
+                Thread.sleep(10);
+            }
+
+            try (Socket socket = new Socket("localhost", 8080)) {
+                String error = send(socket.getOutputStream(), new BufferedInputStream(socket.getInputStream()), "GET", "/tasks", null, 503);
+                assertTrue(error.contains("\"status\":503"), "Ошибка без тела JSON: " + error);
+                assertEquals(1, kanbanServer.getRejectedRequests());
+            }
+
+            for (Socket socket : pending) {
+                socket.getOutputStream().write("Host: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                socket.getOutputStream().flush();
+            }
+            for (Socket socket : pending) {
+                readResponse(new BufferedInputStream(socket.getInputStream()), 200, "GET /tasks");
+            }
+        } finally {
+            for (Socket socket : pending) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void persistentConnectionsSurviveErrorsAndEmptyResponses() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 0, 0);
+        List<CompletableFuture<Void>> clients = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            LocalDateTime clientStartTime = startTime.plusDays(client);
+            clients.add(CompletableFuture.runAsync(() -> runPersistentClient(clientStartTime)));
+        }
+
+        for (CompletableFuture<Void> client : clients) {
+            client.join();
+        }
+        assertEquals(0, taskManager.getListOfTask().size(), "Задачи не удалены");
+    }
+
+    // Все запросы клиента идут по одному соединению HTTP/1.1: если сервер закроет его после какого-либо
+    // ответа или ответит без длины тела, следующий ответ не будет прочитан.
+    private void runPersistentClient(LocalDateTime startTime) {
+        try (Socket socket = new Socket("localhost", 8080)) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                Task task = new Task("Задача " + i, "", TaskStatus.NEW, startTime.plusMinutes(i * 10L), Duration.ofMinutes(10));
+                String created = send(out, in, "POST", "/tasks", HttpKanbanServer.getGson().toJson(task), 201);
+                int id = HttpKanbanServer.getGson().fromJson(created, Task.class).getId();
+
+                send(out, in, "GET", "/tasks/" + id, null, 200);
+                String error = send(out, in, "POST", "/tasks", "{\"name\":", 400);
+                assertTrue(error.contains("\"status\":400"), "Ошибка без тела JSON: " + error);
+                send(out, in, "GET", "/tasks/abc", null, 400);
+                assertEquals("", send(out, in, "DELETE", "/tasks/" + id, null, 201));
+            }
+        } catch (IOException e) {
+            fail("Соединение разорвано: " + e);
+        }
+    }
+
+    private static String send(OutputStream out, InputStream in, String method, String path, String body, int expectedCode) throws IOException {
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        String request = method + " " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + content.length + "\r\n\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.flush();
+        return readResponse(in, expectedCode, method + " " + path);
+    }
+
+    private static String readResponse(InputStream in, int expectedCode, String request) throws IOException {
+        String[] head = readHead(in).split("\r\n");
+        assertEquals(expectedCode, Integer.parseInt(head[0].split(" ")[1]), request);
+        int contentLength = -1;
+        for (int i = 1; i < head.length; i++) {
+            String header = head[i].toLowerCase(Locale.ROOT);
+            assertFalse(header.startsWith("transfer-encoding"), "Ответ в chunked-кодировке: " + request);
+            assertFalse(header.equals("connection: close"), "Сервер закрывает соединение: " + request);
+            if (header.startsWith("content-length:")) {
+                contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+            }
+        }
+        assertTrue(contentLength >= 0, "Ответ без длины тела: " + request);
+
+        byte[] response = in.readNBytes(contentLength);
+        assertEquals(contentLength, response.length, "Соединение закрыто посреди ответа");
+        return new String(response, StandardCharsets.UTF_8);
+    }
+
+    private static String readHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("сервер закрыл соединение");
+            }
+            head.write(b);
+            matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        return head.toString(StandardCharsets.US_ASCII);
+    }
+}
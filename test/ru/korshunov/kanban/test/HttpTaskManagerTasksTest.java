@@ -8,19 +8,29 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import ru.korshunov.kanban.httpserver.HttpKanbanServer;
 import ru.korshunov.kanban.manager.InMemoryTaskManager;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
 import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.task.Epic;
 import ru.korshunov.kanban.task.Task;
 import ru.korshunov.kanban.task.TaskStatus;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -74,6 +84,270 @@ public class HttpTaskManagerTasksTest {
         assertEquals(2, tasksFromResponse.size(), "Некорректное количество задач");
     }
 
+    @Test
+    @DisplayName("GET .../tasks большой список")
+    public void getLargeListTasksChunked() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.now();
+        for (int i = 0; i < 20_000; i++) {
+            taskManager.addTask(new Task("Здача " + i, "Описание " + i, TaskStatus.NEW, startTime.plusMinutes(i * 10L), Duration.ofMinutes(5)));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(url)
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null), "Ответ не потоковый");
+
+        List<Task> tasksFromResponse = gson.fromJson(response.body(), new TypeTokenForTaskList().getType());
+        assertEquals(20_000, tasksFromResponse.size(), "Некорректное количество задач");
+        assertEquals(taskManager.getTaskOnId(tasksFromResponse.get(0).getId()), tasksFromResponse.get(0), "Задачи не совпадают");
+    }
+
+    @Test
+    @DisplayName("GET .../tasks с If-None-Match")
+    public void getNotModifiedTasks() throws IOException, InterruptedException {
+        taskManager.addTask(new Task("Здача 1", "Описание 1", TaskStatus.NEW, LocalDateTime.now(), Duration.ofMinutes(10)));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().GET().uri(url).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag, "Ответ без ETag");
+
+        HttpRequest conditional = HttpRequest.newBuilder().GET().uri(url).header("If-None-Match", etag).build();
+        response = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode(), "Неизменённый список отдан повторно");
+        assertEquals("", response.body());
+
+        taskManager.addTask(new Task("Здача 2", "Описание 2", TaskStatus.NEW, LocalDateTime.now().plusHours(1), Duration.ofMinutes(10)));
+        response = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Изменённый список не отдан");
+        assertNotEquals(etag, response.headers().firstValue("ETag").orElse(null));
+        List<Task> tasks = gson.fromJson(response.body(), new TypeTokenForTaskList().getType());
+        assertEquals(2, tasks.size());
+
+        // Повторный запрос той же версии отдаётся из кеша ответов.
+        HttpResponse<String> cached = client.send(HttpRequest.newBuilder().GET().uri(url).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(response.body(), cached.body());
+    }
+
+    @Test
+    @DisplayName("GET .../tasks с Accept-Encoding")
+    public void getCompressedTasks() throws IOException, InterruptedException {
+        taskManager.addTask(new Task("Здача", "Описание", TaskStatus.NEW, null, null));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder().GET().uri(url).header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty(), "Сжат ответ меньше порога");
+
+        LocalDateTime startTime = LocalDateTime.now();
+        for (int i = 0; i < 100; i++) {
+            taskManager.addTask(new Task("Здача " + i, "Описание " + i, TaskStatus.NEW, startTime.plusMinutes(i * 10L), Duration.ofMinutes(5)));
+        }
+
+        for (String encoding : List.of("gzip", "deflate;q=1, gzip;q=0.5")) {
+            response = client.send(HttpRequest.newBuilder().GET().uri(url).header("Accept-Encoding", encoding).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals(200, response.statusCode());
+            String contentEncoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+            InputStream body = new ByteArrayInputStream(response.body());
+            body = contentEncoding.equals("gzip") ? new GZIPInputStream(body) : new InflaterInputStream(body);
+            assertEquals(encoding.startsWith("gzip") ? "gzip" : "deflate", contentEncoding, "Выбрано не то кодирование");
+
+            List<Task> tasks = gson.fromJson(new String(body.readAllBytes(), StandardCharsets.UTF_8), new TypeTokenForTaskList().getType());
+            assertEquals(101, tasks.size(), "Некорректное количество задач после распаковки");
+        }
+    }
+
+    @Test
+    @DisplayName("Некорректный путь, идентификатор или метод")
+    public void rejectUnknownRoutes() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        Map<String, Integer> expectedCodes = Map.of(
+                "/tasks/abc", 400,
+                "/epics/99999999999/subtask", 400,
+                "/tasks/1/subtask", 404,
+                "/tasksx", 404);
+        for (Map.Entry<String, Integer> expected : expectedCodes.entrySet()) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder().GET()
+                    .uri(URI.create("http://localhost:8080" + expected.getKey())).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(expected.getValue(), response.statusCode(), "Неверный код ответа для " + expected.getKey());
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().PUT(HttpRequest.BodyPublishers.ofString("{}"))
+                .uri(URI.create("http://localhost:8080/tasks")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, response.statusCode());
+        assertEquals("GET, POST", response.headers().firstValue("Allow").orElse(""));
+    }
+
+    @Test
+    @DisplayName("POST .../tasks с некорректным значением поля")
+    public void rejectInvalidFieldValues() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> bodies = List.of(
+                "{\"name\": \"Задача\", \"taskStatus\": \"NEW\", \"startTime\": \"завтра\"}",
+                "{\"name\": \"Задача\", \"taskStatus\": \"NEW\", \"duration\": \"долго\"}");
+        for (String body : bodies) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder().POST(HttpRequest.BodyPublishers.ofString(body))
+                    .uri(URI.create("http://localhost:8080/tasks")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), "Неверный код ответа для " + body);
+        }
+        assertTrue(taskManager.getListOfTask().isEmpty());
+    }
+
+    @Test
+    @DisplayName("GET .../metrics")
+    public void getMetrics() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        client.send(HttpRequest.newBuilder().GET().uri(URI.create("http://localhost:8080/tasks")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().GET().uri(URI.create("http://localhost:8080/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"), "Неверный тип ответа");
+        assertTrue(response.body().contains("# TYPE kanban_http_request_seconds summary"), "Нет времени обработки запросов");
+        assertTrue(response.body().contains("kanban_http_request_seconds_count{handler=\"tasks\",method=\"GET\"}"),
+                "Нет количества запросов к /tasks");
+        String responses = "kanban_http_responses_total{handler=\"tasks\",code=\"2xx\"} ";
+        assertTrue(response.body().contains(responses) && !response.body().contains(responses + "0\n"), "Успешный ответ не учтён");
+    }
+
+    @Test
+    @DisplayName("GET .../tasks?limit=2&cursor=...")
+    public void getPageOfTasks() throws IOException, InterruptedException {
+        LocalDateTime startTime = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            taskManager.addTask(new Task("Здача " + i, "Описание " + i, TaskStatus.NEW, startTime.plusMinutes(i * 10L), Duration.ofMinutes(5)));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2"))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Task> firstPage = gson.fromJson(response.body(), new TypeTokenForTaskList().getType());
+        assertEquals(2, firstPage.size(), "Некорректный размер страницы");
+
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+        assertEquals(String.valueOf(firstPage.get(1).getId()), cursor, "Некорректный курсор");
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2&cursor=" + cursor))
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Task> secondPage = gson.fromJson(response.body(), new TypeTokenForTaskList().getType());
+        assertEquals(firstPage.get(1).getId() + 1, secondPage.get(0).getId(), "Страница начинается не после курсора");
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=0"))
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+
+        for (String unindexed : List.of("/tasks?from=2025-05-13T00:00", "/epics?status=DONE")) {
+            request = HttpRequest.newBuilder().GET().uri(URI.create("http://localhost:8080" + unindexed)).build();
+            assertEquals(400, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode(),
+                    "Фильтр без индекса выполнен для " + unindexed);
+        }
+    }
+
+    @Test
+    @DisplayName("GET .../events")
+    public void streamEvents() throws IOException, InterruptedException {
+        Task task1 = new Task("Здача 1", "Описание 1", TaskStatus.NEW, LocalDateTime.now(), Duration.ofMinutes(10));
+        taskManager.addTask(task1);
+        long after = taskManager.getEventLog().getLastSequence() - 1;
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/events"))
+                .header("Last-Event-ID", String.valueOf(after))
+                .build();
+
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        assertEquals("text/event-stream;charset=utf-8", response.headers().firstValue("Content-Type").orElse(null));
+
+        Iterator<String> lines = response.body().iterator();
+        assertEquals("id: " + (after + 1), lines.next(), "Поток начат не с переданного номера");
+        assertEquals("event: CREATED", lines.next());
+        assertTrue(lines.next().contains("\"id\":" + task1.getId()), "Некорректные данные события");
+        response.body().close();
+    }
+
+    @Test
+    @DisplayName("GET .../events в метриках")
+    public void streamIsNotCountedAsServerError() throws IOException, InterruptedException {
+        Map<String, Number> before = MetricsRegistry.getDefault().getSamples();
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<Stream<String>> response = client.send(HttpRequest.newBuilder().GET().uri(URI.create("http://localhost:8080/events"))
+                .header("Last-Event-ID", "0").build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        response.body().close();
+
+        // Заголовки ответа отправляет поток событий, поэтому учёт запроса может завершиться чуть позже.
+        String handedOff = "kanban_http_handed_off_total{handler=\"events\"}";
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Map<String, Number> after = MetricsRegistry.getDefault().getSamples();
+        while (after.getOrDefault(handedOff, 0L).longValue() == before.getOrDefault(handedOff, 0L).longValue()) {
+            assertTrue(System.nanoTime() < deadline, "Подписка на события не учтена");
+            Thread.sleep(10);
+            after = MetricsRegistry.getDefault().getSamples();
+        }
+        String serverErrors = "kanban_http_responses_total{handler=\"events\",code=\"5xx\"}";
+        assertEquals(before.getOrDefault(serverErrors, 0L).longValue(), after.getOrDefault(serverErrors, 0L).longValue(),
+                "Подписка на события учтена как ошибка сервера");
+    }
+
+    @Test
+    @DisplayName("POST .../batch")
+    public void applyBatch() throws IOException, InterruptedException {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addEpic(epic);
+
+        String body = "{\"add\": [" +
+                "{\"name\": \"Здача 1\", \"description\": \"Описание 1\", \"taskStatus\": \"NEW\"}," +
+                "{\"type\": \"SUBTASK\", \"name\": \"Подзадача\", \"description\": \"\", \"taskStatus\": \"DONE\", \"epicId\": " + epic.getId() + "}]," +
+                "\"remove\": [999]}";
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .uri(URI.create("http://localhost:8080/batch"))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+
+        Map<String, List<Map<String, Object>>> results = gson.fromJson(response.body(), new TypeTokenForBatchResults().getType());
+        assertEquals(2, results.get("add").size(), "Нет результата для каждого элемента");
+        assertEquals(true, results.get("add").get(1).get("success"));
+        assertEquals(false, results.get("remove").get(0).get("success"));
+        assertEquals(1, taskManager.getListOfTask().size());
+        assertEquals(TaskStatus.DONE, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+
+        request = HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString("[1, 2]"))
+                .uri(URI.create("http://localhost:8080/batch"))
+                .build();
+        assertEquals(400, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
     @Test
     @DisplayName("GET .../tasks/1")
     public void getTasksById() throws IOException, InterruptedException {
@@ -26,6 +26,27 @@ public class InMemoryHistoryManagerTest {
         historyManager = new InMemoryHistoryManager();
     }
 
+    protected HistoryManager createHistoryManager(int maxSize) {
+        return new InMemoryHistoryManager(maxSize);
+    }
+
+    @Test
+    void evictLeastRecentlyViewed() {
+        HistoryManager boundedHistory = createHistoryManager(3);
+        for (int id = 1; id <= 5; id++) {
+            boundedHistory.add(Task.getInstance(id, "Задача " + id, TaskStatus.NEW, "", null, null));
+            if (id == 3) {
+                boundedHistory.add(Task.getInstance(1, "Задача 1", TaskStatus.NEW, "", null, null));
+            }
+        }
+
+        List<Task> history = boundedHistory.getHistory();
+        assertEquals(3, history.size(), "История превысила максимальный размер.");
+        assertEquals(1, history.get(0).getId(), "Вытеснена недавно просмотренная задача.");
+        assertEquals(4, history.get(1).getId());
+        assertEquals(5, history.get(2).getId());
+    }
+
     @Test
     void checkingHistory() {
         Task taskNew = new Task("Новыя задача 1", "Описание 1", TaskStatus.NEW, LocalDateTime.now(), Duration.of(20, ChronoUnit.MINUTES));
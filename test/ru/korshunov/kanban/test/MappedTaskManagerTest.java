@@ -0,0 +1,186 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.manager.MappedTaskManager;
+import ru.korshunov.kanban.manager.MappedTaskStore;
+import ru.korshunov.kanban.manager.PrioritizedView;
+import ru.korshunov.kanban.manager.TaskQuery;
+import ru.korshunov.kanban.manager.TaskType;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedTaskManagerTest extends TaskManagerTest<MappedTaskManager> {
+
+    private Path directory;
+
+    @Override
+    protected MappedTaskManager createTaskManager() throws IOException {
+        directory = Files.createTempDirectory("mapped-tasks");
+        return taskManager = MappedTaskManager.open(directory);
+    }
+
+    @AfterEach
+    void deleteStore() throws IOException {
+        taskManager.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // Менеджер возвращает копии, поэтому статус эпика проверяется по заново прочитанному эпику.
+    @Override
+    @Test
+    void checkEpicStatus() {
+        Epic epic = new Epic("Поменять пробитое колесо на велосипеде.", "");
+        taskManager.addEpic(epic);
+
+        Subtask s1 = new Subtask("Купить новую камеру.", "", TaskStatus.NEW, epic.getId(), LocalDateTime.of(2025, 5, 13, 16, 15), Duration.ofMinutes(20));
+        Subtask s2 = new Subtask("Поменять колесо.", "", TaskStatus.NEW, epic.getId(), LocalDateTime.of(2025, 5, 13, 15, 15), Duration.ofMinutes(20));
+        taskManager.addSubtask(s1);
+        taskManager.addSubtask(s2);
+
+        assertEquals(TaskStatus.NEW, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+
+        s1.setTaskStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(s1);
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+
+        s2.setTaskStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(s2);
+        Epic done = taskManager.getEpicOnId(epic.getId());
+        assertEquals(TaskStatus.DONE, done.getTaskStatus());
+        assertEquals(LocalDateTime.of(2025, 5, 13, 15, 15), done.getStartTime(), "Время эпика не вычислено по подзадачам.");
+
+        taskManager.clearSubtasks();
+        assertEquals(TaskStatus.NEW, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+    }
+
+    @Test
+    void prioritizedViewReadsTasksFromStore() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0);
+        Task first = new Task("Первая", "", TaskStatus.NEW, startTime, Duration.ofMinutes(30));
+        Task second = new Task("Вторая", "", TaskStatus.NEW, startTime.plusHours(1), Duration.ofMinutes(30));
+        taskManager.addTask(second);
+        taskManager.addTask(first);
+        PrioritizedView view = taskManager.getPrioritizedTasks();
+        assertEquals(List.of(first, second), List.copyOf(view));
+
+        taskManager.removeTask(first.getId());
+        assertEquals(1, view.size(), "Удалённая задача посчитана в снимке.");
+        assertEquals(second, view.get(0), "Удалённая задача прочитана из снимка.");
+        assertEquals(List.of(second), List.copyOf(view), "Удалённая задача не пропущена при обходе.");
+        assertEquals(List.of(second), List.copyOf(taskManager.getPrioritizedTasks()));
+    }
+
+    @Test
+    void reopenStoreWithTasksAndSchedule() throws IOException {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0, 0, 123_456_789);
+        Task task = new Task("Задача", "Описание с юникодом ✓", TaskStatus.IN_PROGRESS, startTime, Duration.ofMinutes(30));
+        taskManager.addTask(task);
+        Task removed = new Task("Удалённая", null, TaskStatus.NEW, null, null);
+        taskManager.addTask(removed);
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", TaskStatus.DONE, epic.getId(), startTime.plusHours(1), Duration.ofMinutes(10));
+        taskManager.addSubtask(subtask);
+        taskManager.removeTask(removed.getId());
+        task.setName("Переименованная задача");
+        taskManager.updateTask(task);
+        taskManager.close();
+
+        taskManager = MappedTaskManager.open(directory);
+
+        Task loaded = taskManager.getTaskOnId(task.getId());
+        assertEquals("Переименованная задача", loaded.getName());
+        assertEquals("Описание с юникодом ✓", loaded.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getTaskStatus());
+        assertEquals(startTime, loaded.getStartTime());
+        assertEquals(Duration.ofMinutes(30), loaded.getDuration());
+        assertNull(taskManager.getTaskOnId(removed.getId()), "Удалённая задача восстановлена.");
+        assertEquals(List.of(loaded), taskManager.getListOfTask(new TaskQuery(10, null, null, TaskStatus.IN_PROGRESS, null, null)),
+                "Индекс статусов не восстановлен.");
+        assertEquals(TaskStatus.DONE, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+        assertEquals(List.of(subtask), taskManager.getSubtaskOnEpic(epic.getId()));
+        assertEquals(List.of(task, subtask), List.copyOf(taskManager.getPrioritizedTasks()), "Расписание не восстановлено.");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(
+                new Task("Пересечение", "", TaskStatus.NEW, startTime.plusMinutes(10), Duration.ofMinutes(5))));
+
+        Task next = new Task("Новая", "", TaskStatus.NEW, null, null);
+        taskManager.addTask(next);
+        assertEquals(subtask.getId() + 1, next.getId(), "Счётчик id не восстановлен.");
+    }
+
+    @Test
+    void rewriteStringsOnlyWhenChanged() throws IOException {
+        try (MappedTaskStore store = MappedTaskStore.open(directory.resolve("store"))) {
+            Task task = Task.getInstance(1, "Задача", TaskStatus.NEW, "Описание", null, null);
+            store.write(task, TaskType.TASK);
+            long stringsSize = store.getStringsSize();
+
+            task.setTaskStatus(TaskStatus.DONE);
+            store.write(task, TaskType.TASK);
+            store.writeText(task.getId(), task.getName(), task.getDescription());
+            assertEquals(stringsSize, store.getStringsSize(), "Неизменённые строки дописаны заново.");
+
+            task.setName("Другая задача");
+            store.write(task, TaskType.TASK);
+            assertEquals("Другая задача", store.read(task.getId()).getName());
+            assertEquals("Описание", store.read(task.getId()).getDescription());
+            assertEquals(TaskStatus.DONE, store.getTaskStatus(task.getId()));
+
+            assertThrows(IllegalArgumentException.class, () -> store.getEpicId(2));
+            assertThrows(IllegalArgumentException.class, () -> store.getTaskStatus(2));
+            assertThrows(IllegalArgumentException.class, () -> store.getStartNanos(2));
+            assertThrows(IllegalArgumentException.class, () -> store.getEndNanos(2));
+        }
+    }
+
+    @Test
+    void compactStringsOfRewrittenTasks() throws IOException {
+        Task kept = new Task("Задача", "Описание", TaskStatus.NEW, null, null);
+        taskManager.addTask(kept);
+        Task task = new Task("Переписываемая", "", TaskStatus.NEW, null, null);
+        taskManager.addTask(task);
+        String padding = "x".repeat(1000);
+        for (int i = 0; i < 2000; i++) {
+            task.setDescription(padding + i);
+            taskManager.updateTask(task);
+        }
+        taskManager.close();
+
+        try (MappedTaskStore store = MappedTaskStore.open(directory)) {
+            assertTrue(store.getStringsSize() < 2000, "Устаревшие строки не освобождены: " + store.getStringsSize());
+            assertFalse(Files.exists(directory.resolve("strings.dat.compact")), "Сжатый файл строк не заменил прежний.");
+            assertEquals("Описание", store.read(kept.getId()).getDescription());
+            assertEquals(padding + 1999, store.read(task.getId()).getDescription());
+            assertEquals("Переписываемая", store.read(task.getId()).getName());
+        }
+
+        taskManager = MappedTaskManager.open(directory);
+        task.setName("После сжатия");
+        taskManager.updateTask(task);
+        assertEquals("После сжатия", taskManager.getTaskOnId(task.getId()).getName());
+        assertEquals(padding + 1999, taskManager.getTaskOnId(task.getId()).getDescription());
+        assertEquals("Задача", taskManager.getTaskOnId(kept.getId()).getName());
+    }
+}
@@ -0,0 +1,71 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.manager.InMemoryTaskManager;
+import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.metrics.InstrumentedTaskManager;
+import ru.korshunov.kanban.metrics.LatencyHistogram;
+import ru.korshunov.kanban.metrics.MetricsRegistry;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    void estimateQuantilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertEquals(10_000_000, histogram.getValueAtQuantile(1.0));
+        for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+            double expected = quantile * 10_000_000;
+            double actual = histogram.getValueAtQuantile(quantile);
+            assertTrue(actual >= expected && actual <= expected * (1 + 1.0 / 16), "Квантиль " + quantile + ": " + actual);
+        }
+    }
+
+    @Test
+    void writeOperationsInPrometheusFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        TaskManager taskManager = new InstrumentedTaskManager(new InMemoryTaskManager(), registry);
+        taskManager.addTask(new Task("Задача", "Описание", TaskStatus.NEW, null, null));
+        taskManager.getTaskOnId(1);
+        taskManager.getTaskOnId(1);
+
+        Map<String, Number> samples = registry.getSamples();
+        assertEquals(1L, samples.get("kanban_operation_seconds_count{operation=\"addTask\"}"));
+        assertEquals(2L, samples.get("kanban_operation_seconds_count{operation=\"getTaskOnId\"}"));
+        assertEquals(0L, samples.get("kanban_operation_seconds_count{operation=\"removeTask\"}"));
+
+        String text = registry.toPrometheusText();
+        assertTrue(text.contains("# TYPE kanban_operation_seconds summary\n"), text);
+        assertTrue(text.contains("kanban_operation_seconds{operation=\"addTask\",quantile=\"0.99\"} "), text);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("kanban_operation_seconds", "Счётчик"),
+                "Метрика зарегистрирована повторно с другим типом.");
+    }
+
+    @Test
+    void removeOnlyTheGaugeThatIsStillRegistered() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LongSupplier oldValue = () -> 1;
+        LongSupplier newValue = () -> 2;
+        registry.gauge("kanban_http_queue_depth", "Очередь", oldValue);
+        registry.gauge("kanban_http_queue_depth", "Очередь", newValue);
+
+        registry.removeGauge("kanban_http_queue_depth", oldValue);
+        assertEquals(2L, registry.getSamples().get("kanban_http_queue_depth"), "Снят показатель, заменивший прежний.");
+
+        registry.removeGauge("kanban_http_queue_depth", newValue);
+        assertNull(registry.getSamples().get("kanban_http_queue_depth"));
+    }
+}
@@ -0,0 +1,96 @@
+package ru.korshunov.kanban.test;
+
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.manager.TaskType;
+import ru.korshunov.kanban.manager.event.TaskEvent;
+import ru.korshunov.kanban.manager.event.TaskEventLog;
+import ru.korshunov.kanban.manager.event.TaskEventType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskEventLogTest {
+
+    @Test
+    void readAfterSequenceAndDetectLostEvents() {
+        TaskEventLog eventLog = new TaskEventLog(4);
+        List<TaskEvent> received = new ArrayList<>();
+        eventLog.addListener(received::add);
+
+        for (int id = 1; id <= 6; id++) {
+            eventLog.publish(TaskEventType.CREATED, TaskType.TASK, id);
+        }
+
+        assertEquals(6, received.size(), "Слушатель получил не все события.");
+        List<TaskEvent> events = eventLog.readAfter(3, 10);
+        assertEquals(3, events.size(), "Некорректное количество событий.");
+        assertEquals(4, events.get(0).getId());
+        assertEquals(2, eventLog.readAfter(2, 2).size(), "Не соблюдено ограничение количества.");
+
+        assertNull(eventLog.readAfter(1, 10), "Не обнаружена потеря вытесненных событий.");
+        assertNull(eventLog.readAfter(7, 10), "Номер из будущего не считается потерей.");
+        assertTrue(eventLog.readAfter(6, 10).isEmpty());
+    }
+
+    @Test
+    void isolateFailingListener() {
+        TaskEventLog eventLog = new TaskEventLog();
+        List<TaskEvent> received = new ArrayList<>();
+        eventLog.addListener(event -> {
+            throw new IllegalStateException("Ошибка слушателя.");
+        });
+        eventLog.addListener(received::add);
+
+        assertDoesNotThrow(() -> eventLog.publish(TaskEventType.CREATED, TaskType.TASK, 1));
+        assertEquals(1, received.size(), "Событие не доставлено после ошибки другого слушателя.");
+        assertEquals(1, eventLog.getLastSequence());
+    }
+
+    @Test
+    void trackVersionsOfCollectionsAndEntities() {
+        TaskEventLog eventLog = new TaskEventLog(2);
+        assertEquals(0, eventLog.getVersion(TaskType.TASK));
+        assertEquals(0, eventLog.getVersion(100));
+
+        eventLog.publish(TaskEventType.CREATED, TaskType.TASK, 1);
+        eventLog.publish(TaskEventType.CREATED, TaskType.EPIC, 100);
+        eventLog.publish(TaskEventType.UPDATED, TaskType.TASK, 1);
+
+        assertEquals(3, eventLog.getVersion(TaskType.TASK));
+        assertEquals(2, eventLog.getVersion(TaskType.EPIC));
+        assertEquals(0, eventLog.getVersion(TaskType.SUBTASK));
+        assertEquals(3, eventLog.getVersion(1), "Версия сущности не выросла после изменения.");
+        assertEquals(2, eventLog.getVersion(100), "Версия зависит от вытеснения событий из буфера.");
+
+        // Сущность с большим id не получает ячейку в массиве версий, но её версия всё равно меняется.
+        eventLog.publish(TaskEventType.CREATED, TaskType.TASK, 2_000_000_000);
+        long version = eventLog.getVersion(2_000_000_000);
+        assertEquals(4, version);
+        eventLog.publish(TaskEventType.UPDATED, TaskType.TASK, 2_000_000_000);
+        assertTrue(eventLog.getVersion(2_000_000_000) > version, "Версия сущности с большим id не изменилась.");
+        assertEquals(3, eventLog.getVersion(1));
+    }
+
+    @Test
+    void awaitNewEvents() throws InterruptedException {
+        TaskEventLog eventLog = new TaskEventLog();
+        Thread publisher = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            eventLog.publish(TaskEventType.REMOVED, TaskType.EPIC, 7);
+        });
+        publisher.start();
+
+        List<TaskEvent> events = eventLog.awaitAfter(0, 10, 5, TimeUnit.SECONDS);
+        assertEquals(1, events.size(), "Событие не дождались.");
+        assertEquals(TaskType.EPIC, events.get(0).getEntityType());
+        assertTrue(eventLog.awaitAfter(1, 10, 10, TimeUnit.MILLISECONDS).isEmpty());
+        publisher.join();
+    }
+}
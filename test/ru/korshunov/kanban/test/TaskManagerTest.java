@@ -3,8 +3,14 @@ package ru.korshunov.kanban.test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import ru.korshunov.kanban.manager.BatchResult;
 import ru.korshunov.kanban.manager.Managers;
+import ru.korshunov.kanban.manager.PrioritizedView;
 import ru.korshunov.kanban.manager.TaskManager;
+import ru.korshunov.kanban.manager.TaskQuery;
+import ru.korshunov.kanban.manager.TaskType;
+import ru.korshunov.kanban.manager.event.TaskEvent;
+import ru.korshunov.kanban.manager.event.TaskEventType;
 import ru.korshunov.kanban.task.Epic;
 import ru.korshunov.kanban.task.Subtask;
 import ru.korshunov.kanban.task.Task;
@@ -13,6 +19,8 @@ import ru.korshunov.kanban.task.TaskStatus;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -144,4 +152,235 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
     }
 
+    @Test
+    void checkingForIntersectionAfterUpdateAndRemove() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0);
+        Task task1 = new Task("Новыя задача 1", "", TaskStatus.NEW, startTime, Duration.ofMinutes(30));
+        Task task2 = new Task("Новыя задача 2", "", TaskStatus.NEW, startTime.plusMinutes(30), Duration.ofMinutes(30));
+        taskManager.addTask(task1);
+        taskManager.addTask(task2);
+
+        Task task1Shifted = new Task(task1);
+        task1Shifted.setStartTime(startTime.plusMinutes(10));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(task1Shifted), "Задачи пересекаются.");
+
+        task1Shifted.setStartTime(startTime.minusMinutes(10));
+        assertDoesNotThrow(() -> taskManager.updateTask(task1Shifted), "Задача пересекается сама с собой.");
+
+        Task task3 = new Task("Новыя задача 3", "", TaskStatus.NEW, startTime.plusMinutes(40), Duration.ofMinutes(10));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(task3), "Задачи пересекаются.");
+
+        taskManager.removeTask(task2.getId());
+        assertDoesNotThrow(() -> taskManager.addTask(task3), "Интервал удалённой задачи не освобождён.");
+    }
+
+    @Test
+    void pagingTasksByIdAndStartTime() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0);
+        for (int i = 0; i < 10; i++) {
+            TaskStatus taskStatus = i % 2 == 0 ? TaskStatus.NEW : TaskStatus.DONE;
+            taskManager.addTask(new Task("Задача " + i, "", taskStatus, startTime.plusHours(9 - i), Duration.ofMinutes(30)));
+        }
+
+        List<Task> firstPage = taskManager.getListOfTask(TaskQuery.firstPage(4));
+        assertEquals(4, firstPage.size(), "Некорректный размер страницы.");
+        int lastId = firstPage.get(3).getId();
+        List<Task> nextPage = taskManager.getListOfTask(new TaskQuery(4, lastId, null, null, null, null));
+        assertEquals(lastId + 1, nextPage.get(0).getId(), "Страница начинается не после курсора.");
+
+        List<Task> doneTasks = taskManager.getListOfTask(new TaskQuery(10, null, null, TaskStatus.DONE, null, null));
+        assertEquals(5, doneTasks.size(), "Некорректный фильтр по статусу.");
+
+        List<Task> window = taskManager.getPrioritizedTasks(new TaskQuery(2, null, null, null,
+                startTime.plusHours(2), startTime.plusHours(6)));
+        assertEquals(2, window.size(), "Некорректный размер страницы.");
+        assertEquals(startTime.plusHours(2), window.get(0).getStartTime(), "Окно начинается не с from.");
+
+        Task last = window.get(1);
+        List<Task> rest = taskManager.getPrioritizedTasks(new TaskQuery(10, last.getId(), last.getStartTime(), null,
+                startTime.plusHours(2), startTime.plusHours(6)));
+        assertEquals(2, rest.size(), "Окно не ограничено to.");
+        assertEquals(startTime.plusHours(5), rest.get(1).getStartTime(), "Некорректный порядок задач.");
+    }
+
+    @Test
+    void keepSubtaskOrderAfterRemovingMiddleOne() {
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+        Subtask first = new Subtask("Подзадача 1", "", TaskStatus.NEW, epic.getId(), null, null);
+        Subtask second = new Subtask("Подзадача 2", "", TaskStatus.NEW, epic.getId(), null, null);
+        Subtask third = new Subtask("Подзадача 3", "", TaskStatus.NEW, epic.getId(), null, null);
+        Subtask fourth = new Subtask("Подзадача 4", "", TaskStatus.NEW, epic.getId(), null, null);
+        taskManager.addSubtask(first);
+        taskManager.addSubtask(second);
+        taskManager.addSubtask(third);
+        taskManager.addSubtask(fourth);
+
+        taskManager.removeSubtask(second.getId());
+        Subtask updated = new Subtask("Подзадача 1", "", TaskStatus.DONE, epic.getId(), null, null);
+        updated.setId(first.getId());
+        taskManager.updateSubtask(updated);
+
+        assertEquals(List.of(first, third, fourth), taskManager.getSubtaskOnEpic(epic.getId()), "Порядок подзадач изменился.");
+        assertEquals(List.of(first, third, fourth), taskManager.getEpicOnId(epic.getId()).getListOfSubtasks(),
+                "Порядок подзадач эпика изменился.");
+    }
+
+    @Test
+    void pagePrioritizedTasksByStatus() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0);
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+        List<Task> done = new ArrayList<>();
+        List<Task> added = new ArrayList<>();
+        // Время начала убывает с id, чтобы порядок расписания не совпадал с порядком индекса статусов.
+        for (int i = 0; i < 30; i++) {
+            TaskStatus taskStatus = i % 10 == 3 ? TaskStatus.DONE : TaskStatus.NEW;
+            LocalDateTime start = startTime.plusHours(29 - i);
+            Task task;
+            if (i % 3 == 0) {
+                task = new Subtask("Подзадача " + i, "", taskStatus, epic.getId(), start, Duration.ofMinutes(30));
+                taskManager.addSubtask((Subtask) task);
+            } else {
+                task = new Task("Задача " + i, "", taskStatus, start, Duration.ofMinutes(30));
+                taskManager.addTask(task);
+            }
+            added.add(0, task);
+            if (taskStatus == TaskStatus.DONE) {
+                done.add(0, task);
+            }
+        }
+        taskManager.addTask(new Task("Без времени", "", TaskStatus.DONE, null, null));
+        added.removeAll(done);
+
+        // Редкий статус выбирается по индексу статусов, частый - обходом расписания.
+        assertEquals(done, getAllPrioritizedTasks(TaskStatus.DONE, 1, null, null), "Некорректные страницы по редкому статусу.");
+        assertEquals(added, getAllPrioritizedTasks(TaskStatus.NEW, 4, null, null), "Некорректные страницы по частому статусу.");
+        assertEquals(done.subList(0, 2), getAllPrioritizedTasks(TaskStatus.DONE, 1, startTime.plusHours(5), startTime.plusHours(25)),
+                "Некорректное окно по редкому статусу.");
+    }
+
+    private List<Task> getAllPrioritizedTasks(TaskStatus taskStatus, int limit, LocalDateTime from, LocalDateTime to) {
+        List<Task> all = new ArrayList<>();
+        Task last = null;
+        while (true) {
+            List<Task> page = taskManager.getPrioritizedTasks(new TaskQuery(limit, last == null ? null : last.getId(),
+                    last == null ? null : last.getStartTime(), taskStatus, from, to));
+            all.addAll(page);
+            if (page.size() < limit) {
+                return all;
+            }
+            last = page.get(page.size() - 1);
+        }
+    }
+
+    @Test
+    void filterByStatusThroughIndex() {
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+        Task first = new Task("Задача 1", "", TaskStatus.NEW, null, null);
+        Task second = new Task("Задача 2", "", TaskStatus.NEW, null, null);
+        Task third = new Task("Задача 3", "", TaskStatus.DONE, null, null);
+        taskManager.addTask(first);
+        taskManager.addTask(second);
+        taskManager.addTask(third);
+        Subtask subtask = new Subtask("Подзадача", "", TaskStatus.IN_PROGRESS, epic.getId(), null, null);
+        taskManager.addSubtask(subtask);
+
+        Task done = new Task(first);
+        done.setTaskStatus(TaskStatus.DONE);
+        taskManager.updateTask(done);
+        taskManager.removeTask(third.getId());
+
+        TaskQuery doneTasks = new TaskQuery(10, null, null, TaskStatus.DONE, null, null);
+        assertEquals(List.of(first), taskManager.getListOfTask(doneTasks), "Индекс статусов не обновлён.");
+        assertEquals(List.of(second), taskManager.getListOfTask(new TaskQuery(10, first.getId(), null, TaskStatus.NEW, null, null)));
+        assertEquals(List.of(subtask), taskManager.getListOfSubtasks(new TaskQuery(10, null, null, TaskStatus.IN_PROGRESS, null, null)));
+        assertTrue(taskManager.getListOfSubtasks(doneTasks).isEmpty());
+
+        // Статус эпика вычисляется по подзадачам, а окно времени начала - диапазон расписания: без индекса
+        // такой фильтр не выполняется.
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getListOfEpics(doneTasks));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getListOfTask(new TaskQuery(10, null, null, null,
+                LocalDateTime.of(2025, 5, 13, 0, 0), null)));
+    }
+
+    @Test
+    void cachePrioritizedViewUntilScheduleChanges() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 0, 0);
+        taskManager.addTask(new Task("Задача 1", "", TaskStatus.NEW, startTime.plusHours(1), Duration.ofMinutes(30)));
+        PrioritizedView view = taskManager.getPrioritizedTasks();
+
+        assertSame(view, taskManager.getPrioritizedTasks(), "Снимок пересобран без изменения расписания.");
+        taskManager.addTask(new Task("Без времени", "", TaskStatus.NEW, null, null));
+        assertSame(view, taskManager.getPrioritizedTasks(), "Задача без времени изменила расписание.");
+        assertThrows(UnsupportedOperationException.class, () -> view.add(view.get(0)));
+        assertThrows(UnsupportedOperationException.class, view::clear);
+
+        taskManager.addTask(new Task("Задача 0", "", TaskStatus.NEW, startTime, Duration.ofMinutes(30)));
+        PrioritizedView changed = taskManager.getPrioritizedTasks();
+        assertEquals(1, view.size(), "Изменился уже выданный снимок.");
+        assertEquals(2, changed.size());
+        assertEquals("Задача 0", changed.get(0).getName(), "Некорректный порядок задач.");
+    }
+
+    @Test
+    void publishEventsForMutations() {
+        long start = taskManager.getEventLog().getLastSequence();
+
+        Task task = new Task("Задача", "", TaskStatus.NEW, null, null);
+        taskManager.addTask(task);
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "", TaskStatus.DONE, epic.getId(), null, null);
+        taskManager.addSubtask(subtask);
+        taskManager.removeTask(task.getId());
+        taskManager.removeTask(task.getId());
+
+        List<TaskEvent> events = taskManager.getEventLog().readAfter(start, 100);
+        assertEquals(5, events.size(), "Некорректное количество событий.");
+        assertEquals(TaskEventType.CREATED, events.get(0).getType());
+        assertEquals(task.getId(), events.get(0).getId());
+        assertEquals(TaskType.SUBTASK, events.get(2).getEntityType());
+        assertEquals(TaskType.EPIC, events.get(3).getEntityType(), "Нет события об изменении эпика.");
+        assertEquals(TaskEventType.UPDATED, events.get(3).getType());
+        assertEquals(TaskEventType.REMOVED, events.get(4).getType());
+        assertEquals(start + 5, events.get(4).getSequence(), "Номера событий идут не подряд.");
+    }
+
+    @Test
+    void applyBatchWithPerItemResults() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 13, 12, 0);
+        Epic epic = new Epic("Эпик", "");
+        taskManager.addEpic(epic);
+
+        Task task1 = new Task("Задача 1", "", TaskStatus.NEW, startTime, Duration.ofMinutes(30));
+        Task task2 = new Task("Задача 2", "", TaskStatus.NEW, startTime.plusMinutes(10), Duration.ofMinutes(30));
+        Subtask subtask = new Subtask("Подзадача", "", TaskStatus.DONE, epic.getId(), startTime.plusHours(1), Duration.ofMinutes(30));
+        Subtask orphan = new Subtask("Подзадача без эпика", "", TaskStatus.NEW, 999, null, null);
+
+        List<BatchResult> added = taskManager.addAll(List.of(task1, task2, subtask, orphan));
+        assertEquals(4, added.size(), "Нет результата для каждого элемента.");
+        assertTrue(added.get(0).isSuccess());
+        assertFalse(added.get(1).isSuccess(), "Пересечение внутри пакета не обнаружено.");
+        assertTrue(added.get(2).isSuccess());
+        assertFalse(added.get(3).isSuccess());
+        assertEquals(TaskStatus.DONE, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+
+        Task task1Updated = new Task(task1);
+        task1Updated.setName("Изменённая задача 1");
+        Task missing = Task.getInstance(999, "Нет такой", TaskStatus.NEW, "", null, null);
+        List<BatchResult> updated = taskManager.updateAll(List.of(task1Updated, missing));
+        assertTrue(updated.get(0).isSuccess());
+        assertFalse(updated.get(1).isSuccess(), "Обновлена несуществующая задача.");
+        assertEquals("Изменённая задача 1", taskManager.getTaskOnId(task1.getId()).getName());
+
+        List<BatchResult> removed = taskManager.removeAll(List.of(task1.getId(), subtask.getId(), 999));
+        assertTrue(removed.get(0).isSuccess());
+        assertTrue(removed.get(1).isSuccess());
+        assertFalse(removed.get(2).isSuccess());
+        assertTrue(taskManager.getListOfTask().isEmpty());
+        assertEquals(TaskStatus.NEW, taskManager.getEpicOnId(epic.getId()).getTaskStatus());
+    }
+
 }
@@ -0,0 +1,67 @@
+package ru.korshunov.kanban.test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import ru.korshunov.kanban.adapter.DurationTypeAdapter;
+import ru.korshunov.kanban.adapter.LocalDateTimeTypeAdapter;
+import ru.korshunov.kanban.httpserver.HttpKanbanServer;
+import ru.korshunov.kanban.task.Epic;
+import ru.korshunov.kanban.task.Subtask;
+import ru.korshunov.kanban.task.Task;
+import ru.korshunov.kanban.task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskTypeAdapterTest {
+    private final Gson gson = HttpKanbanServer.getGson();
+    private final Gson reflectiveGson = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+            .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+            .create();
+
+    @Test
+    void writeSameJsonAsReflectiveGson() {
+        Task task = Task.getInstance(1, "Задача", TaskStatus.NEW, "Описание", LocalDateTime.of(2025, 5, 13, 15, 15), Duration.ofMinutes(20));
+        Task withoutTime = Task.getInstance(2, "Без времени", TaskStatus.DONE, null, null, null);
+        Epic epic = Epic.getInstance(3, "Эпик", TaskStatus.NEW, "Описание");
+        Subtask subtask = Subtask.getInstance(4, "Подзадача", TaskStatus.IN_PROGRESS, "", 3, LocalDateTime.of(2025, 5, 14, 10, 0), Duration.ofHours(1));
+        epic.addSubtask(subtask);
+
+        for (Task value : new Task[]{task, withoutTime, subtask}) {
+            assertEquals(JsonParser.parseString(reflectiveGson.toJson(value)), JsonParser.parseString(gson.toJson(value)),
+                    "JSON отличается от сериализации по умолчанию: " + value);
+        }
+
+        // Подзадачи эпика хранятся не списком, поэтому его JSON сверяется с прежним видом явно.
+        String epicJson = "{\"subtasks\":[" + reflectiveGson.toJson(subtask) + "],\"endTime\":\"2025-05-14T11:00\","
+                + "\"name\":\"Эпик\",\"description\":\"Описание\",\"id\":3,\"taskStatus\":\"IN_PROGRESS\","
+                + "\"startTime\":\"2025-05-14T10:00\",\"duration\":3600}";
+        assertEquals(JsonParser.parseString(epicJson), JsonParser.parseString(gson.toJson(epic)), "JSON эпика изменился.");
+    }
+
+    @Test
+    void readTasksWithNullsAndUnknownFields() {
+        Task task = gson.fromJson("{\"name\":\"Задача\",\"id\":5,\"taskStatus\":\"DONE\",\"startTime\":null,\"type\":\"TASK\"}", Task.class);
+        assertEquals(5, task.getId());
+        assertEquals("Задача", task.getName());
+        assertEquals(TaskStatus.DONE, task.getTaskStatus());
+        assertNull(task.getStartTime());
+        assertNull(task.getDuration());
+
+        Subtask subtask = gson.fromJson("{\"epicId\":3,\"name\":\"Подзадача\",\"taskStatus\":\"NEW\",\"startTime\":\"2025-05-14T10:00\",\"duration\":3600}", Subtask.class);
+        assertEquals(3, subtask.getEpicId());
+        assertEquals(LocalDateTime.of(2025, 5, 14, 11, 0), subtask.getEndTime());
+
+        Epic epic = Epic.getInstance(3, "Эпик", TaskStatus.NEW, "Описание");
+        epic.addSubtask(subtask);
+        Epic read = gson.fromJson(gson.toJson(epic), Epic.class);
+        assertEquals(1, read.getNumberOfSubtasks(), "Подзадачи эпика не прочитаны.");
+        assertEquals(epic.getStartTime(), read.getStartTime());
+        assertEquals(epic.getEndTime(), read.getEndTime());
+    }
+}
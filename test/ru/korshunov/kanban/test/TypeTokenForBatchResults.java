@@ -0,0 +1,9 @@
+package ru.korshunov.kanban.test;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.util.List;
+import java.util.Map;
+
+public class TypeTokenForBatchResults extends TypeToken<Map<String, List<Map<String, Object>>>> {
+}